@@ -0,0 +1,7 @@
+// Concrete Class for Email Notification
+public class EmailNotification implements Notification {
+    @Override
+    public void notifyUser(String message) {
+        System.out.println("Email Notification: " + message);
+    }
+}
@@ -0,0 +1,7 @@
+// Concrete Class for Instagram Notification
+public class InstagramNotification implements Notification {
+    @Override
+    public void notifyUser(String message) {
+        System.out.println("Instagram Notification: " + message);
+    }
+}
@@ -0,0 +1,40 @@
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Local stand-in for a remote gateway: costs a fixed latency per batch, fails at a given rate, and counts what arrives
+public class LocalTransportStub implements NotificationTransport {
+    private final long latencyMillis;
+    private final double failureRate;
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong calls = new AtomicLong();
+
+    LocalTransportStub(long latencyMillis, double failureRate) {
+        this.latencyMillis = latencyMillis;
+        this.failureRate = failureRate;
+    }
+
+    @Override
+    public void deliver(String channel, Notification sender, List<OutboundMessage> batch) throws IOException {
+        calls.incrementAndGet();
+        try {
+            Thread.sleep(latencyMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted");
+        }
+        if (ThreadLocalRandom.current().nextDouble() < failureRate) {
+            throw new IOException(channel + " gateway unavailable");
+        }
+        delivered.addAndGet(batch.size());
+    }
+
+    long getDelivered() {
+        return delivered.get();
+    }
+
+    long getCalls() {
+        return calls.get();
+    }
+}
@@ -0,0 +1,4 @@
+// Notification Interface
+public interface Notification {
+    void notifyUser(String message);
+}
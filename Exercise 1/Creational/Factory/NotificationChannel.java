@@ -0,0 +1,14 @@
+// Built-in channels, each with one shared sender (senders are stateless)
+public enum NotificationChannel {
+    EMAIL(new EmailNotification()),
+    SMS(new SMSNotification()),
+    PUSH(new PushNotification()),
+    INSTAGRAM(new InstagramNotification()),
+    WHATSAPP(new WhatsAppNotification());
+
+    final Notification sender;
+
+    NotificationChannel(Notification sender) {
+        this.sender = sender;
+    }
+}
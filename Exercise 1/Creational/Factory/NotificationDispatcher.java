@@ -0,0 +1,223 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Transport that hands every message to the channel's sender, i.e. prints it
+class DirectTransport implements NotificationTransport {
+    @Override
+    public void deliver(String channel, Notification sender, List<OutboundMessage> batch) {
+        for (OutboundMessage message : batch) {
+            sender.notifyUser(message.recipient + ": " + message.text);
+        }
+    }
+}
+
+// Dispatcher: sends messages on several channels in parallel, in batches, with retries.
+// Each channel has one cached sender, a bounded queue and a few worker threads. A worker
+// takes up to batchSize queued messages and delivers them in one transport call, retrying
+// with exponential backoff. A full queue blocks the caller, so a broadcast cannot outrun
+// the channels, and the number of threads never depends on the number of messages.
+public class NotificationDispatcher implements AutoCloseable {
+    private static final OutboundMessage STOP = new OutboundMessage(null, null); // Tells a worker to exit
+
+    private final NotificationTransport transport;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long backoffMillis; // Wait before the first retry; doubles on each further retry
+    private final Map<Notification, Channel> channels = new IdentityHashMap<>(); // Keyed by the channel's shared sender
+    private final AtomicLong pending = new AtomicLong(); // Messages queued or being delivered
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+
+    // One channel: its sender, queue and workers
+    private final class Channel {
+        final String name;
+        final Notification sender; // Created once; senders are stateless
+        final BlockingQueue<OutboundMessage> queue;
+        final List<Thread> workers = new ArrayList<>();
+
+        Channel(String name, Notification sender, int queueCapacity, int workerCount) {
+            this.name = name;
+            this.sender = sender;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            for (int i = 0; i < workerCount; i++) {
+                Thread worker = new Thread(this::work, "notify-" + name.toLowerCase() + "-" + i);
+                worker.setDaemon(true);
+                workers.add(worker);
+                worker.start();
+            }
+        }
+
+        private void work() {
+            List<OutboundMessage> batch = new ArrayList<>(batchSize);
+            try {
+                while (true) {
+                    OutboundMessage first = queue.take();
+                    if (first == STOP) {
+                        queue.put(STOP); // Pass it on to the channel's other workers
+                        return;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    boolean stop = batch.remove(STOP); // Another worker's stop must not be lost
+                    if (stop) {
+                        queue.put(STOP);
+                    }
+                    try {
+                        deliver(batch);
+                    } finally {
+                        pending.addAndGet(-batch.size()); // Delivered or dropped, never left pending
+                        batch.clear();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // A RuntimeException from the transport counts as a failed attempt, like an IOException
+        private void deliver(List<OutboundMessage> batch) throws InterruptedException {
+            batches.incrementAndGet();
+            long wait = backoffMillis;
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    transport.deliver(name, sender, batch);
+                    delivered.addAndGet(batch.size());
+                    return;
+                } catch (IOException | RuntimeException e) {
+                    if (attempt >= maxAttempts) {
+                        failed.addAndGet(batch.size());
+                        System.out.println("Dropping " + batch.size() + " " + name + " messages after " + attempt + " attempts: " + e);
+                        return;
+                    }
+                }
+                retries.incrementAndGet();
+                try {
+                    // Jitter spreads out workers that failed together
+                    Thread.sleep(wait + ThreadLocalRandom.current().nextLong(wait / 2 + 1));
+                } catch (InterruptedException e) {
+                    failed.addAndGet(batch.size()); // Shutting down: the batch is dropped
+                    throw e;
+                }
+                wait *= 2;
+            }
+        }
+    }
+
+    // Create a dispatcher for the given channels, e.g. "EMAIL", "SMS"
+    public NotificationDispatcher(NotificationTransport transport, String[] channelNames, int queueCapacity,
+                                  int workersPerChannel, int batchSize, int maxAttempts, long backoffMillis) {
+        this.transport = transport;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.backoffMillis = backoffMillis;
+        for (String name : channelNames) {
+            Notification sender = NotificationRegistry.lookup(name);
+            if (sender == null) {
+                throw new IllegalArgumentException("Unknown channel " + name);
+            }
+            channels.put(sender, new Channel(name.toUpperCase(), sender, queueCapacity, workersPerChannel));
+        }
+    }
+
+    // Queue one message on each of the given channels; blocks while a channel's queue is full
+    public void send(String recipient, String text, String... channelNames) throws InterruptedException {
+        OutboundMessage message = new OutboundMessage(recipient, text);
+        for (String name : channelNames) {
+            Channel channel = channels.get(NotificationRegistry.lookup(name)); // No per-message allocation
+            if (channel == null) {
+                throw new IllegalArgumentException("Channel " + name + " is not configured");
+            }
+            pending.incrementAndGet();
+            channel.queue.put(message);
+        }
+    }
+
+    // Queue the same message for every recipient on each of the given channels
+    public void broadcast(Iterable<String> recipients, String text, String... channelNames) throws InterruptedException {
+        for (String recipient : recipients) {
+            send(recipient, text, channelNames);
+        }
+    }
+
+    // Wait until every queued message has been delivered or dropped
+    public boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (pending.get() > 0) {
+            if (System.nanoTime() >= deadline) {
+                return false;
+            }
+            Thread.sleep(1);
+        }
+        return true;
+    }
+
+    public long getDelivered() {
+        return delivered.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public long getRetries() {
+        return retries.get();
+    }
+
+    public long getBatches() {
+        return batches.get();
+    }
+
+    // Let the workers finish the queued messages, then stop them
+    @Override
+    public void close() {
+        try {
+            for (Channel channel : channels.values()) {
+                channel.queue.put(STOP);
+            }
+            for (Channel channel : channels.values()) {
+                for (Thread worker : channel.workers) {
+                    worker.join();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // The daemon workers are abandoned
+        }
+    }
+
+    // Client code: broadcast an alert to 100,000 users on three channels
+    public static void main(String[] args) throws InterruptedException {
+        int users = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        List<String> recipients = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            recipients.add("user" + i);
+        }
+
+        LocalTransportStub gateway = new LocalTransportStub(2, 0.05); // 2 ms per batch, 5% transient failures
+        long begin = System.nanoTime();
+        try (NotificationDispatcher dispatcher = new NotificationDispatcher(gateway, new String[] {"EMAIL", "SMS", "PUSH"},
+                10_000, 4, 500, 5, 10)) {
+            dispatcher.broadcast(recipients, "The office closes early today.", "EMAIL", "SMS", "PUSH");
+            dispatcher.awaitIdle(1, TimeUnit.MINUTES);
+            double seconds = (System.nanoTime() - begin) / 1e9;
+            System.out.printf("Sent %d messages to %d users in %.2f s: %d batches, %d retries, %d dropped%n",
+                    dispatcher.getDelivered(), users, seconds, dispatcher.getBatches(), dispatcher.getRetries(), dispatcher.getFailed());
+        }
+
+        // Small batches go through the channel's own sender
+        try (NotificationDispatcher dispatcher = new NotificationDispatcher(new DirectTransport(), new String[] {"EMAIL", "WHATSAPP"},
+                100, 1, 10, 3, 10)) {
+            dispatcher.send("alice", "Your meeting starts in 5 minutes.", "EMAIL", "WHATSAPP");
+            dispatcher.awaitIdle(5, TimeUnit.SECONDS);
+        }
+    }
+}
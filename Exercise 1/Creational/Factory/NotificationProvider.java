@@ -0,0 +1,8 @@
+// Plug-in point for extra channels: list implementations in META-INF/services/NotificationProvider
+public interface NotificationProvider {
+    // Channel name, matched case-insensitively
+    String getChannel();
+
+    // Create the channel's sender; called once, the sender is then shared
+    Notification createSender();
+}
@@ -0,0 +1,74 @@
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+// Channel registry: built-in channels plus those found through ServiceLoader, looked up by name
+// in an open-addressing table. Lookup folds ASCII case while hashing and comparing, so it
+// allocates nothing, and it returns the channel's shared sender.
+public final class NotificationRegistry {
+    private static final String[] names; // Upper-case channel names by slot, null if empty
+    private static final Notification[] senders;
+
+    static {
+        Map<String, Notification> channels = new LinkedHashMap<>();
+        for (NotificationChannel channel : NotificationChannel.values()) {
+            channels.put(channel.name(), channel.sender);
+        }
+        for (NotificationProvider provider : ServiceLoader.load(NotificationProvider.class)) {
+            channels.put(provider.getChannel().toUpperCase(Locale.ROOT), provider.createSender()); // May replace a built-in
+        }
+        int size = Integer.highestOneBit(channels.size() * 4 - 1) << 1; // At most a quarter full
+        names = new String[size];
+        senders = new Notification[size];
+        for (Map.Entry<String, Notification> channel : channels.entrySet()) {
+            int slot = hash(channel.getKey()) & (size - 1);
+            while (names[slot] != null) {
+                slot = (slot + 1) & (size - 1);
+            }
+            names[slot] = channel.getKey();
+            senders[slot] = channel.getValue();
+        }
+    }
+
+    private NotificationRegistry() {
+    }
+
+    // Get the shared sender of a channel, or null if there is no such channel
+    public static Notification lookup(CharSequence name) {
+        if (name == null) {
+            return null;
+        }
+        int mask = names.length - 1;
+        for (int slot = hash(name) & mask; names[slot] != null; slot = (slot + 1) & mask) {
+            if (equalsIgnoreCase(names[slot], name)) {
+                return senders[slot];
+            }
+        }
+        return null;
+    }
+
+    private static int hash(CharSequence name) {
+        int h = 0;
+        for (int i = 0; i < name.length(); i++) {
+            h = 31 * h + upper(name.charAt(i));
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean equalsIgnoreCase(String upperName, CharSequence name) {
+        if (upperName.length() != name.length()) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (upperName.charAt(i) != upper(name.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static char upper(char c) {
+        return c >= 'a' && c <= 'z' ? (char) (c - ('a' - 'A')) : c;
+    }
+}
@@ -1,68 +1,8 @@
-// Notification Interface
-interface Notification {
-    void notifyUser(String message);
-}
-
-// Concrete Class for Email Notification
-class EmailNotification implements Notification {
-    @Override
-    public void notifyUser(String message) {
-        System.out.println("Email Notification: " + message);
-    }
-}
-
-// Concrete Class for SMS Notification
-class SMSNotification implements Notification {
-    @Override
-    public void notifyUser(String message) {
-        System.out.println("SMS Notification: " + message);
-    }
-}
-
-// Concrete Class for Push Notification
-class PushNotification implements Notification {
-    @Override
-    public void notifyUser(String message) {
-        System.out.println("Push Notification: " + message);
-    }
-}
-
-// Concrete Class for Instagram Notification
-class InstagramNotification implements Notification {
-    @Override
-    public void notifyUser(String message) {
-        System.out.println("Instagram Notification: " + message);
-    }
-}
-
-// Concrete Class for WhatsApp Notification
-class WhatsAppNotification implements Notification {
-    @Override
-    public void notifyUser(String message) {
-        System.out.println("WhatsApp Notification: " + message);
-    }
-}
-
 // Notification Factory
 class NotificationFactory {
+    // Returns the channel's shared sender; type is matched case-insensitively
     public static Notification createNotification(String type) {
-        if (type == null) {
-            return null;
-        }
-        switch (type.toUpperCase()) {
-            case "EMAIL":
-                return new EmailNotification();
-            case "SMS":
-                return new SMSNotification();
-            case "PUSH":
-                return new PushNotification();
-            case "INSTAGRAM":
-                return new InstagramNotification();
-            case "WHATSAPP":
-                return new WhatsAppNotification();
-            default:
-                return null;
-        }
+        return NotificationRegistry.lookup(type);
     }
 }
 
@@ -83,5 +23,11 @@ public class NotificationSystemExample {
 
         Notification whatsapp = NotificationFactory.createNotification("WHATSAPP");
         whatsapp.notifyUser("You have a new WhatsApp message!");
+
+        // Channels from plug-ins are looked up the same way, when their provider is on the class path
+        Notification slack = NotificationFactory.createNotification("slack");
+        if (slack != null) {
+            slack.notifyUser("You have a new Slack message!");
+        }
     }
 }
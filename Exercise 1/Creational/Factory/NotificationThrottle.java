@@ -0,0 +1,276 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Next stage of the pipeline, e.g. a NotificationDispatcher
+interface NotificationSink {
+    void send(String recipient, String text, String channel) throws InterruptedException;
+}
+
+// Throttle: a pipeline stage in front of the senders, keyed by (recipient, channel).
+// - Deduplication: a text already sent to the same recipient and channel within the dedup
+//   window is dropped.
+// - Rate limiting: each key has a token bucket; a message that finds no token is not sent
+//   but kept for the key's digest.
+// - Digest: once the digest window of the first held message has passed, all held messages
+//   go out as one, e.g. "3 notifications: a | b | c".
+// State lives in lock stripes chosen by the key's hash, so producers for different keys
+// rarely contend, and sending always happens outside the locks.
+public class NotificationThrottle implements AutoCloseable {
+    private static final int DEDUP_LIMIT = 64; // Recent texts remembered per key before expired ones are pruned
+    private static final int DIGEST_PREVIEW = 5; // Held messages quoted in a digest
+
+    // Result of submitting a message
+    enum Outcome {
+        SENT, DUPLICATE, DIGESTED
+    }
+
+    // Identifies a recipient on one channel
+    private static final class Key {
+        final String recipient;
+        final String channel;
+        final int hash;
+
+        Key(String recipient, String channel) {
+            this.recipient = recipient;
+            this.channel = channel;
+            this.hash = 31 * recipient.hashCode() + channel.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key && ((Key) other).recipient.equals(recipient) && ((Key) other).channel.equals(channel);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    // Throttling state of one key; guarded by its stripe's lock
+    private static final class State {
+        double tokens;
+        long lastRefill;
+        final Map<String, Long> recent = new HashMap<>(); // Time each recent text was last accepted
+        List<String> held; // Messages waiting for the digest, or null
+        long digestDue; // When the held messages go out
+    }
+
+    // A digest ready to be sent, collected under the lock and sent after it
+    private static final class Digest {
+        final Key key;
+        final List<String> messages;
+
+        Digest(Key key, List<String> messages) {
+            this.key = key;
+            this.messages = messages;
+        }
+    }
+
+    private final NotificationSink sink;
+    private final double ratePerSecond; // Token refill rate per key
+    private final int burst; // Token bucket size per key
+    private final long dedupWindowMillis;
+    private final long digestWindowMillis;
+    private final Object[] locks;
+    private final List<Map<Key, State>> stripes;
+    private final ScheduledExecutorService ticker; // Sends due digests
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+    private final AtomicLong digested = new AtomicLong();
+    private final AtomicLong digestsSent = new AtomicLong();
+
+    public NotificationThrottle(NotificationSink sink, double ratePerSecond, int burst, long dedupWindowMillis,
+                                long digestWindowMillis, int stripeCount) {
+        this.sink = sink;
+        this.ratePerSecond = ratePerSecond;
+        this.burst = burst;
+        this.dedupWindowMillis = dedupWindowMillis;
+        this.digestWindowMillis = digestWindowMillis;
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1; // Power of two
+        this.locks = new Object[size];
+        this.stripes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            locks[i] = new Object();
+            stripes.add(new HashMap<>());
+        }
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "notification-digest");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long tick = Math.max(1, digestWindowMillis / 4);
+        ticker.scheduleWithFixedDelay(this::flushQuietly, tick, tick, TimeUnit.MILLISECONDS);
+    }
+
+    // Pass a message on, drop it as a duplicate, or hold it for the key's digest
+    public Outcome submit(String recipient, String text, String channel) throws InterruptedException {
+        Key key = new Key(recipient, channel);
+        long now = System.currentTimeMillis();
+        int stripe = (key.hash ^ (key.hash >>> 16)) & (locks.length - 1);
+        synchronized (locks[stripe]) {
+            State state = stripes.get(stripe).get(key);
+            if (state == null) {
+                state = new State();
+                state.tokens = burst;
+                state.lastRefill = now;
+                stripes.get(stripe).put(key, state);
+            }
+            Long seen = state.recent.get(text);
+            if (seen != null && now - seen < dedupWindowMillis) {
+                duplicates.incrementAndGet();
+                return Outcome.DUPLICATE;
+            }
+            state.recent.put(text, now);
+            if (state.recent.size() > DEDUP_LIMIT) {
+                state.recent.values().removeIf(time -> now - time >= dedupWindowMillis);
+            }
+            state.tokens = Math.min(burst, state.tokens + (now - state.lastRefill) * ratePerSecond / 1000.0);
+            state.lastRefill = now;
+            if (state.tokens < 1) {
+                if (state.held == null) {
+                    state.held = new ArrayList<>();
+                    state.digestDue = now + digestWindowMillis;
+                }
+                state.held.add(text);
+                digested.incrementAndGet();
+                return Outcome.DIGESTED;
+            }
+            state.tokens--;
+        }
+        sink.send(recipient, text, channel);
+        sent.incrementAndGet();
+        return Outcome.SENT;
+    }
+
+    // Send every digest whose window has passed, and forget keys that have gone quiet
+    public void flushDigests(long now) throws InterruptedException {
+        List<Digest> due = new ArrayList<>();
+        for (int stripe = 0; stripe < locks.length; stripe++) {
+            synchronized (locks[stripe]) {
+                for (Iterator<Map.Entry<Key, State>> it = stripes.get(stripe).entrySet().iterator(); it.hasNext(); ) {
+                    Map.Entry<Key, State> entry = it.next();
+                    State state = entry.getValue();
+                    if (state.held != null && now >= state.digestDue) {
+                        due.add(new Digest(entry.getKey(), state.held));
+                        state.held = null;
+                    } else if (state.held == null && now - state.lastRefill >= Math.max(dedupWindowMillis, burst * 1000 / ratePerSecond)) {
+                        it.remove(); // Bucket full again and nothing left to deduplicate against
+                    }
+                }
+            }
+        }
+        for (Digest digest : due) {
+            sink.send(digest.key.recipient, format(digest.messages), digest.key.channel);
+            digestsSent.incrementAndGet();
+        }
+    }
+
+    public long getSent() {
+        return sent.get();
+    }
+
+    public long getDuplicates() {
+        return duplicates.get();
+    }
+
+    public long getDigested() {
+        return digested.get();
+    }
+
+    public long getDigestsSent() {
+        return digestsSent.get();
+    }
+
+    // Send the remaining digests and stop the ticker
+    @Override
+    public void close() {
+        ticker.shutdown();
+        try {
+            ticker.awaitTermination(1, TimeUnit.SECONDS);
+            flushDigests(Long.MAX_VALUE);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flushDigests(System.currentTimeMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            System.out.println("Could not send digests: " + e.getMessage());
+        }
+    }
+
+    private static String format(List<String> messages) {
+        if (messages.size() == 1) {
+            return messages.get(0);
+        }
+        StringBuilder text = new StringBuilder().append(messages.size()).append(" notifications: ");
+        for (int i = 0; i < Math.min(messages.size(), DIGEST_PREVIEW); i++) {
+            text.append(i == 0 ? "" : " | ").append(messages.get(i));
+        }
+        if (messages.size() > DIGEST_PREVIEW) {
+            text.append(" | and ").append(messages.size() - DIGEST_PREVIEW).append(" more");
+        }
+        return text.toString();
+    }
+
+    // Client code: a burst of sensor alerts, then many producers at once
+    public static void main(String[] args) throws InterruptedException {
+        // 1 message per second per key with bursts of 3, 2 s dedup window, 1 s digests
+        try (NotificationThrottle throttle = new NotificationThrottle(
+                (recipient, text, channel) -> NotificationRegistry.lookup(channel).notifyUser(recipient + ": " + text),
+                1, 3, 2000, 1000, 64)) {
+            for (int i = 0; i < 20; i++) {
+                throttle.submit("alice", "Room 3 is occupied. AC and lights turned on.", "PUSH"); // Same alert, 20 times
+                throttle.submit("alice", "Room " + (10 + i) + " is free.", "PUSH");
+            }
+            Thread.sleep(1500);
+            System.out.printf("Burst: %d sent, %d duplicates, %d held for %d digest(s)%n",
+                    throttle.getSent(), throttle.getDuplicates(), throttle.getDigested(), throttle.getDigestsSent());
+        }
+
+        // 8 producers, 10,000 users on 3 channels, into a dispatcher over the local transport stub
+        LocalTransportStub gateway = new LocalTransportStub(1, 0);
+        try (NotificationDispatcher dispatcher = new NotificationDispatcher(gateway, new String[] {"EMAIL", "SMS", "PUSH"},
+                10_000, 2, 500, 3, 10);
+             NotificationThrottle throttle = new NotificationThrottle(dispatcher::send, 2, 3, 1000, 500, 256)) {
+            int producers = 8;
+            int perProducer = 200_000;
+            String[] channels = {"EMAIL", "SMS", "PUSH"};
+            CountDownLatch done = new CountDownLatch(producers);
+            long begin = System.nanoTime();
+            for (int p = 0; p < producers; p++) {
+                int producer = p;
+                new Thread(() -> {
+                    try {
+                        for (int i = 0; i < perProducer; i++) {
+                            int user = (i * 7 + producer) % 10_000;
+                            throttle.submit("user" + user, "Alert " + (i % 40), channels[i % 3]);
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                }).start();
+            }
+            done.await();
+            double seconds = (System.nanoTime() - begin) / 1e9;
+            System.out.printf("Load: %d submits in %.2f s (%.0f/s): %d sent, %d duplicates, %d held%n",
+                    (long) producers * perProducer, seconds, producers * perProducer / seconds,
+                    throttle.getSent(), throttle.getDuplicates(), throttle.getDigested());
+        }
+    }
+}
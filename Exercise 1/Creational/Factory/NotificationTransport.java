@@ -0,0 +1,7 @@
+import java.io.IOException;
+import java.util.List;
+
+// Delivers a batch of messages on one channel; throwing means "try again later"
+public interface NotificationTransport {
+    void deliver(String channel, Notification sender, List<OutboundMessage> batch) throws IOException;
+}
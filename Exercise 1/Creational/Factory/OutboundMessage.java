@@ -0,0 +1,10 @@
+// A message addressed to one user
+public class OutboundMessage {
+    final String recipient;
+    final String text;
+
+    OutboundMessage(String recipient, String text) {
+        this.recipient = recipient;
+        this.text = text;
+    }
+}
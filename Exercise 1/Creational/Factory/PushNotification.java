@@ -0,0 +1,7 @@
+// Concrete Class for Push Notification
+public class PushNotification implements Notification {
+    @Override
+    public void notifyUser(String message) {
+        System.out.println("Push Notification: " + message);
+    }
+}
@@ -0,0 +1,7 @@
+// Concrete Class for SMS Notification
+public class SMSNotification implements Notification {
+    @Override
+    public void notifyUser(String message) {
+        System.out.println("SMS Notification: " + message);
+    }
+}
@@ -0,0 +1,20 @@
+// Concrete Class for Slack Notification, added as a plug-in without touching the factory
+class SlackNotification implements Notification {
+    @Override
+    public void notifyUser(String message) {
+        System.out.println("Slack Notification: " + message);
+    }
+}
+
+// Registered in META-INF/services/NotificationProvider, found by NotificationRegistry through ServiceLoader
+public class SlackNotificationProvider implements NotificationProvider {
+    @Override
+    public String getChannel() {
+        return "SLACK";
+    }
+
+    @Override
+    public Notification createSender() {
+        return new SlackNotification();
+    }
+}
@@ -0,0 +1,7 @@
+// Concrete Class for WhatsApp Notification
+public class WhatsAppNotification implements Notification {
+    @Override
+    public void notifyUser(String message) {
+        System.out.println("WhatsApp Notification: " + message);
+    }
+}
@@ -1,41 +1,299 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
 // Subsystem: Account Management
+// The balance is kept in cents in an AtomicLong, so concurrent calls never lose an update:
+// every change is a CAS on the balance read just before, so a withdrawal can never take the
+// balance below zero and a deposit that would overflow it is refused.
 class Account {
-    private String accountNumber;
-    private double balance;
+    private final String accountNumber;
+    private final AtomicLong balanceCents = new AtomicLong();
 
     public Account(String accountNumber) {
         this.accountNumber = accountNumber;
-        this.balance = 0.0;
+    }
+
+    public String getAccountNumber() {
+        return accountNumber;
     }
 
     public void deposit(double amount) {
-        balance += amount;
-        System.out.println("Deposited: $" + amount + " | New Balance: $" + balance);
+        long cents = toCents(amount);
+        long balance = depositCents(cents);
+        System.out.println("Deposited: $" + format(cents) + " | New Balance: $" + format(balance));
     }
 
     public void withdraw(double amount) {
-        if (amount <= balance) {
-            balance -= amount;
-            System.out.println("Withdrew: $" + amount + " | New Balance: $" + balance);
+        long cents = toCents(amount);
+        long balance = withdrawCents(cents);
+        if (balance >= 0) {
+            System.out.println("Withdrew: $" + format(cents) + " | New Balance: $" + format(balance));
         } else {
             System.out.println("Insufficient funds for withdrawal.");
         }
     }
 
+    // Add cents without printing; returns the new balance
+    public long depositCents(long cents) {
+        if (cents < 0) {
+            throw new IllegalArgumentException("Deposit must not be negative");
+        }
+        while (true) {
+            long balance = balanceCents.get();
+            long updated = Math.addExact(balance, cents); // Throws instead of wrapping around
+            if (balanceCents.compareAndSet(balance, updated)) {
+                return updated;
+            }
+        }
+    }
+
+    // Take cents out if the balance covers them, without printing; returns the new balance, or -1 if it does not
+    public long withdrawCents(long cents) {
+        if (cents < 0) {
+            throw new IllegalArgumentException("Withdrawal must not be negative");
+        }
+        while (true) {
+            long balance = balanceCents.get();
+            if (balance < cents) {
+                return -1;
+            }
+            if (balanceCents.compareAndSet(balance, balance - cents)) {
+                return balance - cents;
+            }
+        }
+    }
+
     public double getBalance() {
-        return balance;
+        return balanceCents.get() / 100.0;
+    }
+
+    public long getBalanceCents() {
+        return balanceCents.get();
+    }
+
+    // Replace the balance only if nobody changed it since it was read; used by batch processing
+    boolean compareAndSetCents(long expected, long balance) {
+        return balanceCents.compareAndSet(expected, balance);
+    }
+
+    static long toCents(double amount) {
+        if (!(amount >= 0) || amount * 100 >= 0x1p63) { // Also rejects NaN and infinity
+            throw new IllegalArgumentException("Amount must be a finite, non-negative number that fits in cents");
+        }
+        return Math.round(amount * 100);
+    }
+
+    static String format(long cents) {
+        return cents / 100 + "." + (cents % 100 < 10 ? "0" : "") + cents % 100;
+    }
+}
+
+// Kinds of transaction
+enum TransactionType {
+    DEPOSIT, WITHDRAW;
+
+    static final TransactionType[] VALUES = values(); // Shared copy; values() clones on every call
+
+    // Match a name case-insensitively, e.g. "deposit"; returns null if there is no such type
+    static TransactionType of(String name) {
+        for (TransactionType type : VALUES) {
+            if (type.name().equalsIgnoreCase(name)) {
+                return type;
+            }
+        }
+        return null;
+    }
+}
+
+// A batch of transactions stored column by column: type, account index and amount in cents
+class TransactionBatch {
+    private byte[] types = new byte[1024]; // TransactionType ordinals
+    private int[] accounts = new int[1024];
+    private long[] cents = new long[1024];
+    private int size;
+
+    public void add(TransactionType type, int account, long amountCents) {
+        if (amountCents < 0) {
+            throw new IllegalArgumentException("Amount must not be negative");
+        }
+        if (size == types.length) {
+            int capacity = size * 2;
+            types = Arrays.copyOf(types, capacity);
+            accounts = Arrays.copyOf(accounts, capacity);
+            cents = Arrays.copyOf(cents, capacity);
+        }
+        types[size] = (byte) type.ordinal();
+        accounts[size] = account;
+        cents[size] = amountCents;
+        size++;
+    }
+
+    // Read lines of "type,account,amount", e.g. "withdraw,42,19.99"; blank lines are skipped,
+    // and any other line that cannot be read fails the whole batch with its line number
+    public static TransactionBatch read(BufferedReader reader) throws IOException {
+        TransactionBatch batch = new TransactionBatch();
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            int first = line.indexOf(',');
+            int second = line.indexOf(',', first + 1);
+            if (first < 0 || second < 0) {
+                throw new IOException("Line " + lineNumber + ": expected type,account,amount: " + line);
+            }
+            TransactionType type = TransactionType.of(line.substring(0, first).trim());
+            if (type == null) {
+                throw new IOException("Line " + lineNumber + ": unknown transaction type: " + line);
+            }
+            try {
+                batch.add(type, Integer.parseInt(line.substring(first + 1, second).trim()),
+                        Account.toCents(Double.parseDouble(line.substring(second + 1).trim())));
+            } catch (IllegalArgumentException e) { // Includes NumberFormatException
+                throw new IOException("Line " + lineNumber + ": invalid account or amount: " + line, e);
+            }
+        }
+        return batch;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    TransactionType typeAt(int index) {
+        return TransactionType.VALUES[types[index]];
+    }
+
+    int accountAt(int index) {
+        return accounts[index];
+    }
+
+    long centsAt(int index) {
+        return cents[index];
     }
 }
 
 // Subsystem: Transaction Processing
 class Transaction {
+    // Result codes of processBatch, one per transaction
+    static final byte APPLIED = 0;
+    static final byte INSUFFICIENT_FUNDS = 1;
+    static final byte UNKNOWN_ACCOUNT = 2;
+    static final byte BALANCE_OVERFLOW = 3; // The deposit would take the balance past Long.MAX_VALUE cents
+
+    private static final int SPLIT_THRESHOLD = 1 << 14; // Transactions below which a task runs on its own
+
     public void processTransaction(String type, double amount, Account account) {
-        if (type.equalsIgnoreCase("deposit")) {
+        TransactionType transactionType = TransactionType.of(type);
+        if (transactionType == TransactionType.DEPOSIT) {
             account.deposit(amount);
-        } else if (type.equalsIgnoreCase("withdraw")) {
+        } else if (transactionType == TransactionType.WITHDRAW) {
             account.withdraw(amount);
         }
     }
+
+    // Apply a whole batch without printing and return one result code per transaction.
+    // The batch is grouped by account with a counting sort that keeps each account's
+    // transactions in order; the groups are then applied in parallel on the fork-join pool,
+    // each in one pass over a local balance that is published with a single CAS (and
+    // recomputed in the rare case that another caller changed the account meanwhile).
+    public byte[] processBatch(TransactionBatch batch, Account[] accounts) {
+        int n = batch.size();
+        byte[] results = new byte[n];
+        int[] start = new int[accounts.length + 1]; // First position of each account's group
+        for (int i = 0; i < n; i++) {
+            int account = batch.accountAt(i);
+            if (account >= 0 && account < accounts.length && accounts[account] != null) {
+                start[account + 1]++;
+            } else {
+                results[i] = UNKNOWN_ACCOUNT;
+            }
+        }
+        for (int a = 0; a < accounts.length; a++) {
+            start[a + 1] += start[a];
+        }
+        int[] order = new int[start[accounts.length]]; // Transaction indices grouped by account
+        int[] next = Arrays.copyOf(start, accounts.length);
+        for (int i = 0; i < n; i++) {
+            if (results[i] != UNKNOWN_ACCOUNT) {
+                order[next[batch.accountAt(i)]++] = i;
+            }
+        }
+        ForkJoinPool.commonPool().invoke(new ApplyTask(batch, accounts, start, order, results, 0, accounts.length));
+        return results;
+    }
+
+    // Applies the groups of a range of accounts, splitting while the range holds many transactions
+    private static final class ApplyTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final TransactionBatch batch;
+        private final Account[] accounts;
+        private final int[] start;
+        private final int[] order;
+        private final byte[] results;
+        private final int from;
+        private final int to;
+
+        ApplyTask(TransactionBatch batch, Account[] accounts, int[] start, int[] order, byte[] results, int from, int to) {
+            this.batch = batch;
+            this.accounts = accounts;
+            this.start = start;
+            this.order = order;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1 && start[to] - start[from] > SPLIT_THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ApplyTask(batch, accounts, start, order, results, from, middle),
+                        new ApplyTask(batch, accounts, start, order, results, middle, to));
+                return;
+            }
+            for (int a = from; a < to; a++) {
+                if (start[a] == start[a + 1]) {
+                    continue;
+                }
+                Account account = accounts[a];
+                long before;
+                long balance;
+                do {
+                    before = account.getBalanceCents();
+                    balance = before;
+                    for (int k = start[a]; k < start[a + 1]; k++) {
+                        int i = order[k];
+                        long cents = batch.centsAt(i);
+                        if (batch.typeAt(i) == TransactionType.DEPOSIT) {
+                            try {
+                                balance = Math.addExact(balance, cents);
+                                results[i] = APPLIED;
+                            } catch (ArithmeticException e) {
+                                results[i] = BALANCE_OVERFLOW;
+                            }
+                        } else if (balance >= cents) {
+                            balance -= cents;
+                            results[i] = APPLIED;
+                        } else {
+                            results[i] = INSUFFICIENT_FUNDS;
+                        }
+                    }
+                } while (!account.compareAndSetCents(before, balance));
+            }
+        }
+    }
 }
 
 // Subsystem: Loan Application
@@ -66,7 +324,7 @@ class BankingFacade {
     }
 
     public void checkBalance() {
-        System.out.println("Current Balance: $" + account.getBalance());
+        System.out.println("Current Balance: $" + Account.format(account.getBalanceCents()));
     }
 
     public void applyForLoan(double amount) {
@@ -86,3 +344,154 @@ public class BankingSystemExample {
         bankingFacade.applyForLoan(15000);
     }
 }
+
+// Client code: many threads deposit into and withdraw from the same accounts at once.
+// Every thread counts what it moved, so the final balances can be checked to the cent;
+// withdrawals that the balance cannot cover are refused, never overdrawn.
+// Run with: java BankingConcurrencyExample [threads] [operations per thread]
+class BankingConcurrencyExample {
+    public static void main(String[] args) throws InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Math.max(4, Runtime.getRuntime().availableProcessors());
+        int operations = args.length > 1 ? Integer.parseInt(args[1]) : 2_000_000;
+        int mismatches = run("1 shared account", 1, threads, operations) + run("1024 accounts", 1024, threads, operations);
+        if (mismatches > 0) {
+            System.exit(1);
+        }
+    }
+
+    // Returns the number of accounts whose final balance is wrong
+    private static int run(String name, int accountCount, int threads, int operations) throws InterruptedException {
+        Account[] accounts = new Account[accountCount];
+        for (int i = 0; i < accountCount; i++) {
+            accounts[i] = new Account(String.valueOf(100000 + i));
+            accounts[i].depositCents(10_000); // Opening balance of $100
+        }
+        int stride = Math.max(accountCount, 16); // Per-thread rows at least a cache line apart
+        long[] deposited = new long[stride * threads]; // Per thread and account, so no sharing while running
+        long[] withdrawn = new long[stride * threads];
+        AtomicLong refused = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            new Thread(() -> {
+                try {
+                    start.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    long refusals = 0;
+                    for (int i = 0; i < operations; i++) {
+                        int account = accountCount == 1 ? 0 : random.nextInt(accountCount);
+                        long cents = 1 + random.nextInt(5_000);
+                        int slot = thread * stride + account;
+                        if (random.nextBoolean()) {
+                            accounts[account].depositCents(cents);
+                            deposited[slot] += cents;
+                        } else if (accounts[account].withdrawCents(cents) >= 0) {
+                            withdrawn[slot] += cents;
+                        } else {
+                            refusals++;
+                        }
+                    }
+                    refused.addAndGet(refusals);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        double seconds = (System.nanoTime() - begin) / 1e9;
+
+        int mismatches = 0;
+        for (int account = 0; account < accountCount; account++) {
+            long expected = 10_000;
+            for (int t = 0; t < threads; t++) {
+                expected += deposited[t * stride + account] - withdrawn[t * stride + account];
+            }
+            if (accounts[account].getBalanceCents() != expected || expected < 0) {
+                mismatches++;
+            }
+        }
+        long total = (long) threads * operations;
+        System.out.printf("%s, %d threads: %d ops in %.2f s (%.1fM ops/s), %d withdrawals refused, %s%n",
+                name, threads, total, seconds, total / seconds / 1e6, refused.get(),
+                mismatches == 0 ? "all balances exact" : mismatches + " balances WRONG");
+        return mismatches;
+    }
+}
+
+// Client code: end-of-day processing of a large batch of transactions.
+// The batch is applied with Transaction.processBatch, then checked against a plain
+// sequential replay; the result vector is summarized instead of printing every transaction.
+// Run with: java BankingBatchExample [transactions] [accounts]
+class BankingBatchExample {
+    public static void main(String[] args) throws IOException {
+        int transactions = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        int accountCount = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+
+        // A small batch file: unknown accounts and uncovered withdrawals are reported, not fatal
+        Account[] small = {new Account("100000"), new Account("100001")};
+        TransactionBatch file = TransactionBatch.read(new BufferedReader(new StringReader(
+                "deposit,0,500.00\nwithdraw,0,200.00\nWITHDRAW,1,10.00\ndeposit,7,1.00\n")));
+        byte[] smallResults = new Transaction().processBatch(file, small);
+        System.out.println("Small batch results: " + Arrays.toString(smallResults)
+                + ", balances $" + Account.format(small[0].getBalanceCents()) + " and $" + Account.format(small[1].getBalanceCents()));
+        try {
+            TransactionBatch.read(new BufferedReader(new StringReader("deposit,0,5.00\ndeposit,0,five\n")));
+        } catch (IOException e) {
+            System.out.println("Rejected batch file: " + e.getMessage());
+        }
+
+        Account[] accounts = new Account[accountCount];
+        long[] expected = new long[accountCount];
+        for (int i = 0; i < accountCount; i++) {
+            accounts[i] = new Account(String.valueOf(100000 + i));
+            accounts[i].depositCents(5_000);
+            expected[i] = 5_000;
+        }
+        Random random = new Random(7);
+        TransactionBatch batch = new TransactionBatch();
+        for (int i = 0; i < transactions; i++) {
+            batch.add(random.nextInt(3) == 0 ? TransactionType.DEPOSIT : TransactionType.WITHDRAW,
+                    random.nextInt(accountCount), 1 + random.nextInt(3_000));
+        }
+
+        Transaction transaction = new Transaction();
+        long begin = System.nanoTime();
+        byte[] results = transaction.processBatch(batch, accounts);
+        double seconds = (System.nanoTime() - begin) / 1e9;
+
+        // Sequential replay of the same batch for comparison
+        int[] counts = new int[4];
+        int mismatches = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            int account = batch.accountAt(i);
+            long cents = batch.centsAt(i);
+            byte result;
+            if (batch.typeAt(i) == TransactionType.DEPOSIT) {
+                expected[account] = Math.addExact(expected[account], cents); // Cannot overflow with these amounts
+                result = Transaction.APPLIED;
+            } else if (expected[account] >= cents) {
+                expected[account] -= cents;
+                result = Transaction.APPLIED;
+            } else {
+                result = Transaction.INSUFFICIENT_FUNDS;
+            }
+            mismatches += result != results[i] ? 1 : 0;
+            counts[results[i]]++;
+        }
+        for (int i = 0; i < accountCount; i++) {
+            mismatches += accounts[i].getBalanceCents() != expected[i] ? 1 : 0;
+        }
+        System.out.printf("Processed %d transactions on %d accounts in %.3f s (%.1fM/s): %d applied, %d refused, %d unknown account; %s%n",
+                transactions, accountCount, seconds, transactions / seconds / 1e6, counts[Transaction.APPLIED],
+                counts[Transaction.INSUFFICIENT_FUNDS], counts[Transaction.UNKNOWN_ACCOUNT],
+                mismatches == 0 ? "matches sequential replay" : mismatches + " MISMATCHES");
+        if (mismatches > 0) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+import java.util.Collections;
+import java.util.Random;
+
+/**
+ * ActuationBenchmark simulates an office full of noisy occupancy sensors on a virtual clock
+ * and compares switching AC and lights directly on every reading with going through an
+ * ActuationScheduler.
+ * Each room is really occupied or empty for long stretches, but its sensor flickers: short
+ * false readings of a few seconds each. The report counts controller round trips, room
+ * commands and relay switches for both approaches.
+ * Run with: java ActuationBenchmark [rooms] [simulated minutes]
+ */
+public class ActuationBenchmark {
+    public static void main(String[] args) {
+        int rooms = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int minutes = args.length > 1 ? Integer.parseInt(args[1]) : 480;
+        long tickMillis = 1000;
+        long end = minutes * 60_000L;
+
+        FakeBuildingController direct = new FakeBuildingController();
+        FakeBuildingController batched = new FakeBuildingController();
+        ActuationScheduler scheduler = new ActuationScheduler(batched, 10_000, 120_000, 20,
+                OfficeConfiguration::floorOf);
+
+        Random random = new Random(42);
+        boolean[] occupied = new boolean[rooms]; // What is really going on in each room
+        boolean[] reported = new boolean[rooms]; // What the sensor currently says
+        long[] flickerEnds = new long[rooms]; // When the current false reading ends, or 0
+        long readings = 0;
+        for (long now = 0; now < end; now += tickMillis) {
+            for (int room = 0; room < rooms; room++) {
+                if (random.nextInt(1800) == 0) {
+                    occupied[room] = !occupied[room]; // A real change about every 30 minutes
+                }
+                boolean reading = occupied[room];
+                if (flickerEnds[room] > now) {
+                    reading = !reading;
+                } else if (random.nextInt(60) == 0) {
+                    flickerEnds[room] = now + 1000 + random.nextInt(5000); // A false reading about once a minute
+                    reading = !reading;
+                }
+                if (reading != reported[room]) {
+                    reported[room] = reading;
+                    readings++;
+                    direct.apply(OfficeConfiguration.floorOf(room),
+                            Collections.singletonList(new BuildingController.Actuation(room, reading)));
+                    scheduler.occupancyChanged(room, reading, now);
+                }
+            }
+            scheduler.flush(now);
+        }
+
+        System.out.printf("rooms=%d simulated=%d min readings=%d%n", rooms, minutes, readings);
+        System.out.println("approach, controller calls, room commands, relay switches");
+        System.out.printf("direct, %d, %d, %d%n", direct.getCalls(), direct.getCommands(), direct.getSwitches());
+        System.out.printf("scheduled, %d, %d, %d%n", batched.getCalls(), batched.getCommands(), batched.getSwitches());
+        System.out.printf("round trips saved: %.1f%%, rooms still pending: %d%n",
+                100.0 * (direct.getCalls() - batched.getCalls()) / Math.max(1, direct.getCalls()), scheduler.getPendingRooms());
+    }
+}
@@ -0,0 +1,227 @@
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * ActuationScheduler sits between occupancy readings and the building controller.
+ * A reading only records the room's desired state; a background tick decides what to send:
+ *
+ * - Hysteresis: a room is switched only after its desired state has held for the on or off
+ *   delay, so a flapping sensor that returns to the current state causes no command at all.
+ * - Coalescing: all rooms due in a tick are grouped by zone (floor by default) and each zone
+ *   is sent as one controller call holding only the latest state of each room.
+ * - Rate limiting: a token bucket caps controller calls per second; zones that do not get a
+ *   token stay pending and go out on a later tick, still coalesced.
+ *
+ * A controller call that throws is retried on the next tick. Failures are counted; while the
+ * controller keeps failing, the ticker reports it at most once a minute.
+ */
+public class ActuationScheduler implements Closeable {
+    private static final long FAILURE_REPORT_MILLIS = 60_000; // Least time between two reports of a failing controller
+
+    private final BuildingController controller;
+    private final long onDelayMillis; // How long a room must stay occupied before switching on
+    private final long offDelayMillis; // How long a room must stay empty before switching off
+    private final int maxCallsPerSecond; // Token bucket refill rate and size
+    private final IntUnaryOperator zoneOf; // Maps a room ID to its zone
+    private final Map<Integer, RoomState> states = new ConcurrentHashMap<>();
+    private final Set<RoomState> dirty = ConcurrentHashMap.newKeySet(); // Rooms whose desired state may differ from the applied one
+    private final ScheduledExecutorService ticker; // Runs flush() periodically, or null if driven manually
+    private final AtomicLong readings = new AtomicLong(); // Occupancy changes received
+    private final AtomicLong actuations = new AtomicLong(); // Room commands sent
+    private final AtomicLong controllerCalls = new AtomicLong(); // Round trips to the controller
+    private final AtomicLong failedCalls = new AtomicLong(); // Controller calls that threw
+    private long failingSince; // Failed ticks since the last successful one; used by the ticker thread only
+    private long lastFailureReport; // Time of the last report of a failing controller; used by the ticker thread only
+    private double tokens; // Controller calls currently allowed; guarded by flush()
+    private long lastRefill; // Time of the last token refill; guarded by flush()
+
+    // Desired and applied state of one room; guarded by its own lock
+    private static final class RoomState {
+        final int roomId;
+        boolean desired; // What the latest reading asks for
+        long desiredSince; // When the desired state last changed
+        boolean applied; // What the controller was last told
+
+        RoomState(int roomId) {
+            this.roomId = roomId;
+        }
+    }
+
+    /**
+     * Create a scheduler that ticks on its own thread.
+     * @param controller Controller receiving the batches
+     * @param onDelayMillis Time a room must stay occupied before it is switched on
+     * @param offDelayMillis Time a room must stay empty before it is switched off
+     * @param maxCallsPerSecond Maximum controller calls per second
+     * @param tickMillis Interval between flushes
+     */
+    public ActuationScheduler(BuildingController controller, long onDelayMillis, long offDelayMillis,
+                              int maxCallsPerSecond, long tickMillis) {
+        this(controller, onDelayMillis, offDelayMillis, maxCallsPerSecond, OfficeConfiguration::floorOf, true);
+        ticker.scheduleWithFixedDelay(this::flushQuietly, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Create a scheduler driven by explicit flush(now) calls, e.g. from a test with a fake clock.
+     * @param controller Controller receiving the batches
+     * @param onDelayMillis Time a room must stay occupied before it is switched on
+     * @param offDelayMillis Time a room must stay empty before it is switched off
+     * @param maxCallsPerSecond Maximum controller calls per second
+     * @param zoneOf Maps a room ID to its zone
+     */
+    public ActuationScheduler(BuildingController controller, long onDelayMillis, long offDelayMillis,
+                              int maxCallsPerSecond, IntUnaryOperator zoneOf) {
+        this(controller, onDelayMillis, offDelayMillis, maxCallsPerSecond, zoneOf, false);
+    }
+
+    private ActuationScheduler(BuildingController controller, long onDelayMillis, long offDelayMillis,
+                               int maxCallsPerSecond, IntUnaryOperator zoneOf, boolean ownThread) {
+        if (onDelayMillis < 0 || offDelayMillis < 0 || maxCallsPerSecond <= 0) {
+            throw new IllegalArgumentException("Delays must not be negative and the call rate must be positive.");
+        }
+        this.controller = controller;
+        this.onDelayMillis = onDelayMillis;
+        this.offDelayMillis = offDelayMillis;
+        this.maxCallsPerSecond = maxCallsPerSecond;
+        this.zoneOf = zoneOf;
+        this.tokens = maxCallsPerSecond;
+        this.ticker = ownThread ? Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "actuation-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    /**
+     * Record an occupancy reading. Cheap and non-blocking: nothing is sent from here.
+     * @param roomId Room the reading is for
+     * @param occupied Whether the room is occupied
+     * @param timestamp Time of the reading in epoch milliseconds
+     */
+    public void occupancyChanged(int roomId, boolean occupied, long timestamp) {
+        readings.incrementAndGet();
+        RoomState state = states.computeIfAbsent(roomId, RoomState::new);
+        synchronized (state) {
+            if (state.desired != occupied) {
+                state.desired = occupied;
+                state.desiredSince = timestamp;
+            }
+        }
+        dirty.add(state);
+    }
+
+    /**
+     * Send every room whose desired state has held long enough, batched per zone and
+     * within the rate limit.
+     * @param now Current time in epoch milliseconds
+     */
+    public synchronized void flush(long now) {
+        Map<Integer, List<BuildingController.Actuation>> byZone = new TreeMap<>();
+        Map<Integer, List<RoomState>> statesByZone = new TreeMap<>();
+        for (Iterator<RoomState> it = dirty.iterator(); it.hasNext(); ) {
+            RoomState state = it.next();
+            synchronized (state) {
+                if (state.desired == state.applied) {
+                    it.remove(); // Flapped back before the delay ran out: nothing to send
+                    continue;
+                }
+                if (now - state.desiredSince < (state.desired ? onDelayMillis : offDelayMillis)) {
+                    continue; // Still debouncing
+                }
+                int zone = zoneOf.applyAsInt(state.roomId);
+                byZone.computeIfAbsent(zone, z -> new ArrayList<>()).add(new BuildingController.Actuation(state.roomId, state.desired));
+                statesByZone.computeIfAbsent(zone, z -> new ArrayList<>()).add(state);
+            }
+        }
+
+        tokens = Math.min(maxCallsPerSecond, tokens + (now - lastRefill) * maxCallsPerSecond / 1000.0);
+        lastRefill = now;
+        for (Map.Entry<Integer, List<BuildingController.Actuation>> zone : byZone.entrySet()) {
+            if (tokens < 1) {
+                break; // Rate limit reached; the remaining zones stay dirty for the next tick
+            }
+            tokens--;
+            controllerCalls.incrementAndGet();
+            try {
+                controller.apply(zone.getKey(), zone.getValue());
+            } catch (RuntimeException e) {
+                failedCalls.incrementAndGet();
+                throw e;
+            }
+            actuations.addAndGet(zone.getValue().size());
+            List<BuildingController.Actuation> sent = zone.getValue();
+            List<RoomState> sentStates = statesByZone.get(zone.getKey());
+            for (int i = 0; i < sent.size(); i++) {
+                RoomState state = sentStates.get(i);
+                synchronized (state) {
+                    state.applied = sent.get(i).on;
+                    if (state.desired == state.applied) {
+                        dirty.remove(state); // A reading that arrived meanwhile keeps the room dirty
+                    }
+                }
+            }
+        }
+    }
+
+    // Get the number of occupancy readings received
+    public long getReadings() {
+        return readings.get();
+    }
+
+    // Get the number of room commands sent to the controller
+    public long getActuations() {
+        return actuations.get();
+    }
+
+    // Get the number of controller round trips
+    public long getControllerCalls() {
+        return controllerCalls.get();
+    }
+
+    // Get the number of controller calls that threw; each is retried on a later tick
+    public long getFailedCalls() {
+        return failedCalls.get();
+    }
+
+    // Get the number of rooms waiting for a debounce delay or a rate-limit token
+    public int getPendingRooms() {
+        return dirty.size();
+    }
+
+    @Override
+    public void close() {
+        if (ticker != null) {
+            ticker.shutdown();
+        }
+    }
+
+    // Tick on the ticker thread; the first failure is reported at once, a lasting one once a minute
+    private void flushQuietly() {
+        long now = System.currentTimeMillis();
+        try {
+            flush(now);
+        } catch (RuntimeException e) {
+            if (failingSince++ == 0 || now - lastFailureReport >= FAILURE_REPORT_MILLIS) {
+                lastFailureReport = now;
+                System.out.println("ActuationScheduler: controller call failed " + failingSince + " tick(s) in a row, "
+                        + getPendingRooms() + " room(s) pending, retrying: " + e.getMessage());
+            }
+            return;
+        }
+        if (failingSince > 0) {
+            System.out.println("ActuationScheduler: controller reachable again after " + failingSince + " failed tick(s)");
+            failingSince = 0;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AuthenticationBenchmark compares full logins (salted PBKDF2 hash) with session token
+ * validation (one map lookup) at 1, 4 and 16 threads.
+ * Each measurement runs for a fixed time; every thread works with its own user and token.
+ * Run with: java AuthenticationBenchmark [millis per run]
+ */
+public class AuthenticationBenchmark {
+    private static final int[] THREAD_COUNTS = {1, 4, 16};
+
+    private static volatile long sink; // Consumes results so the JIT cannot drop the work
+
+    interface Operation {
+        long run(int thread);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        long millis = args.length > 0 ? Long.parseLong(args[0]) : 2000;
+        AuthenticationService authService = new AuthenticationService();
+        int maxThreads = THREAD_COUNTS[THREAD_COUNTS.length - 1];
+        String[] tokens = new String[maxThreads];
+        for (int t = 0; t < maxThreads; t++) {
+            authService.addUser(AuthenticationService.createUser("user" + t, "secret" + t, "user",
+                    AuthenticationService.DEFAULT_ITERATIONS));
+            tokens[t] = authService.login("user" + t, "secret" + t);
+        }
+
+        System.out.println("operation, threads, ops/sec, avg latency us");
+        for (int threads : THREAD_COUNTS) {
+            measure("login", threads, millis, t -> authService.login("user" + t, "secret" + t) != null ? 1 : 0);
+        }
+        for (int threads : THREAD_COUNTS) {
+            measure("validate", threads, millis, t -> authService.validate(tokens[t]) != null ? 1 : 0);
+        }
+        System.out.println("Sessions held: " + authService.getSessionCount());
+    }
+
+    private static void measure(String name, int threads, long millis, Operation operation) throws InterruptedException {
+        AtomicLong operations = new AtomicLong();
+        AtomicLong busyNanos = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                    long begin = System.nanoTime();
+                    long deadline = begin + millis * 1_000_000L;
+                    long count = 0;
+                    long result = 0;
+                    do {
+                        result += operation.run(thread);
+                        count++;
+                    } while (System.nanoTime() < deadline);
+                    busyNanos.addAndGet(System.nanoTime() - begin);
+                    operations.addAndGet(count);
+                    sink += result;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+            worker.start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        long count = operations.get();
+        System.out.printf("%s, %d, %.0f, %.3f%n", name, threads, count / seconds, busyNanos.get() / 1e3 / count);
+    }
+}
@@ -1,21 +1,97 @@
-import java.util.HashMap;
+import java.io.Console;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
 
 /**
  * AuthenticationService class handles user authentication for the application.
- * It stores user credentials and provides a method for validating user logins.
+ * Passwords are never stored: each user has a random salt and a PBKDF2 hash, and a login
+ * recomputes the hash, which is deliberately slow. A successful login returns a session token;
+ * later requests present the token, which is checked with a single lock-free map lookup, so
+ * the expensive hash runs once per session. Tokens expire after a fixed time to live.
+ *
+ * The user file has one user per line: username:role:iterations:base64 salt:base64 hash.
+ * Lines can be produced with "java AuthenticationService username role", which asks for the password.
  */
 class AuthenticationService {
+    static final int DEFAULT_ITERATIONS = 100_000; // PBKDF2 rounds for new hashes
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int HASH_BITS = 256;
+    private static final int SALT_BYTES = 16;
+    private static final int TOKEN_BYTES = 32;
+    static final long DEFAULT_TTL_MILLIS = TimeUnit.HOURS.toMillis(8); // One working day
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
     private Map<String, User> users; // Map to store usernames and their associated User objects
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>(); // Live sessions by token
+    private final long ttlMillis; // How long a session stays valid after login
+    private volatile User dummy; // Hashed against for unknown names; has the most iterations of any user, so they take as long as wrong passwords
+    private volatile long nextSweep; // Time of the next sweep of expired sessions
+
+    // A logged-in user and the time the session ends
+    private static final class Session {
+        final User user;
+        final long expiresAt;
+
+        Session(User user, long expiresAt) {
+            this.user = user;
+            this.expiresAt = expiresAt;
+        }
+    }
 
     /**
      * Constructor to initialize the AuthenticationService with predefined users.
      * In this case, two users are added: "admin" and "user" with their respective passwords.
      */
     public AuthenticationService() {
-        users = new HashMap<>(); // Initialize the map for storing user credentials
-        users.put("admin", new User("admin", "admin123")); // Add admin user
-        users.put("user", new User("user", "user123")); // Add regular user
+        this(DEFAULT_TTL_MILLIS);
+        addUser(createUser("admin", "admin123", "admin", DEFAULT_ITERATIONS)); // Add admin user
+        addUser(createUser("user", "user123", "user", DEFAULT_ITERATIONS)); // Add regular user
+    }
+
+    /**
+     * Load users from a user file.
+     * @param usersFile File with one "username:role:iterations:salt:hash" line per user
+     * @param ttlMillis How long a session token stays valid after login
+     * @throws IOException if the file cannot be read or a line is malformed
+     */
+    public AuthenticationService(Path usersFile, long ttlMillis) throws IOException {
+        this(ttlMillis);
+        int lineNumber = 0;
+        for (String line : Files.readAllLines(usersFile, StandardCharsets.UTF_8)) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            try {
+                addUser(parseUser(line));
+            } catch (IllegalArgumentException e) {
+                throw new IOException(usersFile + " line " + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private AuthenticationService(long ttlMillis) {
+        if (ttlMillis <= 0) {
+            throw new IllegalArgumentException("Session time to live must be positive.");
+        }
+        this.users = new ConcurrentHashMap<>(); // Initialize the map for storing user credentials
+        this.ttlMillis = ttlMillis;
+        this.dummy = createUser("", "", "", DEFAULT_ITERATIONS);
     }
 
     /**
@@ -26,6 +102,200 @@ class AuthenticationService {
      */
     public boolean authenticate(String username, String password) {
         User user = users.get(username); // Retrieve the User object by username
-        return user != null && user.getPassword().equals(password); // Check if user exists and password matches
+        boolean matches = verify(user != null ? user : dummy, password);
+        return user != null && matches; // Check if user exists and password matches
+    }
+
+    /**
+     * Verify the password and open a session.
+     * @param username The username of the user trying to log in
+     * @param password The password provided by the user
+     * @return Session token for later requests, or null if the credentials are wrong
+     */
+    public String login(String username, String password) {
+        if (!authenticate(username, password)) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        if (now >= nextSweep) {
+            nextSweep = now + ttlMillis;
+            evictExpired(now);
+        }
+        String token = newToken();
+        sessions.put(token, new Session(users.get(username), now + ttlMillis));
+        return token;
+    }
+
+    /**
+     * Get the user a session token belongs to. Costs one map lookup; an expired token is evicted.
+     * @param token Token returned by login
+     * @return The logged-in user, or null if the token is unknown or expired
+     */
+    public User validate(String token) {
+        if (token == null) {
+            return null;
+        }
+        Session session = sessions.get(token);
+        if (session == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() >= session.expiresAt) {
+            sessions.remove(token, session);
+            return null;
+        }
+        return session.user;
+    }
+
+    // End a session; the token is no longer accepted
+    public void logout(String token) {
+        if (token != null) {
+            sessions.remove(token);
+        }
+    }
+
+    // Get the number of sessions held, including expired ones not yet evicted
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Add or replace a user.
+     * @param user User with a hashed password
+     */
+    public void addUser(User user) {
+        users.put(user.getUsername(), user);
+        synchronized (this) {
+            if (user.getIterations() > dummy.getIterations()) {
+                dummy = createUser("", "", "", user.getIterations());
+            }
+        }
+    }
+
+    /**
+     * Hash a password with a fresh salt.
+     * @param username The username
+     * @param password The plaintext password; it is not kept
+     * @param role The user's role
+     * @param iterations PBKDF2 iteration count
+     * @return User holding the salt and hash
+     */
+    public static User createUser(String username, String password, String role, int iterations) {
+        return createUser(username, password.toCharArray(), role, iterations);
+    }
+
+    // Hash a password held in a char array, which the caller can clear afterwards
+    static User createUser(String username, char[] password, String role, int iterations) {
+        byte[] salt = new byte[SALT_BYTES];
+        RANDOM.nextBytes(salt);
+        return new User(username, role, salt, hash(password, salt, iterations), iterations);
+    }
+
+    /**
+     * Format a user as a line of the user file.
+     * @param user User to format
+     * @return "username:role:iterations:salt:hash" line
+     */
+    public static String formatUser(User user) {
+        Base64.Encoder encoder = Base64.getEncoder();
+        return user.getUsername() + ":" + user.getRole() + ":" + user.getIterations() + ":"
+                + encoder.encodeToString(user.getSalt()) + ":" + encoder.encodeToString(user.getPasswordHash());
+    }
+
+    // Print a user file line for the given username and role; the password is read from the console without echo
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.out.println("Usage: java AuthenticationService [username] [role]");
+            return;
+        }
+        Console console = System.console();
+        if (console == null) {
+            System.out.println("No console to read the password from; run this in a terminal.");
+            return;
+        }
+        char[] password = console.readPassword("Password for %s: ", args[0]);
+        char[] repeated = console.readPassword("Repeat password: ");
+        try {
+            if (password == null || repeated == null || password.length == 0) {
+                System.out.println("No password given.");
+            } else if (!Arrays.equals(password, repeated)) {
+                System.out.println("The passwords do not match.");
+            } else {
+                System.out.println(formatUser(createUser(args[0], password, args[1], DEFAULT_ITERATIONS)));
+            }
+        } finally {
+            if (password != null) {
+                Arrays.fill(password, '\0');
+            }
+            if (repeated != null) {
+                Arrays.fill(repeated, '\0');
+            }
+        }
+    }
+
+    // Parse a user file line; rejects what would otherwise fail or hash weakly at the first login
+    private static User parseUser(String line) {
+        String[] fields = line.split(":", -1);
+        if (fields.length != 5) {
+            throw new IllegalArgumentException("expected username:role:iterations:salt:hash");
+        }
+        if (fields[0].isEmpty()) {
+            throw new IllegalArgumentException("username is empty");
+        }
+        int iterations;
+        try {
+            iterations = Integer.parseInt(fields[2]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("iterations '" + fields[2] + "' is not a number");
+        }
+        if (iterations <= 0) {
+            throw new IllegalArgumentException("iterations must be positive, got " + iterations);
+        }
+        byte[] salt = decode(fields[3], "salt");
+        if (salt.length == 0) {
+            throw new IllegalArgumentException("salt is empty");
+        }
+        byte[] hash = decode(fields[4], "hash");
+        if (hash.length != HASH_BITS / 8) {
+            throw new IllegalArgumentException("hash must be " + HASH_BITS / 8 + " bytes, got " + hash.length);
+        }
+        return new User(fields[0], fields[1], salt, hash, iterations);
+    }
+
+    private static byte[] decode(String base64, String field) {
+        try {
+            return Base64.getDecoder().decode(base64);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(field + " is not valid base64: " + e.getMessage());
+        }
+    }
+
+    private static boolean verify(User user, String password) {
+        byte[] actual = hash(password.toCharArray(), user.getSalt(), user.getIterations());
+        return MessageDigest.isEqual(actual, user.getPasswordHash()); // Constant-time comparison
+    }
+
+    private static byte[] hash(char[] password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password, salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available.", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    private static String newToken() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private void evictExpired(long now) {
+        for (Iterator<Session> it = sessions.values().iterator(); it.hasNext(); ) {
+            if (now >= it.next().expiresAt) {
+                it.remove();
+            }
+        }
     }
 }
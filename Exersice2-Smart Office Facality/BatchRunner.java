@@ -0,0 +1,282 @@
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+
+/**
+ * BatchRunner executes SmartOffice commands from a file or stdin without prompts.
+ * Each line holds one command with its arguments, using the same names as the interactive menu:
+ *
+ *   Login [username] [password]
+ *   Config room count [count]
+ *   Config room max capacity [roomId] [capacity]
+ *   Add occupant [roomId] [occupants]
+ *   Block room [roomId] [startTime] [duration]
+ *   Block recurring [roomId] [startTime] [duration] [daily|weekly|Nweeks|monthly|monthly-last] [occurrences]
+ *   Skip occurrence [roomId] [startTime]
+ *   Restore occurrence [roomId] [startTime]
+ *   Find room [capacity] [startTime] [duration]
+ *   Cancel room [roomId]
+ *   Room statistics [csv|json] [file]
+ *   Undo
+ *
+ * Blank lines and lines starting with '#' are ignored. Commands other than Login are rejected
+ * until a login succeeds. At the end a summary of per-command counts, failures, total time and
+ * ops/sec is printed.
+ */
+public class BatchRunner {
+    /**
+     * Command types recognised in batch files, with the prefix that introduces each one.
+     */
+    enum CommandType {
+        LOGIN("login"),
+        CONFIG_CAPACITY("config room max capacity"),
+        CONFIG_ROOMS("config room count"),
+        ADD_OCCUPANT("add occupant"),
+        BLOCK_ROOM("block room"),
+        BLOCK_RECURRING("block recurring"),
+        SKIP_OCCURRENCE("skip occurrence"),
+        RESTORE_OCCURRENCE("restore occurrence"),
+        FIND_ROOM("find room"),
+        CANCEL_ROOM("cancel room"),
+        ROOM_STATISTICS("room statistics"),
+        UNDO("undo");
+
+        private final String prefix;
+
+        CommandType(String prefix) {
+            this.prefix = prefix;
+        }
+    }
+
+    private final OfficeConfiguration officeConfig;
+    private final AuthenticationService authService;
+    private final CommandProcessor commandProcessor;
+    private final PrintStream out; // Buffered output for results and errors
+    private final long[] counts = new long[CommandType.values().length];
+    private final long[] failures = new long[CommandType.values().length];
+    private String sessionToken; // Token from the last successful login, or null
+    private final StatisticsReport statisticsReport;
+    private long unknown; // Lines that did not match any command
+
+    public BatchRunner(OfficeConfiguration officeConfig, AuthenticationService authService, PrintStream out) {
+        this.officeConfig = officeConfig;
+        this.authService = authService;
+        this.commandProcessor = new CommandProcessor(100);
+        this.statisticsReport = new StatisticsReport(officeConfig, 60_000);
+        this.out = out;
+    }
+
+    /**
+     * Entry point used by SmartOffice for "--batch [file]"; reads stdin when the file is "-" or missing.
+     * @param args Command-line arguments after "--batch"
+     */
+    public static void main(String[] args) {
+        PrintStream out = new PrintStream(new BufferedOutputStream(System.out, 1 << 16), false);
+        BatchRunner runner = new BatchRunner(new OfficeConfiguration(), new AuthenticationService(), out);
+        String source = args.length > 0 ? args[0] : "-";
+        try (Reader reader = source.equals("-")
+                ? new InputStreamReader(System.in, StandardCharsets.UTF_8)
+                : Files.newBufferedReader(Paths.get(source), StandardCharsets.UTF_8)) {
+            runner.run(reader);
+        } catch (IOException e) {
+            out.println("Cannot read batch input " + source + ": " + e.getMessage());
+        }
+        out.flush();
+    }
+
+    /**
+     * Execute every command from the reader and print the summary.
+     * @param input Command source
+     * @throws IOException if the input cannot be read
+     */
+    public void run(Reader input) throws IOException {
+        BufferedReader reader = input instanceof BufferedReader ? (BufferedReader) input : new BufferedReader(input, 1 << 16);
+        long begin = System.nanoTime();
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            CommandType type = match(line);
+            if (type == null) {
+                unknown++;
+                out.println("Line " + lineNumber + ": unknown command: " + line);
+                continue;
+            }
+            counts[type.ordinal()]++;
+            String[] inputs = arguments(line, type);
+            String error;
+            try {
+                error = execute(type, inputs);
+            } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException | DateTimeParseException e) {
+                error = "invalid arguments";
+            }
+            if (error != null) {
+                failures[type.ordinal()]++;
+                out.println("Line " + lineNumber + ": " + error + ": " + line);
+            }
+        }
+        printSummary(System.nanoTime() - begin);
+    }
+
+    // Execute one command; returns null on success or a short reason on failure
+    private String execute(CommandType type, String[] inputs) {
+        if (type == CommandType.LOGIN) {
+            sessionToken = authService.login(inputs[0], inputs[1]);
+            return sessionToken != null ? null : "invalid username or password";
+        }
+        if (authService.validate(sessionToken) == null) {
+            return "not logged in";
+        }
+        switch (type) {
+            case CONFIG_ROOMS: {
+                int numberOfRooms = Integer.parseInt(inputs[0]);
+                for (int i = 1; i <= numberOfRooms; i++) {
+                    if (officeConfig.getRoom(i) == null) {
+                        officeConfig.addRoom(i, 0);
+                    }
+                }
+                return null;
+            }
+            case CONFIG_CAPACITY: {
+                Room room = officeConfig.getRoom(Integer.parseInt(inputs[0]));
+                int capacity = Integer.parseInt(inputs[1]);
+                if (room == null) {
+                    return "room does not exist";
+                }
+                if (capacity <= 0) {
+                    return "invalid capacity";
+                }
+                room.setCapacity(capacity);
+                return null;
+            }
+            case ADD_OCCUPANT: {
+                Room room = officeConfig.getRoom(Integer.parseInt(inputs[0]));
+                int occupants = Integer.parseInt(inputs[1]);
+                if (room == null) {
+                    return "room does not exist";
+                }
+                if (room.getCapacity() <= 0) {
+                    return "room has no capacity configured";
+                }
+                if (occupants < 0 || occupants > room.getCapacity()) {
+                    return "occupants out of range";
+                }
+                room.setOccupancy(occupants);
+                return null;
+            }
+            case BLOCK_ROOM: {
+                Room room = officeConfig.getRoom(Integer.parseInt(inputs[0]));
+                if (room == null) {
+                    return "room does not exist";
+                }
+                int duration = Integer.parseInt(inputs[2]);
+                if (duration <= 0) {
+                    return "duration must be positive";
+                }
+                BookingCommand command = new BookingCommand(room, TimeParser.parse(inputs[1]), duration);
+                return commandProcessor.process(Collections.singletonList(command)).isEmpty() ? null : "room already booked";
+            }
+            case BLOCK_RECURRING: {
+                Room room = officeConfig.getRoom(Integer.parseInt(inputs[0]));
+                if (room == null) {
+                    return "room does not exist";
+                }
+                RecurrenceRule rule = RecurringBookingCommand.parseRule(TimeParser.parse(inputs[1]), Integer.parseInt(inputs[2]),
+                        inputs[3], Long.parseLong(inputs[4]));
+                return commandProcessor.process(Collections.singletonList(new RecurringBookingCommand(room, rule))).isEmpty() ? null : "room already booked";
+            }
+            case SKIP_OCCURRENCE:
+            case RESTORE_OCCURRENCE: {
+                Room room = officeConfig.getRoom(Integer.parseInt(inputs[0]));
+                if (room == null) {
+                    return "room does not exist";
+                }
+                boolean skip = type == CommandType.SKIP_OCCURRENCE;
+                OccurrenceCommand command = new OccurrenceCommand(room, TimeParser.parse(inputs[1]), skip);
+                return commandProcessor.process(Collections.singletonList(command)).isEmpty() ? null
+                        : skip ? "no such occurrence" : "no skipped occurrence with a free slot";
+            }
+            case FIND_ROOM: {
+                Room room = officeConfig.findFreeRoom(Integer.parseInt(inputs[0]), TimeParser.parse(inputs[1]), Integer.parseInt(inputs[2]));
+                return room != null ? null : "no free room";
+            }
+            case CANCEL_ROOM: {
+                Room room = officeConfig.getRoom(Integer.parseInt(inputs[0]));
+                if (room == null) {
+                    return "room does not exist";
+                }
+                return commandProcessor.process(Collections.singletonList(new CancellationCommand(room))).isEmpty() ? null : "room not booked";
+            }
+            case ROOM_STATISTICS: {
+                StatisticsReport.Format format = inputs.length > 0 ? StatisticsReport.Format.valueOf(inputs[0].toUpperCase()) : StatisticsReport.Format.CSV;
+                try {
+                    if (inputs.length > 1) {
+                        try (FileChannel file = FileChannel.open(Paths.get(inputs[1]), StandardOpenOption.CREATE,
+                                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                            statisticsReport.write(file, format, null, 0, Integer.MAX_VALUE);
+                        }
+                    } else {
+                        statisticsReport.write(Channels.newChannel(out), format, null, 0, Integer.MAX_VALUE);
+                    }
+                } catch (IOException e) {
+                    return "cannot write report: " + e.getMessage();
+                }
+                return null;
+            }
+            case UNDO:
+                return commandProcessor.undo() != null ? null : "nothing to undo";
+            default:
+                return "unsupported command";
+        }
+    }
+
+    // Find the command whose prefix starts the line, ignoring case
+    private static CommandType match(String line) {
+        for (CommandType type : CommandType.values()) {
+            int length = type.prefix.length();
+            if (line.regionMatches(true, 0, type.prefix, 0, length)
+                    && (line.length() == length || line.charAt(length) == ' ')) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    private static String[] arguments(String line, CommandType type) {
+        String rest = line.substring(type.prefix.length()).trim();
+        return rest.isEmpty() ? new String[0] : rest.split("\\s+");
+    }
+
+    private void printSummary(long elapsedNanos) {
+        long total = unknown;
+        out.println("Batch summary:");
+        for (CommandType type : CommandType.values()) {
+            int index = type.ordinal();
+            total += counts[index];
+            if (counts[index] > 0) {
+                out.println("  " + type.prefix + ": " + counts[index] + " (" + failures[index] + " failed)");
+            }
+        }
+        if (unknown > 0) {
+            out.println("  unknown: " + unknown);
+        }
+        double seconds = elapsedNanos / 1e9;
+        out.println("  Total: " + total + " commands in " + String.format("%.3f", seconds) + " s ("
+                + String.format("%.0f", seconds > 0 ? total / seconds : 0) + " ops/sec)");
+    }
+}
@@ -0,0 +1,141 @@
+/**
+ * BookingCalendar class keeps every booking of a single room.
+ * Bookings are stored as non-overlapping [start, end) intervals in two sorted
+ * primitive arrays, so a conflict check is a single binary search (O(log n)).
+ * Times are expressed in epoch minutes; TimeParser converts them at the CLI/API edge.
+ */
+public class BookingCalendar {
+    private static final int INITIAL_CAPACITY = 8;
+    private static final long[] EMPTY = new long[0]; // Shared by calendars that never had a booking
+
+    private long[] starts; // Booking start times, sorted ascending
+    private long[] ends; // Booking end times (exclusive), aligned with starts
+    private int size; // Number of bookings in the calendar
+
+    public BookingCalendar() {
+        this.starts = EMPTY;
+        this.ends = EMPTY;
+        this.size = 0;
+    }
+
+    /**
+     * Check whether the interval [start, start + duration) overlaps an existing booking.
+     * @param start Start of the interval in epoch minutes
+     * @param duration Length of the interval in minutes
+     * @return true if at least one booking overlaps the interval
+     */
+    public boolean overlaps(long start, int duration) {
+        long end = start + duration;
+        // The only candidate is the last booking that starts before the interval ends,
+        // because the stored bookings never overlap each other.
+        int index = lastStartBefore(end);
+        return index >= 0 && ends[index] > start;
+    }
+
+    /**
+     * Add a booking if it does not overlap any existing one.
+     * @param start Start of the booking in epoch minutes
+     * @param duration Length of the booking in minutes
+     * @return true if the booking was added; false if it conflicts or the duration is not positive
+     */
+    public boolean add(long start, int duration) {
+        if (duration <= 0 || overlaps(start, duration)) {
+            return false;
+        }
+        int index = lastStartBefore(start + duration) + 1; // Insertion point keeping the order
+        ensureCapacity(size + 1);
+        System.arraycopy(starts, index, starts, index + 1, size - index);
+        System.arraycopy(ends, index, ends, index + 1, size - index);
+        starts[index] = start;
+        ends[index] = start + duration;
+        size++;
+        return true;
+    }
+
+    /**
+     * Remove the booking that starts at the given time.
+     * @param start Start of the booking in epoch minutes
+     * @return true if a booking was removed
+     */
+    public boolean remove(long start) {
+        int index = lastStartBefore(start + 1);
+        if (index < 0 || starts[index] != start) {
+            return false;
+        }
+        removeAt(index);
+        return true;
+    }
+
+    /**
+     * Remove the booking of exactly the given slot.
+     * @param start Start of the booking in epoch minutes
+     * @param duration Length of the booking in minutes
+     * @return true if a booking was removed; false if none starts then or it has another length
+     */
+    public boolean remove(long start, int duration) {
+        int index = lastStartBefore(start + 1);
+        if (index < 0 || starts[index] != start || ends[index] != start + duration) {
+            return false;
+        }
+        removeAt(index);
+        return true;
+    }
+
+    // Remove every booking from the calendar
+    public void clear() {
+        size = 0;
+    }
+
+    // Get the number of bookings in the calendar
+    public int size() {
+        return size;
+    }
+
+    // Check if the calendar holds no bookings
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Get the start of the booking at the given position (in start order)
+    public long startAt(int index) {
+        return starts[index];
+    }
+
+    // Get the end of the booking at the given position (in start order)
+    public long endAt(int index) {
+        return ends[index];
+    }
+
+    private void removeAt(int index) {
+        System.arraycopy(starts, index + 1, starts, index, size - index - 1);
+        System.arraycopy(ends, index + 1, ends, index, size - index - 1);
+        size--;
+    }
+
+    // Binary search for the last booking whose start is strictly before the given time
+    private int lastStartBefore(long time) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] < time) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required > starts.length) {
+            int newCapacity = Math.max(Math.max(required, INITIAL_CAPACITY), starts.length * 2);
+            long[] newStarts = new long[newCapacity];
+            long[] newEnds = new long[newCapacity];
+            System.arraycopy(starts, 0, newStarts, 0, size);
+            System.arraycopy(ends, 0, newEnds, 0, size);
+            starts = newStarts;
+            ends = newEnds;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+import java.util.Random;
+
+/**
+ * BookingCalendarBenchmark measures the latency of a conflict check on a room calendar
+ * as the number of future bookings grows.
+ * Run with: java BookingCalendarBenchmark
+ */
+public class BookingCalendarBenchmark {
+    private static final int[] BOOKING_COUNTS = {100, 1_000, 10_000, 100_000};
+    private static final int QUERIES = 1_000_000;
+    private static final int SLOT_MINUTES = 30; // Each booking fills one 30-minute slot
+
+    public static void main(String[] args) {
+        Random random = new Random(42);
+        System.out.println("bookings, ns/check, conflicts");
+        for (int bookings : BOOKING_COUNTS) {
+            BookingCalendar calendar = new BookingCalendar();
+            // Book every other slot so roughly half of the queries conflict
+            for (int i = 0; i < bookings; i++) {
+                calendar.add((long) i * 2 * SLOT_MINUTES, SLOT_MINUTES);
+            }
+
+            long horizon = (long) bookings * 2 * SLOT_MINUTES;
+            long[] queries = new long[QUERIES];
+            for (int i = 0; i < QUERIES; i++) {
+                queries[i] = (long) (random.nextDouble() * horizon);
+            }
+
+            // Warm up so the JIT has compiled the search before measuring
+            int conflicts = runQueries(calendar, queries);
+            long begin = System.nanoTime();
+            conflicts = runQueries(calendar, queries);
+            long elapsed = System.nanoTime() - begin;
+
+            System.out.printf("%d, %.1f, %d%n", bookings, (double) elapsed / QUERIES, conflicts);
+        }
+    }
+
+    private static int runQueries(BookingCalendar calendar, long[] queries) {
+        int conflicts = 0;
+        for (long start : queries) {
+            if (calendar.overlaps(start, SLOT_MINUTES / 2)) {
+                conflicts++;
+            }
+        }
+        return conflicts;
+    }
+}
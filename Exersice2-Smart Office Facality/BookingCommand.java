@@ -1,25 +1,55 @@
 interface Command {
     void execute();
+    void undo();
 }
 
-public class BookingCommand implements Command {
+public class BookingCommand implements RoomCommand {
     private Room room;
-    private String startTime;
+    private long start; // Start of the booking in epoch minutes
     private int duration;
+    private boolean applied;
 
-    // Modify constructor to include startTime and duration
-    public BookingCommand(Room room, String startTime, int duration) {
+    // Times are parsed once at the CLI/API edge; the command only sees epoch minutes
+    public BookingCommand(Room room, long start, int duration) {
+        if (duration <= 0) {
+            throw new IllegalArgumentException("Duration must be positive.");
+        }
         this.room = room;
-        this.startTime = startTime;
+        this.start = start;
         this.duration = duration;
     }
 
     @Override
     public void execute() {
-        if (!room.isOccupied()) {
-            room.book(startTime, duration); // Pass startTime and duration to the book method
-        } else {
-            System.out.println("Room " + room.getRoomId() + " is already booked.");
+        if (apply()) {
+            System.out.println("Room " + room.getRoomId() + " booked from " + TimeParser.formatTime(start) + " for " + duration + " minutes.");
+        } else { // Rejected only when the slot overlaps another booking
+            System.out.println("Room " + room.getRoomId() + " is already booked during this time. Cannot book.");
+        }
+    }
+
+    @Override
+    public boolean apply() {
+        applied = room.tryBook(start, duration);
+        return applied;
+    }
+
+    // Cancels only this command's slot; a booking made at the same start since is left alone
+    @Override
+    public void undo() {
+        if (applied) {
+            room.cancelBooking(start, duration);
+            applied = false;
         }
     }
+
+    @Override
+    public boolean isApplied() {
+        return applied;
+    }
+
+    @Override
+    public Room getRoom() {
+        return room;
+    }
 }
@@ -0,0 +1,416 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * BookingHttpServer exposes the office over HTTP with JSON responses, so many clients can
+ * use one office at the same time. Parameters are taken from the query string or from a
+ * form-encoded body. Every endpoint except /login needs an "Authorization: Bearer [token]"
+ * header with a token returned by /login. The credentials for /login go in the form-encoded
+ * body only, so they do not end up in access logs. Endpoints marked (admin) answer 403 to
+ * users without the admin role.
+ *
+ *   POST   /login  (body: username=..&password=..)  Open a session, returns {"token": ..}
+ *   GET    /rooms                                  All rooms
+ *   POST   /rooms?count=N                          Make sure rooms 1..N exist (admin)
+ *   GET    /rooms/free?capacity=..&start=HH:mm&duration=..   Best-fit free room
+ *   GET    /rooms/{id}                             One room
+ *   PUT    /rooms/{id}/capacity?value=N            Set the maximum capacity (admin)
+ *   PUT    /rooms/{id}/occupancy?value=N           Report the number of occupants
+ *   POST   /rooms/{id}/bookings?start=HH:mm&duration=..[&wait=true]   Book a slot (409 if taken,
+ *                                                  or 202 and a waitlist position with wait=true)
+ *   DELETE /rooms/{id}/bookings[?start=HH:mm]      Cancel one booking, or all of them (admin)
+ *   GET    /statistics[?format=csv&offset=..&limit=..&minCapacity=..&occupied=true]   Usage statistics
+ *
+ * Requests run on a cached pool of daemon threads. Request bodies larger than 64 KiB are
+ * refused with 413 before they are read into memory.
+ * Run with: java BookingHttpServer [port]  (or java SmartOffice --http [port])
+ */
+public class BookingHttpServer {
+    static {
+        // The JDK server closes keep-alive connections beyond 200 idle ones; allow one per client
+        if (System.getProperty("sun.net.httpserver.maxIdleConnections") == null) {
+            System.setProperty("sun.net.httpserver.maxIdleConnections", "100000");
+        }
+    }
+
+    private static final int MAX_BODY_BYTES = 64 * 1024; // Largest form-encoded body accepted
+
+    private final OfficeConfiguration officeConfig;
+    private final AuthenticationService authService;
+    private final BookingWaitlist waitlist; // Queue for rejected bookings that asked to wait
+    private final StatisticsReport statisticsReport; // Cached rows shared by all statistics requests
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Create a server; call start() to accept requests.
+     * @param officeConfig Office to serve
+     * @param authService Service that issues and validates session tokens
+     * @param port TCP port, or 0 for any free port
+     * @throws IOException if the port cannot be bound
+     */
+    public BookingHttpServer(OfficeConfiguration officeConfig, AuthenticationService authService, int port) throws IOException {
+        this(officeConfig, authService, newWaitlist(officeConfig), port);
+    }
+
+    /**
+     * Create a server sharing a waitlist with other front ends; call start() to accept requests.
+     * @param officeConfig Office to serve
+     * @param authService Service that issues and validates session tokens
+     * @param waitlist Waitlist attached to the office
+     * @param port TCP port, or 0 for any free port
+     * @throws IOException if the port cannot be bound
+     */
+    public BookingHttpServer(OfficeConfiguration officeConfig, AuthenticationService authService,
+                             BookingWaitlist waitlist, int port) throws IOException {
+        this.officeConfig = officeConfig;
+        this.authService = authService;
+        this.waitlist = waitlist;
+        this.statisticsReport = new StatisticsReport(officeConfig, 60_000);
+        this.server = HttpServer.create(new InetSocketAddress(port), 4096); // Deep backlog for connection bursts
+        this.executor = newRequestExecutor();
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        new BookingHttpServer(OfficeConfiguration.getInstance(), new AuthenticationService(), port).start();
+    }
+
+    // Start accepting requests
+    public void start() {
+        server.start();
+        System.out.println("Booking API listening on port " + getPort());
+    }
+
+    // Get the port the server is bound to
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stop accepting requests and wait for running ones to finish.
+     * @param delaySeconds Longest time to wait for running requests
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+    }
+
+    private static BookingWaitlist newWaitlist(OfficeConfiguration officeConfig) {
+        BookingWaitlist waitlist = new BookingWaitlist(BookingWaitlist.Policy.ROLE_PRIORITY);
+        waitlist.attach(officeConfig);
+        return waitlist;
+    }
+
+    // One pooled thread per concurrent request; idle threads are reclaimed after a minute
+    private static ExecutorService newRequestExecutor() {
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "booking-http-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        int status;
+        String body;
+        String contentType = "application/json; charset=utf-8";
+        BodyWriter stream = null;
+        User user;
+        try {
+            String[] path = exchange.getRequestURI().getPath().replaceAll("^/+|/+$", "").split("/");
+            Map<String, String> params = new HashMap<>();
+            parse(exchange.getRequestURI().getRawQuery(), params);
+            Map<String, String> form = form(exchange);
+            String method = exchange.getRequestMethod();
+            if (form == null) {
+                status = 413;
+                body = error("request body larger than " + MAX_BODY_BYTES / 1024 + " KiB");
+            } else if (path[0].equals("login")) {
+                if (params.containsKey("password")) { // Query strings are logged and cached; refuse rather than accept
+                    status = 400;
+                    body = error("send the password in the request body, not the query string");
+                } else {
+                    String token = method.equals("POST") ? authService.login(required(form, "username"), required(form, "password")) : null;
+                    status = token != null ? 200 : method.equals("POST") ? 401 : 405;
+                    body = token != null ? "{\"token\": \"" + token + "\"}" : error(status == 401 ? "invalid username or password" : "use POST");
+                }
+            } else if ((user = authService.validate(bearerToken(exchange))) == null) {
+                status = 401;
+                body = error("missing or expired session token");
+            } else {
+                params.putAll(form);
+                Response response = route(user, method, path, params);
+                status = response.status;
+                body = response.body;
+                contentType = response.contentType;
+                stream = response.stream;
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) { // Includes NumberFormatException
+            status = 400;
+            body = error("invalid parameter: " + e.getMessage());
+        } catch (RuntimeException e) { // Logged here; the client only learns that something failed
+            System.err.println("Internal error on " + exchange.getRequestMethod() + " " + exchange.getRequestURI().getPath() + ":");
+            e.printStackTrace();
+            status = 500;
+            body = error("internal server error");
+        }
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        if (stream != null) {
+            exchange.sendResponseHeaders(status, 0); // Chunked: the length is not known up front
+            try (OutputStream out = exchange.getResponseBody()) {
+                stream.writeTo(out);
+            }
+            return;
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    // Writes a large body straight to the client
+    private interface BodyWriter {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    // Status code, body and content type of a response; the body is either a string or streamed
+    private static final class Response {
+        final int status;
+        final String body;
+        final String contentType;
+        final BodyWriter stream;
+
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+            this.contentType = "application/json; charset=utf-8";
+            this.stream = null;
+        }
+
+        Response(int status, String contentType, BodyWriter stream) {
+            this.status = status;
+            this.body = null;
+            this.contentType = contentType;
+            this.stream = stream;
+        }
+    }
+
+    private Response route(User user, String method, String[] path, Map<String, String> params) {
+        if (path[0].equals("statistics") && path.length == 1 && method.equals("GET")) {
+            return statistics(params);
+        }
+        if (!path[0].equals("rooms")) {
+            return new Response(404, error("no such endpoint"));
+        }
+        if (path.length == 1) {
+            if (method.equals("GET")) {
+                StringBuilder json = new StringBuilder("[");
+                for (Room room : officeConfig.getRooms()) {
+                    appendRoom(json.length() > 1 ? json.append(", ") : json, room);
+                }
+                return new Response(200, json.append("]").toString());
+            }
+            if (method.equals("POST")) {
+                if (!isAdmin(user)) {
+                    return forbidden();
+                }
+                int count = Integer.parseInt(required(params, "count"));
+                for (int i = 1; i <= count; i++) {
+                    if (officeConfig.getRoom(i) == null) {
+                        officeConfig.addRoom(i, 0);
+                    }
+                }
+                return new Response(200, "{\"rooms\": " + count + "}");
+            }
+            return new Response(405, error("use GET or POST"));
+        }
+        if (path[1].equals("free") && path.length == 2 && method.equals("GET")) {
+            Room room = officeConfig.findFreeRoom(Integer.parseInt(required(params, "capacity")),
+                    TimeParser.parse(required(params, "start")), Integer.parseInt(required(params, "duration")));
+            return room == null ? new Response(404, error("no free room"))
+                    : new Response(200, appendRoom(new StringBuilder(), room).toString());
+        }
+        Room room = officeConfig.getRoom(Integer.parseInt(path[1]));
+        if (room == null) {
+            return new Response(404, error("room does not exist"));
+        }
+        if (path.length == 2 && method.equals("GET")) {
+            return new Response(200, appendRoom(new StringBuilder(), room).toString());
+        }
+        String action = path.length == 3 ? path[2] : "";
+        switch (method + " " + action) {
+            case "PUT capacity": {
+                if (!isAdmin(user)) {
+                    return forbidden();
+                }
+                int capacity = Integer.parseInt(required(params, "value"));
+                if (capacity <= 0) {
+                    return new Response(400, error("capacity must be positive"));
+                }
+                room.setCapacity(capacity);
+                return new Response(200, appendRoom(new StringBuilder(), room).toString());
+            }
+            case "PUT occupancy": {
+                int occupants = Integer.parseInt(required(params, "value"));
+                if (room.getCapacity() <= 0) {
+                    return new Response(409, error("room has no capacity configured"));
+                }
+                if (occupants < 0 || occupants > room.getCapacity()) {
+                    return new Response(400, error("occupants out of range"));
+                }
+                room.setOccupancy(occupants);
+                return new Response(200, appendRoom(new StringBuilder(), room).toString());
+            }
+            case "POST bookings": {
+                long start = TimeParser.parse(required(params, "start"));
+                int duration = Integer.parseInt(required(params, "duration"));
+                if (duration <= 0) {
+                    return new Response(400, error("duration must be positive"));
+                }
+                String booked = "{\"room\": " + room.getRoomId() + ", \"start\": \"" + TimeParser.format(start)
+                        + "\", \"duration\": " + duration + "}";
+                if (room.tryBook(start, duration)) {
+                    return new Response(201, booked);
+                }
+                if (!Boolean.parseBoolean(params.get("wait"))) {
+                    return new Response(409, error("room already booked during this time"));
+                }
+                BookingWaitlist.Request request = waitlist.enqueue(user, room, start, duration);
+                int position = waitlist.getPosition(request);
+                if (position < 0) {
+                    return request.getPromotion().join() ? new Response(201, booked) : new Response(409, error("slot has passed"));
+                }
+                return new Response(202, "{\"room\": " + room.getRoomId() + ", \"waitlistPosition\": " + (position + 1) + "}");
+            }
+            case "DELETE bookings": {
+                String start = params.get("start");
+                if (start == null && !isAdmin(user)) {
+                    return forbidden();
+                }
+                boolean cancelled;
+                if (start == null) {
+                    int cleared = room.clearBookings();
+                    if (cleared > 0) {
+                        room.notifyObservers();
+                    }
+                    cancelled = cleared >= 0;
+                } else {
+                    cancelled = room.cancelBooking(TimeParser.parse(start));
+                }
+                return cancelled ? new Response(200, "{\"cancelled\": true}") : new Response(404, error("no such booking"));
+            }
+            default:
+                return new Response(path.length == 3 ? 405 : 404, error("no such endpoint"));
+        }
+    }
+
+    private Response statistics(Map<String, String> params) {
+        StatisticsReport.Format format = StatisticsReport.Format.valueOf(params.getOrDefault("format", "json").toUpperCase(Locale.ROOT));
+        int offset = Integer.parseInt(params.getOrDefault("offset", "0"));
+        int limit = Integer.parseInt(params.getOrDefault("limit", String.valueOf(Integer.MAX_VALUE)));
+        int minCapacity = Integer.parseInt(params.getOrDefault("minCapacity", "0"));
+        boolean occupiedOnly = Boolean.parseBoolean(params.get("occupied"));
+        // Streamed in chunks as the report writes them, never held in memory as a whole
+        return new Response(200, format == StatisticsReport.Format.CSV ? "text/csv; charset=utf-8" : "application/json; charset=utf-8",
+                out -> statisticsReport.write(Channels.newChannel(out), format, row -> row.getCapacity() >= minCapacity
+                        && (!occupiedOnly || row.getOccupants() > 0), offset, limit));
+    }
+
+    private static StringBuilder appendRoom(StringBuilder json, Room room) {
+        synchronized (room) { // One consistent view of the room
+            BookingCalendar calendar = room.getCalendar();
+            json.append("{\"id\": ").append(room.getRoomId())
+                    .append(", \"capacity\": ").append(room.getCapacity())
+                    .append(", \"occupants\": ").append(room.getOccupants())
+                    .append(", \"bookings\": [");
+            for (int i = 0; i < calendar.size(); i++) {
+                json.append(i == 0 ? "" : ", ")
+                        .append("{\"start\": \"").append(TimeParser.format(calendar.startAt(i)))
+                        .append("\", \"duration\": ").append(calendar.endAt(i) - calendar.startAt(i)).append('}');
+            }
+            return json.append("]}");
+        }
+    }
+
+    private static boolean isAdmin(User user) {
+        return "admin".equals(user.getRole());
+    }
+
+    private static Response forbidden() {
+        return new Response(403, error("admin role required"));
+    }
+
+    private static String error(String message) {
+        return "{\"error\": \"" + message.replace("\\", "\\\\").replace("\"", "\\\"") + "\"}";
+    }
+
+    private static String required(Map<String, String> params, String name) {
+        String value = params.get(name);
+        if (value == null) {
+            throw new NumberFormatException("missing " + name);
+        }
+        return value;
+    }
+
+    private static String bearerToken(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        return header != null && header.startsWith("Bearer ") ? header.substring(7).trim() : null;
+    }
+
+    // Read the form-encoded body parameters, or return null if the body is larger than MAX_BODY_BYTES
+    private static Map<String, String> form(HttpExchange exchange) throws IOException {
+        String length = exchange.getRequestHeaders().getFirst("Content-Length");
+        if (length != null && length.matches("\\d{1,18}") && Long.parseLong(length) > MAX_BODY_BYTES) {
+            return null; // Refused without reading it
+        }
+        Map<String, String> params = new HashMap<>();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] buffer = new byte[1024];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                body.write(buffer, 0, read);
+                if (body.size() > MAX_BODY_BYTES) {
+                    return null; // Chunked or with a wrong length
+                }
+            }
+        }
+        if (body.size() > 0) {
+            parse(new String(body.toByteArray(), StandardCharsets.UTF_8), params);
+        }
+        return params;
+    }
+
+    private static void parse(String encoded, Map<String, String> params) throws UnsupportedEncodingException {
+        if (encoded == null || encoded.isEmpty()) {
+            return;
+        }
+        for (String pair : encoded.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), "UTF-8");
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), "UTF-8");
+            params.put(name, value);
+        }
+    }
+}
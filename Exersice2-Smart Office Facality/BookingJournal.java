@@ -0,0 +1,397 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BookingJournal is an append-only write-ahead log of every change to the office.
+ * Records have a fixed size and are written into a memory-mapped file that grows in
+ * segments. Durability is group-committed: one force() covers every record appended
+ * since the previous one, either once per batch of records or once per time interval.
+ * Positions are logical: the file starts with a header holding the position of its first
+ * record, so compact() can drop the records a snapshot covers without changing them.
+ */
+public class BookingJournal implements Closeable {
+    /**
+     * When appended records are forced to disk.
+     */
+    public enum SyncMode {
+        PER_BATCH, // Force after every batch of records (and on commit())
+        INTERVAL // Force from a background thread every N milliseconds
+    }
+
+    // Record types
+    static final int ADD_ROOM = 1;
+    static final int CAPACITY = 2;
+    static final int BOOK = 3;
+    static final int CANCEL = 4;
+    static final int CANCEL_ALL = 5;
+    static final int OCCUPANCY = 6;
+    static final int REBOOK = 7; // Booking restored by an undo, not counted again
+    static final int REOCCUPY = 8; // Occupancy restored by an undo, not counted again
+    static final int RECURRING = 9; // First start and duration of a recurring booking; always followed by RECURRING_REPEAT
+    static final int RECURRING_REPEAT = 10; // Occurrence count (time) and repeat code (value) of that booking
+    static final int CANCEL_RECURRING = 11; // Recurring booking with the given first start removed
+    static final int SKIP = 12; // Occurrence at the given start cancelled
+    static final int UNSKIP = 13; // Occurrence at the given start restored
+
+    static final int RECORD_SIZE = 24; // type, roomId, time, value, checksum
+    private static final int HEADER_SIZE = RECORD_SIZE; // magic, reserved, base position, padding; keeps records aligned
+    private static final int MAGIC = 0x534F4A31; // "SOJ1"
+    private static final long SEGMENT_SIZE = 64L * 1024 * 1024; // File grows by this much at a time
+    private static final int SCAN_CHUNK = RECORD_SIZE * 43_690; // About 1 MB of whole records per read when opening
+
+    private final Path file;
+    private FileChannel channel; // Replaced by compact()
+    private final SyncMode mode;
+    private final int batchSize; // Records per force() in PER_BATCH mode
+    private final ScheduledExecutorService flusher; // Background forcer in INTERVAL mode, or null
+    private MappedByteBuffer segment; // Currently mapped region of the file
+    private long segmentStart; // File offset of the mapped region
+    private long position; // File offset of the next record
+    private long base; // Logical position of the first record in the file
+    private int unsynced; // Records appended since the last force()
+
+    /**
+     * Open (or create) a journal file. The append position is placed after the last valid record.
+     * @param file Journal file
+     * @param mode When appended records are forced to disk
+     * @param batchSizeOrIntervalMillis Records per force in PER_BATCH mode, milliseconds between forces in INTERVAL mode
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    public BookingJournal(Path file, SyncMode mode, int batchSizeOrIntervalMillis) throws IOException {
+        if (batchSizeOrIntervalMillis <= 0) {
+            throw new IllegalArgumentException("Batch size or interval must be positive.");
+        }
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.mode = mode;
+        this.batchSize = mode == SyncMode.PER_BATCH ? batchSizeOrIntervalMillis : Integer.MAX_VALUE;
+        try {
+            this.base = openHeader();
+            this.position = findEnd();
+            mapSegment(position);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        if (mode == SyncMode.INTERVAL) {
+            flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "booking-journal-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleAtFixedRate(this::commitQuietly, batchSizeOrIntervalMillis, batchSizeOrIntervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            flusher = null;
+        }
+    }
+
+    /**
+     * Append one record to the journal.
+     * @param type Record type
+     * @param roomId Room the record applies to
+     * @param time Booking start in epoch minutes, or reading time in epoch milliseconds
+     * @param value Duration, capacity or occupant count, depending on the type
+     */
+    public synchronized void append(int type, int roomId, long time, int value) {
+        put(type, roomId, time, value);
+        if (++unsynced >= batchSize) {
+            commit();
+        }
+    }
+
+    /**
+     * Append a recurring booking. A rule does not fit in one record, so it takes two
+     * consecutive ones, written together and never forced apart.
+     * @param roomId Room the rule was booked in
+     * @param rule The booked series
+     */
+    public synchronized void appendRecurring(int roomId, RecurrenceRule rule) {
+        put(RECURRING, roomId, rule.getFirstStart(), rule.getDuration());
+        put(RECURRING_REPEAT, roomId, rule.getCount(), rule.getRepeat());
+        unsynced += 2;
+        if (unsynced >= batchSize) {
+            commit();
+        }
+    }
+
+    // Write one record at the append position, mapping the next segment when needed
+    private void put(int type, int roomId, long time, int value) {
+        try {
+            if (position + RECORD_SIZE > segmentStart + SEGMENT_SIZE) {
+                segment.force();
+                mapSegment(position);
+            }
+            int offset = (int) (position - segmentStart);
+            segment.putInt(offset, type);
+            segment.putInt(offset + 4, roomId);
+            segment.putLong(offset + 8, time);
+            segment.putInt(offset + 16, value);
+            segment.putInt(offset + 20, checksum(type, roomId, time, value));
+            position += RECORD_SIZE;
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot extend the booking journal.", e);
+        }
+    }
+
+    // Force every appended record to disk
+    public synchronized void commit() {
+        if (unsynced > 0) {
+            segment.force();
+            unsynced = 0;
+        }
+    }
+
+    // Get the position just after the last appended record
+    public synchronized long position() {
+        return base + position - HEADER_SIZE;
+    }
+
+    /**
+     * Re-apply every record from the given position to the configuration.
+     * @param from Position to start from (a value previously returned by position())
+     * @param officeConfig Configuration to apply the records to; it must not have a journal attached
+     * @return Number of records replayed
+     * @throws IOException if the file cannot be read, or compact() has dropped records after from
+     */
+    public long replay(long from, OfficeConfiguration officeConfig) throws IOException {
+        return replay(from, officeConfig, Collections.<Integer, Long>emptyMap());
+    }
+
+    /**
+     * Re-apply every record from the given position to the configuration, skipping the
+     * records of each room that a snapshot already covers.
+     * @param from Position to start from (a value previously returned by position())
+     * @param officeConfig Configuration to apply the records to; it must not have a journal attached
+     * @param covered Position up to which each room's records are in the snapshot, keyed by room ID
+     * @return Number of records replayed
+     * @throws IOException if the file cannot be read, or compact() has dropped records after from
+     */
+    public synchronized long replay(long from, OfficeConfiguration officeConfig, Map<Integer, Long> covered) throws IOException {
+        if (from < base) {
+            throw new IOException("The journal " + file + " starts at " + base + ", but recovery needs the records from " + from + ".");
+        }
+        long count = 0;
+        long offset = from - base + HEADER_SIZE;
+        boolean rulePending = false; // A RECURRING record waits for its RECURRING_REPEAT
+        int ruleRoom = 0;
+        long ruleStart = 0;
+        int ruleDuration = 0;
+        while (offset + RECORD_SIZE <= position) {
+            long length = Math.min(SEGMENT_SIZE, position - offset);
+            MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+            int index = 0;
+            for (; index + RECORD_SIZE <= length; index += RECORD_SIZE) {
+                int type = region.getInt(index);
+                int roomId = region.getInt(index + 4);
+                long time = region.getLong(index + 8);
+                int value = region.getInt(index + 16);
+                Long snapshotted = covered.get(roomId);
+                if (snapshotted != null && base + offset + index - HEADER_SIZE < snapshotted) {
+                    continue; // Taken under the room's lock after this record was appended
+                }
+                if (type == RECURRING_REPEAT) {
+                    Room room = officeConfig.getRoom(roomId);
+                    if (rulePending && roomId == ruleRoom && room != null) {
+                        room.tryBookRecurring(RecurrenceRule.of(ruleStart, ruleDuration, value, time));
+                    }
+                    rulePending = false;
+                } else {
+                    rulePending = type == RECURRING;
+                    ruleRoom = roomId;
+                    ruleStart = time;
+                    ruleDuration = value;
+                    apply(officeConfig, type, roomId, time, value);
+                }
+                count++;
+            }
+            offset += index;
+        }
+        return count;
+    }
+
+    /**
+     * Drop the records before the given position once a snapshot covers them. The records
+     * after it are copied into a new file that atomically replaces this one, so the journal
+     * only holds the changes since the last snapshot, and opening it scans only those.
+     * Positions keep their meaning. Appends wait while the tail is copied.
+     * @param upTo Position before which no record is needed any more
+     * @throws IOException if the new file cannot be written; the journal is then left as it was
+     */
+    public synchronized void compact(long upTo) throws IOException {
+        long keep = Math.max(upTo, base);
+        long from = keep - base + HEADER_SIZE; // File offset of the first record kept
+        if (from > position) {
+            throw new IllegalArgumentException("Position " + upTo + " is past the end of the journal.");
+        }
+        if (from == HEADER_SIZE) {
+            return;
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        FileChannel compacted = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            writeHeader(compacted, keep);
+            compacted.position(HEADER_SIZE);
+            long length = position - from;
+            for (long copied = 0; copied < length; ) {
+                copied += channel.transferTo(from + copied, length - copied, compacted);
+            }
+            compacted.force(true);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            compacted.close();
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        FileChannel previous = channel;
+        channel = compacted;
+        position = position - from + HEADER_SIZE;
+        base = keep;
+        unsynced = 0; // Everything appended so far was forced with the new file
+        mapSegment(position);
+        previous.close();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (flusher != null) {
+            flusher.shutdown();
+        }
+        segment.force();
+        channel.close();
+    }
+
+    private static void apply(OfficeConfiguration officeConfig, int type, int roomId, long time, int value) {
+        if (type == ADD_ROOM) {
+            officeConfig.addRoom(roomId, value); // Replaces an existing room, as addRoom did when the record was written
+            return;
+        }
+        Room room = officeConfig.getRoom(roomId);
+        if (room == null) {
+            return;
+        }
+        switch (type) {
+            case CAPACITY:
+                room.setCapacity(value);
+                break;
+            case BOOK:
+                room.tryBook(time, value);
+                break;
+            case CANCEL:
+                room.cancelBooking(time);
+                break;
+            case CANCEL_ALL:
+                if (room.clearBookings() > 0) {
+                    room.notifyObservers();
+                }
+                break;
+            case OCCUPANCY:
+                room.setOccupancy(value, time);
+                break;
+            case REBOOK:
+                room.rebook(time, value);
+                break;
+            case REOCCUPY:
+                room.reoccupy(value, time);
+                break;
+            case CANCEL_RECURRING: {
+                RecurrenceRule rule = room.findRecurring(time);
+                if (rule != null) {
+                    room.cancelRecurring(rule);
+                }
+                break;
+            }
+            case SKIP:
+                room.skipOccurrence(time);
+                break;
+            case UNSKIP:
+                room.restoreOccurrence(time);
+                break;
+            default:
+                break;
+        }
+    }
+
+    // Read the header of an existing journal, or write one into a new file; returns the base position
+    private long openHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+            // Read until the header is complete or the file ends
+        }
+        if (header.hasRemaining() || header.getInt(0) == 0) { // A new file
+            writeHeader(channel, 0);
+            return 0;
+        }
+        if (header.getInt(0) != MAGIC) {
+            throw new IOException("Not a SmartOffice journal: " + file);
+        }
+        return header.getLong(8);
+    }
+
+    private static void writeHeader(FileChannel target, long base) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(0, MAGIC);
+        header.putLong(8, base);
+        while (header.hasRemaining()) {
+            target.write(header, header.position());
+        }
+    }
+
+    // Scan forward from the first record to the first one that is missing or torn, reading in chunks rather than mapping the file
+    private long findEnd() throws IOException {
+        ByteBuffer chunk = ByteBuffer.allocate(SCAN_CHUNK);
+        long offset = HEADER_SIZE;
+        while (true) {
+            chunk.clear();
+            while (chunk.hasRemaining() && channel.read(chunk, offset + chunk.position()) >= 0) {
+                // Fill the chunk unless the file ends first
+            }
+            int length = chunk.position();
+            for (int index = 0; index + RECORD_SIZE <= length; index += RECORD_SIZE) {
+                int type = chunk.getInt(index);
+                int roomId = chunk.getInt(index + 4);
+                long time = chunk.getLong(index + 8);
+                int value = chunk.getInt(index + 16);
+                if (type == 0 || chunk.getInt(index + 20) != checksum(type, roomId, time, value)) {
+                    return offset + index;
+                }
+            }
+            if (length < SCAN_CHUNK) {
+                return offset + length - length % RECORD_SIZE;
+            }
+            offset += length;
+        }
+    }
+
+    private void mapSegment(long start) throws IOException {
+        segmentStart = start;
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, start, SEGMENT_SIZE);
+    }
+
+    private void commitQuietly() {
+        try {
+            commit();
+        } catch (RuntimeException e) {
+            System.out.println("BookingJournal: background commit failed: " + e.getMessage());
+        }
+    }
+
+    private static int checksum(int type, int roomId, long time, int value) {
+        int hash = type * 0x9E3779B1;
+        hash = (hash ^ roomId) * 0x85EBCA6B;
+        hash = (hash ^ (int) time ^ (int) (time >>> 32)) * 0xC2B2AE35;
+        return (hash ^ value) | 1; // Never zero, so an empty slot can't pass as a record
+    }
+}
@@ -0,0 +1,9 @@
+/**
+ * Listener told about bookings being added to or removed from a room.
+ * It runs with the room lock held, so it must be quick.
+ */
+public interface BookingListener {
+    void bookingAdded(Room room, long start, int duration);
+
+    void bookingRemoved(Room room, long start);
+}
@@ -0,0 +1,119 @@
+import java.io.Closeable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * BookingReleaseScheduler frees rooms whose bookings are over or were never used.
+ * Every booking gets two timers on a shared TimerWheel: one at its end time, and one at
+ * its start plus a no-show grace period. If nobody is in the room when the grace period
+ * ends, or when the booking ends, the booking is cancelled and the slot becomes free.
+ * A booking made after its grace period has already passed gets no no-show timer, so it
+ * is not released the moment it is made; one that has already ended is released at once.
+ */
+public class BookingReleaseScheduler implements BookingListener, Closeable {
+    private static final long MINUTE_MILLIS = 60_000L;
+
+    private final TimerWheel wheel;
+    private final int graceMinutes; // How long a booked room may stay empty after its start
+    private final Map<Long, TimerWheel.Timeout[]> timers; // Pending timers per booking, keyed by room and start
+    private final AtomicLong expiredReleases = new AtomicLong();
+    private final AtomicLong noShowReleases = new AtomicLong();
+
+    /**
+     * Create a scheduler with its own timer wheel.
+     * @param graceMinutes Minutes after a booking's start before an empty room is released
+     * @param tickMillis Timer resolution
+     */
+    public BookingReleaseScheduler(int graceMinutes, long tickMillis) {
+        this.wheel = new TimerWheel(tickMillis, 4096);
+        this.graceMinutes = graceMinutes;
+        this.timers = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Start tracking every booking already in the configuration and every future one.
+     * @param officeConfig Configuration to watch
+     */
+    public void attach(OfficeConfiguration officeConfig) {
+        officeConfig.addBookingListener(this);
+        for (Room room : officeConfig.getRooms()) {
+            synchronized (room) {
+                BookingCalendar calendar = room.getCalendar();
+                for (int i = 0; i < calendar.size(); i++) {
+                    bookingAdded(room, calendar.startAt(i), (int) (calendar.endAt(i) - calendar.startAt(i)));
+                }
+            }
+        }
+    }
+
+    @Override
+    public void bookingAdded(Room room, long start, int duration) {
+        long key = key(room, start);
+        TimerWheel.Timeout[] pair = new TimerWheel.Timeout[2];
+        pair[0] = wheel.schedule(() -> release(room, start, false), (start + duration) * MINUTE_MILLIS);
+        long noShowDeadline = (start + graceMinutes) * MINUTE_MILLIS;
+        if (graceMinutes < duration && noShowDeadline > System.currentTimeMillis()) {
+            pair[1] = wheel.schedule(() -> release(room, start, true), noShowDeadline);
+        }
+        TimerWheel.Timeout[] previous = timers.put(key, pair);
+        cancel(previous);
+    }
+
+    @Override
+    public void bookingRemoved(Room room, long start) {
+        cancel(timers.remove(key(room, start)));
+    }
+
+    // Get the number of bookings released because they ended
+    public long getExpiredReleases() {
+        return expiredReleases.get();
+    }
+
+    // Get the number of bookings released because nobody showed up
+    public long getNoShowReleases() {
+        return noShowReleases.get();
+    }
+
+    // Get the wheel, so other per-booking timers can share its worker thread
+    TimerWheel getWheel() {
+        return wheel;
+    }
+
+    // Get the number of timers still pending
+    public long getPendingTimers() {
+        return wheel.getPendingTimers();
+    }
+
+    @Override
+    public void close() {
+        wheel.close();
+    }
+
+    // Runs on the timer wheel's worker thread
+    private void release(Room room, long start, boolean noShowCheck) {
+        synchronized (room) {
+            if (noShowCheck && room.isOccupied()) {
+                return; // Someone showed up; the end timer will release the booking
+            }
+            if (room.cancelBooking(start)) { // Also cancels the other timer through bookingRemoved
+                (noShowCheck ? noShowReleases : expiredReleases).incrementAndGet();
+            }
+        }
+    }
+
+    private static void cancel(TimerWheel.Timeout[] pair) {
+        if (pair != null) {
+            for (TimerWheel.Timeout timeout : pair) {
+                if (timeout != null) {
+                    timeout.cancel();
+                }
+            }
+        }
+    }
+
+    // Bookings of one room never share a start, so room id and start identify a booking
+    private static long key(Room room, long start) {
+        return ((long) room.getRoomId() << 32) ^ start;
+    }
+}
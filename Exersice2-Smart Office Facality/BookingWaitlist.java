@@ -0,0 +1,279 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * BookingWaitlist queues booking requests that were rejected because the slot was taken,
+ * and books them automatically as soon as a cancellation or release frees the room.
+ * Each room has its own queue, a concurrent skip list ordered by the fairness policy, so
+ * requesters enqueue without any shared lock and a promotion only locks its own room.
+ * Callers wait on the request's future instead of retrying the booking. Each request also
+ * has a timer on a TimerWheel that drops it once its slot has ended, and a room's queue is
+ * removed when it runs empty. Queues are only changed with the room's lock held.
+ * Futures are never completed with a room's lock held, so callbacks on them may lock rooms:
+ * promotions made by enqueue complete before it returns, and those made by a cancellation or
+ * release, which notifies the waitlist under the room's lock, complete on a separate thread.
+ * A request whose slot has already ended is dropped instead of booked.
+ */
+public class BookingWaitlist implements BookingListener {
+    /**
+     * Order in which waiting requests are served.
+     */
+    public enum Policy {
+        FIFO, // First come, first served
+        ROLE_PRIORITY; // Admins before users, first come, first served within a role
+
+        int rank(User user) {
+            if (this == FIFO || user == null) {
+                return 0;
+            }
+            return "admin".equals(user.getRole()) ? 0 : 1;
+        }
+    }
+
+    /**
+     * A waiting booking request.
+     */
+    public static final class Request {
+        private final User user;
+        private final Room room;
+        private final long start; // Epoch minutes
+        private final int duration; // Minutes
+        private final int rank; // Lower ranks are served first
+        private final long sequence; // Arrival order, breaks ties within a rank
+        private final CompletableFuture<Boolean> promotion = new CompletableFuture<>();
+        private TimerWheel.Timeout expiry; // Drops the request when its slot ends; guarded by the room's lock
+        private boolean booked; // Set under the room's lock when promoted; read when completing the promotion
+
+        private Request(User user, Room room, long start, int duration, int rank, long sequence) {
+            this.user = user;
+            this.room = room;
+            this.start = start;
+            this.duration = duration;
+            this.rank = rank;
+            this.sequence = sequence;
+        }
+
+        public User getUser() {
+            return user;
+        }
+
+        public Room getRoom() {
+            return room;
+        }
+
+        public long getStart() {
+            return start;
+        }
+
+        public int getDuration() {
+            return duration;
+        }
+
+        // Completes with true once the room is booked, or false if the request expired or was withdrawn;
+        // once the request is no longer waiting, it is complete or about to be
+        public CompletableFuture<Boolean> getPromotion() {
+            return promotion;
+        }
+    }
+
+    private static final long MINUTE_MILLIS = 60_000L;
+    private static final Comparator<Request> ORDER = Comparator.<Request>comparingInt(request -> request.rank)
+            .thenComparingLong(request -> request.sequence);
+
+    private final Policy policy;
+    private final TimerWheel wheel; // Runs the expiry timers
+    private final ExecutorService completer; // Completes promotions made under a room's lock; its thread exits when idle
+    private final Map<Integer, ConcurrentSkipListSet<Request>> queues = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong promoted = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+
+    /**
+     * Create a waitlist with its own timer wheel for expiring requests.
+     * @param policy Order in which waiting requests are served
+     */
+    public BookingWaitlist(Policy policy) {
+        this(policy, new TimerWheel(1000, 512));
+    }
+
+    /**
+     * Create a waitlist whose expiry timers share a wheel, e.g. the BookingReleaseScheduler's.
+     * @param policy Order in which waiting requests are served
+     * @param wheel Wheel running the expiry timers
+     */
+    public BookingWaitlist(Policy policy, TimerWheel wheel) {
+        this.policy = policy;
+        this.wheel = wheel;
+        this.completer = new ThreadPoolExecutor(0, 1, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "waitlist-promotions");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Promote waiting requests whenever a booking in the configuration is removed.
+     * @param officeConfig Configuration to watch
+     */
+    public void attach(OfficeConfiguration officeConfig) {
+        officeConfig.addBookingListener(this);
+    }
+
+    /**
+     * Queue a request for a slot. If the slot is already free again it is booked at once.
+     * @param user Requester, used by the ROLE_PRIORITY policy; may be null
+     * @param room Room to book
+     * @param start Start of the booking in epoch minutes
+     * @param duration Duration of the booking in minutes
+     * @return The queued request; its future completes when it is booked or expires
+     */
+    public Request enqueue(User user, Room room, long start, int duration) {
+        if (duration <= 0) {
+            throw new IllegalArgumentException("Duration must be positive.");
+        }
+        Request request = new Request(user, room, start, duration, policy.rank(user), sequence.incrementAndGet());
+        List<Request> finished = Collections.emptyList();
+        synchronized (room) {
+            queues.computeIfAbsent(room.getRoomId(), id -> new ConcurrentSkipListSet<>(ORDER)).add(request);
+            // The slot may have been freed between the rejected booking and this call
+            if (room.isAvailable(start, duration)) {
+                finished = promote(room); // Serve in policy order; requests ahead of this one may take the slot
+            }
+            if (!finished.contains(request)) {
+                request.expiry = wheel.schedule(() -> expire(request), (start + duration) * MINUTE_MILLIS);
+            }
+        }
+        finish(finished);
+        return request;
+    }
+
+    /**
+     * Remove a request from the waitlist.
+     * @param request The request
+     * @return true if it was still waiting
+     */
+    public boolean withdraw(Request request) {
+        synchronized (request.room) {
+            if (!remove(request)) {
+                return false;
+            }
+        }
+        request.promotion.complete(false);
+        return true;
+    }
+
+    /**
+     * Get the number of requests that would be served before this one.
+     * @param request A waiting request
+     * @return Its position from 0, or -1 if it is no longer waiting
+     */
+    public int getPosition(Request request) {
+        ConcurrentSkipListSet<Request> queue = queues.get(request.room.getRoomId());
+        return queue == null || !queue.contains(request) ? -1 : queue.headSet(request).size();
+    }
+
+    // Get the number of requests waiting for a room
+    public int getWaiting(Room room) {
+        ConcurrentSkipListSet<Request> queue = queues.get(room.getRoomId());
+        return queue == null ? 0 : queue.size();
+    }
+
+    // Get the number of requests booked from the waitlist
+    public long getPromoted() {
+        return promoted.get();
+    }
+
+    // Get the number of requests dropped because their slot ended
+    public long getExpired() {
+        return expired.get();
+    }
+
+    @Override
+    public void bookingAdded(Room room, long start, int duration) {
+        // Nothing to do: a new booking cannot free a slot
+    }
+
+    // Called with the room's lock held, right after the slot was freed
+    @Override
+    public void bookingRemoved(Room room, long start) {
+        List<Request> finished = promote(room);
+        if (!finished.isEmpty()) {
+            completer.execute(() -> finish(finished));
+        }
+    }
+
+    /**
+     * Book every waiting request that now fits, in policy order, and drop those whose slot has
+     * ended, e.g. when the release of the booking that ends with it frees the room.
+     * Call with the room's lock held, and complete the returned requests after releasing it.
+     * @param room Room whose queue is served
+     * @return Requests taken out of the queue
+     */
+    private List<Request> promote(Room room) {
+        ConcurrentSkipListSet<Request> queue = queues.get(room.getRoomId());
+        if (queue == null) {
+            return Collections.emptyList();
+        }
+        long now = System.currentTimeMillis() / MINUTE_MILLIS;
+        List<Request> finished = new ArrayList<>();
+        for (Request request : queue) {
+            if (request.start + request.duration <= now) {
+                if (remove(request)) {
+                    expired.incrementAndGet();
+                    finished.add(request);
+                }
+            } else if (room.isAvailable(request.start, request.duration) && remove(request)) {
+                room.tryBook(request.start, request.duration); // Cannot fail: the room's lock is held
+                request.booked = true;
+                promoted.incrementAndGet();
+                finished.add(request);
+            }
+        }
+        return finished;
+    }
+
+    // Complete the promotions of requests taken out of their queue; call without any room's lock
+    private static void finish(List<Request> finished) {
+        for (Request request : finished) {
+            request.promotion.complete(request.booked); // Written on this thread, or before the hand-off to the completer
+        }
+    }
+
+    // Runs on the timer wheel's worker thread once the request's slot has ended
+    private void expire(Request request) {
+        synchronized (request.room) {
+            if (!remove(request)) {
+                return; // Promoted or withdrawn meanwhile
+            }
+        }
+        expired.incrementAndGet();
+        request.promotion.complete(false);
+    }
+
+    // Take a request out of its queue, cancel its timer and drop the queue once empty; call with the room's lock held
+    private boolean remove(Request request) {
+        int roomId = request.room.getRoomId();
+        ConcurrentSkipListSet<Request> queue = queues.get(roomId);
+        if (queue == null || !queue.remove(request)) {
+            return false;
+        }
+        if (request.expiry != null) {
+            request.expiry.cancel();
+        }
+        if (queue.isEmpty()) {
+            queues.remove(roomId, queue);
+        }
+        return true;
+    }
+}
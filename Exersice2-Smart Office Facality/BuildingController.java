@@ -0,0 +1,27 @@
+import java.util.List;
+
+/**
+ * The building system that switches AC and lighting. One call carries the commands for
+ * several rooms of one zone, so a batch costs a single round trip.
+ */
+public interface BuildingController {
+    void apply(int zone, List<BuildingController.Actuation> commands);
+
+    /**
+     * Switch the AC and lights of one room on or off.
+     */
+    final class Actuation {
+        final int roomId;
+        final boolean on;
+
+        Actuation(int roomId, boolean on) {
+            this.roomId = roomId;
+            this.on = on;
+        }
+
+        @Override
+        public String toString() {
+            return "Room " + roomId + (on ? " on" : " off");
+        }
+    }
+}
@@ -1,5 +1,9 @@
-public class CancellationCommand implements Command {
+public class CancellationCommand implements RoomCommand {
     private Room room;
+    private long[] cancelledStarts; // Bookings removed by the last execution, kept for undo
+    private int[] cancelledDurations;
+    private int cancelledOccupants;
+    private boolean applied;
 
     public CancellationCommand(Room room) {
         this.room = room;
@@ -7,10 +11,61 @@ public class CancellationCommand implements Command {
 
     @Override
     public void execute() {
-        if (room.isOccupied()) {
-            room.cancelBooking();
+        if (apply()) {
+            System.out.println("Booking for Room " + room.getRoomId() + " cancelled successfully.");
         } else {
-            System.out.println("Room " + room.getRoomId() + " is not booked.");
+            System.out.println("Room " + room.getRoomId() + " is not booked. Cannot cancel booking.");
         }
     }
+
+    @Override
+    public boolean apply() {
+        synchronized (room) { // Capture and cancel atomically so undo restores exactly what was removed
+            BookingCalendar calendar = room.getCalendar();
+            int size = calendar.size();
+            cancelledStarts = new long[size];
+            cancelledDurations = new int[size];
+            for (int i = 0; i < size; i++) {
+                cancelledStarts[i] = calendar.startAt(i);
+                cancelledDurations[i] = (int) (calendar.endAt(i) - calendar.startAt(i));
+            }
+            cancelledOccupants = room.clearBookings();
+            applied = cancelledOccupants >= 0;
+        }
+        return applied;
+    }
+
+    // The occupancy reset is published here, after the room lock and any processor lock are released
+    @Override
+    public void notifyApplied() {
+        if (applied && cancelledOccupants > 0) {
+            room.notifyObservers();
+        }
+    }
+
+    // Restores without counting the bookings and occupancy again; slots taken since stay with their new booking
+    @Override
+    public void undo() {
+        if (applied) {
+            synchronized (room) {
+                for (int i = 0; i < cancelledStarts.length; i++) {
+                    room.rebook(cancelledStarts[i], cancelledDurations[i]);
+                }
+            }
+            if (cancelledOccupants > 0) {
+                room.reoccupy(cancelledOccupants, System.currentTimeMillis()); // Outside the lock, like setOccupancy
+            }
+            applied = false;
+        }
+    }
+
+    @Override
+    public boolean isApplied() {
+        return applied;
+    }
+
+    @Override
+    public Room getRoom() {
+        return room;
+    }
 }
@@ -0,0 +1,111 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * CommandProcessor runs booking and cancellation commands and keeps an in-memory journal for undo.
+ * Batches are grouped by room, so each room is locked once per batch and its commands run
+ * back to back in submission order. Batched commands run quietly, without a println each.
+ * Observers of occupancy changes are notified once the processor and room locks are released.
+ */
+public class CommandProcessor {
+    private final Deque<RoomCommand> history; // Applied commands, newest last
+    private final int maxHistory; // Oldest commands are forgotten beyond this many
+
+    /**
+     * Create a processor.
+     * @param maxHistory Maximum number of commands kept for undo
+     */
+    public CommandProcessor(int maxHistory) {
+        this.history = new ArrayDeque<>();
+        this.maxHistory = maxHistory;
+    }
+
+    /**
+     * Execute a single command interactively (with its console output) and record it for undo.
+     * @param command Command to execute
+     */
+    public void execute(RoomCommand command) {
+        synchronized (this) {
+            command.execute();
+            if (command.isApplied()) {
+                record(command);
+            }
+        }
+        command.notifyApplied();
+    }
+
+    /**
+     * Apply a batch of commands, grouped per room.
+     * Commands for the same room keep their relative order; rooms are processed in order of first appearance.
+     * @param commands Commands to apply
+     * @return Commands that were rejected (e.g. overlapping bookings), in processing order
+     */
+    public List<RoomCommand> process(List<? extends RoomCommand> commands) {
+        List<RoomCommand> rejected = applyAll(commands);
+        for (RoomCommand command : commands) {
+            command.notifyApplied(); // No-op for rejected commands
+        }
+        return rejected;
+    }
+
+    private synchronized List<RoomCommand> applyAll(List<? extends RoomCommand> commands) {
+        Map<Room, List<RoomCommand>> byRoom = new LinkedHashMap<>();
+        for (RoomCommand command : commands) {
+            byRoom.computeIfAbsent(command.getRoom(), room -> new ArrayList<>()).add(command);
+        }
+        List<RoomCommand> rejected = new ArrayList<>();
+        for (Map.Entry<Room, List<RoomCommand>> entry : byRoom.entrySet()) {
+            synchronized (entry.getKey()) { // One lock acquisition per room per batch; inner locks are reentrant
+                for (RoomCommand command : entry.getValue()) {
+                    if (command.apply()) {
+                        record(command);
+                    } else {
+                        rejected.add(command);
+                    }
+                }
+            }
+        }
+        return rejected;
+    }
+
+    /**
+     * Undo the most recently applied command.
+     * @return The command that was undone, or null if there is nothing to undo
+     */
+    public synchronized RoomCommand undo() {
+        RoomCommand command = history.pollLast();
+        if (command != null) {
+            command.undo();
+        }
+        return command;
+    }
+
+    /**
+     * Undo up to the given number of commands, newest first.
+     * @param count Number of commands to undo
+     * @return Number of commands actually undone
+     */
+    public synchronized int undo(int count) {
+        int undone = 0;
+        while (undone < count && undo() != null) {
+            undone++;
+        }
+        return undone;
+    }
+
+    // Get the number of commands that can be undone
+    public synchronized int getHistorySize() {
+        return history.size();
+    }
+
+    private void record(RoomCommand command) {
+        history.addLast(command);
+        if (history.size() > maxHistory) {
+            history.pollFirst();
+        }
+    }
+}
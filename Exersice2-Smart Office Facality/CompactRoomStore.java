@@ -0,0 +1,258 @@
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * CompactRoomStore is an alternative room storage for campus-scale offices.
+ * Room state lives in parallel primitive arrays indexed by an int room id
+ * (struct-of-arrays), so a million rooms cost a few dozen bytes each and create no
+ * per-room objects for the garbage collector to trace. Rooms are accessed through a
+ * reusable RoomView flyweight.
+ * Each room holds one booking inline; rooms with more bookings spill into a
+ * BookingCalendar kept in a side map. Reads and writes of a room hold its striped lock, so
+ * a getter sees the room's latest completed update (never a torn long); separate getter
+ * calls can still see different updates.
+ * The application does not use the store yet: OfficeConfiguration keeps Room objects, which
+ * carry observers, the journal and statistics. RoomMemoryFootprint measures the two layouts.
+ */
+public class CompactRoomStore {
+    private static final int LOCK_STRIPES = 1024; // Power of two
+    private static final long NO_BOOKING = Long.MIN_VALUE;
+
+    /**
+     * Listener for occupancy changes; one per store instead of an observer list per room.
+     */
+    public interface OccupancyListener {
+        void occupancyChanged(int roomId, int occupants);
+    }
+
+    private final int[] capacity;
+    private final int[] occupants;
+    private final int[] totalBookings;
+    private final long[] totalOccupiedTime; // Occupied ms of completed occupancies
+    private final long[] occupiedSince; // Start of the current occupancy in epoch ms
+    private final long[] bookingStart; // Inline booking start in epoch minutes, or NO_BOOKING
+    private final int[] bookingDuration; // Inline booking duration in minutes
+    private final Map<Integer, BookingCalendar> overflow; // Rooms with more than one booking
+    private final Object[] locks;
+    private volatile OccupancyListener listener;
+
+    /**
+     * Create a store for room ids 0 .. maxRooms - 1.
+     * @param maxRooms Number of rooms the store can hold
+     */
+    public CompactRoomStore(int maxRooms) {
+        capacity = new int[maxRooms];
+        occupants = new int[maxRooms];
+        totalBookings = new int[maxRooms];
+        totalOccupiedTime = new long[maxRooms];
+        occupiedSince = new long[maxRooms];
+        bookingStart = new long[maxRooms];
+        bookingDuration = new int[maxRooms];
+        Arrays.fill(bookingStart, NO_BOOKING);
+        overflow = new ConcurrentHashMap<>();
+        locks = new Object[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    // Get the number of rooms the store can hold
+    public int size() {
+        return capacity.length;
+    }
+
+    // Set the listener notified of occupancy changes, or null for none
+    public void setOccupancyListener(OccupancyListener listener) {
+        this.listener = listener;
+    }
+
+    // Create a flyweight view; it can be moved between rooms and should not be shared across threads
+    public RoomView view() {
+        return new RoomView();
+    }
+
+    public int getCapacity(int roomId) {
+        synchronized (lockFor(roomId)) {
+            return capacity[roomId];
+        }
+    }
+
+    public void setCapacity(int roomId, int value) {
+        synchronized (lockFor(roomId)) {
+            capacity[roomId] = value;
+        }
+    }
+
+    public int getOccupants(int roomId) {
+        synchronized (lockFor(roomId)) {
+            return occupants[roomId];
+        }
+    }
+
+    public int getTotalBookings(int roomId) {
+        synchronized (lockFor(roomId)) {
+            return totalBookings[roomId];
+        }
+    }
+
+    public long getTotalOccupiedTime(int roomId) {
+        synchronized (lockFor(roomId)) {
+            return totalOccupiedTime[roomId];
+        }
+    }
+
+    /**
+     * Set the occupancy of a room and notify the listener.
+     * @param roomId Room to update
+     * @param value New number of occupants
+     * @param timestamp Time of the reading in epoch milliseconds
+     */
+    public void setOccupancy(int roomId, int value, long timestamp) {
+        synchronized (lockFor(roomId)) {
+            int previous = occupants[roomId];
+            if (previous == value) {
+                return;
+            }
+            if (value > 0 && previous == 0) {
+                occupiedSince[roomId] = timestamp;
+                totalBookings[roomId]++;
+            } else if (value == 0) {
+                totalOccupiedTime[roomId] += timestamp - occupiedSince[roomId];
+            }
+            occupants[roomId] = value;
+        }
+        OccupancyListener current = listener;
+        if (current != null) {
+            current.occupancyChanged(roomId, value);
+        }
+    }
+
+    /**
+     * Atomically check the slot and book it if it is free.
+     * @param roomId Room to book
+     * @param start Start of the booking in epoch minutes
+     * @param duration Duration of the booking in minutes
+     * @return true if the room was booked; false if the slot overlaps an existing booking
+     */
+    public boolean tryBook(int roomId, long start, int duration) {
+        if (duration <= 0) {
+            return false;
+        }
+        synchronized (lockFor(roomId)) {
+            BookingCalendar calendar = overflow.get(roomId);
+            if (calendar != null) {
+                if (!calendar.add(start, duration)) {
+                    return false;
+                }
+            } else if (bookingStart[roomId] == NO_BOOKING) {
+                bookingStart[roomId] = start;
+                bookingDuration[roomId] = duration;
+            } else {
+                long inlineStart = bookingStart[roomId];
+                if (start < inlineStart + bookingDuration[roomId] && inlineStart < start + duration) {
+                    return false;
+                }
+                // Second booking: move both into a calendar
+                calendar = new BookingCalendar();
+                calendar.add(inlineStart, bookingDuration[roomId]);
+                calendar.add(start, duration);
+                overflow.put(roomId, calendar);
+                bookingStart[roomId] = NO_BOOKING;
+            }
+            totalBookings[roomId]++;
+            return true;
+        }
+    }
+
+    /**
+     * Check if a room is free for the given slot.
+     * @param roomId Room to check
+     * @param start Start of the slot in epoch minutes
+     * @param duration Duration of the slot in minutes
+     * @return true if no booking overlaps the slot
+     */
+    public boolean isAvailable(int roomId, long start, int duration) {
+        synchronized (lockFor(roomId)) {
+            BookingCalendar calendar = overflow.get(roomId);
+            if (calendar != null) {
+                return !calendar.overlaps(start, duration);
+            }
+            long inlineStart = bookingStart[roomId];
+            return inlineStart == NO_BOOKING || start >= inlineStart + bookingDuration[roomId] || inlineStart >= start + duration;
+        }
+    }
+
+    /**
+     * Remove all bookings of a room and reset its occupancy.
+     * @param roomId Room to clear
+     * @param timestamp Time of the cancellation in epoch milliseconds
+     */
+    public void clearBookings(int roomId, long timestamp) {
+        synchronized (lockFor(roomId)) {
+            bookingStart[roomId] = NO_BOOKING;
+            overflow.remove(roomId);
+        }
+        setOccupancy(roomId, 0, timestamp);
+    }
+
+    private Object lockFor(int roomId) {
+        return locks[roomId & (LOCK_STRIPES - 1)];
+    }
+
+    /**
+     * RoomView is a lightweight, movable view of one room in the store.
+     */
+    public class RoomView {
+        private int roomId = -1;
+
+        // Point the view at another room and return it for chaining
+        public RoomView moveTo(int roomId) {
+            if (roomId < 0 || roomId >= capacity.length) {
+                throw new IndexOutOfBoundsException("Room " + roomId + " does not exist.");
+            }
+            this.roomId = roomId;
+            return this;
+        }
+
+        public int getRoomId() {
+            return roomId;
+        }
+
+        public int getCapacity() {
+            return CompactRoomStore.this.getCapacity(roomId);
+        }
+
+        public void setCapacity(int value) {
+            CompactRoomStore.this.setCapacity(roomId, value);
+        }
+
+        public int getOccupants() {
+            return CompactRoomStore.this.getOccupants(roomId);
+        }
+
+        public boolean isOccupied() {
+            return getOccupants() > 0;
+        }
+
+        public void setOccupancy(int value) {
+            CompactRoomStore.this.setOccupancy(roomId, value, System.currentTimeMillis());
+        }
+
+        public boolean tryBook(long start, int duration) {
+            return CompactRoomStore.this.tryBook(roomId, start, duration);
+        }
+
+        public boolean isAvailable(long start, int duration) {
+            return CompactRoomStore.this.isAvailable(roomId, start, duration);
+        }
+
+        public int getTotalBookings() {
+            return CompactRoomStore.this.getTotalBookings(roomId);
+        }
+
+        public long getTotalOccupiedTime() {
+            return CompactRoomStore.this.getTotalOccupiedTime(roomId);
+        }
+    }
+}
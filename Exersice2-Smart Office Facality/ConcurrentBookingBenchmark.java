@@ -0,0 +1,77 @@
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ConcurrentBookingBenchmark is a multi-threaded stress run for room booking.
+ * Threads take overlapping ranges of (room, slot) pairs so that every pair is attempted
+ * by two different threads and races for the same slot are common.
+ * Reports bookings/sec at 1, 4, 16 and 64 threads, and any slot booked more than once;
+ * ConcurrentBookingTest asserts that there are none.
+ * Run with: java ConcurrentBookingBenchmark
+ */
+public class ConcurrentBookingBenchmark {
+    private static final int[] THREAD_COUNTS = {1, 4, 16, 64};
+    private static final int ROOMS = 256;
+    private static final int SLOTS_PER_ROOM = 2_000;
+    private static final int SLOT_MINUTES = 30;
+
+    public static void main(String[] args) throws InterruptedException {
+        System.out.println("threads, attempts/sec, bookings/sec, double bookings");
+        for (int threads : THREAD_COUNTS) {
+            run(threads);
+        }
+    }
+
+    private static void run(int threads) throws InterruptedException {
+        OfficeConfiguration officeConfig = new OfficeConfiguration();
+        for (int roomId = 1; roomId <= ROOMS; roomId++) {
+            officeConfig.addRoom(roomId, 10);
+        }
+
+        int pairs = ROOMS * SLOTS_PER_ROOM;
+        AtomicIntegerArray successes = new AtomicIntegerArray(pairs); // Successful bookings per (room, slot)
+        AtomicLong attempts = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+
+        for (int t = 0; t < threads; t++) {
+            int offset = (int) ((long) pairs * t / threads);
+            int length = 2 * pairs / threads + 1; // Overlaps the next thread's range
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                    long local = 0;
+                    for (int i = 0; i < length; i++) {
+                        int pair = (offset + i) % pairs;
+                        Room room = officeConfig.getRoom(pair % ROOMS + 1); // Lock-free lookup
+                        long slotStart = (long) (pair / ROOMS) * SLOT_MINUTES;
+                        if (room.tryBook(slotStart, SLOT_MINUTES)) {
+                            successes.incrementAndGet(pair);
+                        }
+                        local++;
+                    }
+                    attempts.addAndGet(local);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+            worker.start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        double seconds = (System.nanoTime() - begin) / 1e9;
+
+        int doubleBookings = 0;
+        for (int i = 0; i < pairs; i++) {
+            if (successes.get(i) > 1) {
+                doubleBookings++;
+            }
+        }
+        System.out.printf("%d, %.0f, %.0f, %d%n", threads, attempts.get() / seconds, pairs / seconds, doubleBookings);
+    }
+}
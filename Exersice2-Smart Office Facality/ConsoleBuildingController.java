@@ -0,0 +1,17 @@
+import java.util.List;
+
+/**
+ * ConsoleBuildingController stands in for the building system by printing each command.
+ */
+public class ConsoleBuildingController implements BuildingController {
+    @Override
+    public void apply(int zone, List<Actuation> commands) {
+        for (Actuation command : commands) {
+            if (command.on) {
+                System.out.println("OccupancySensor: Room " + command.roomId + " is occupied. AC and lights turned on.");
+            } else {
+                System.out.println("OccupancySensor: Room " + command.roomId + " is unoccupied. AC and lights are turned off");
+            }
+        }
+    }
+}
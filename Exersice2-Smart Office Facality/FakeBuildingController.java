@@ -0,0 +1,63 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * FakeBuildingController records what it is told instead of switching anything, so tests and
+ * benchmarks can check which commands reached the building and how many calls they took.
+ * It can also be made to fail, to exercise retries.
+ */
+public class FakeBuildingController implements BuildingController {
+    private final Map<Integer, Boolean> roomStates = new HashMap<>(); // Last state sent per room
+    private final List<Integer> calledZones = new ArrayList<>(); // Zone of each call, in order
+    private long commands; // Room commands received
+    private long switches; // Commands that actually changed a room's state
+    private int failuresLeft; // Number of upcoming calls that throw
+
+    @Override
+    public synchronized void apply(int zone, List<Actuation> batch) {
+        if (failuresLeft > 0) {
+            failuresLeft--;
+            throw new IllegalStateException("controller unavailable");
+        }
+        calledZones.add(zone);
+        for (Actuation command : batch) {
+            commands++;
+            Boolean previous = roomStates.put(command.roomId, command.on);
+            if (previous == null ? command.on : previous != command.on) {
+                switches++;
+            }
+        }
+    }
+
+    // Make the next calls throw, as an unreachable controller would
+    public synchronized void failNext(int calls) {
+        failuresLeft = calls;
+    }
+
+    // Get whether the room's AC and lights are on, or null if the room was never switched
+    public synchronized Boolean isOn(int roomId) {
+        return roomStates.get(roomId);
+    }
+
+    // Get the number of calls received
+    public synchronized int getCalls() {
+        return calledZones.size();
+    }
+
+    // Get the zone of each call, in order
+    public synchronized List<Integer> getCalledZones() {
+        return new ArrayList<>(calledZones);
+    }
+
+    // Get the number of room commands received
+    public synchronized long getCommands() {
+        return commands;
+    }
+
+    // Get the number of commands that changed a room's state (relay switches)
+    public synchronized long getSwitches() {
+        return switches;
+    }
+}
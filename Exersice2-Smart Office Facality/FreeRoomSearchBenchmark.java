@@ -0,0 +1,126 @@
+import java.util.Random;
+
+/**
+ * FreeRoomSearchBenchmark compares the capacity-indexed free-room search in
+ * OfficeConfiguration with a linear scan over every room id, then measures the search in
+ * a 90%-booked office, both for random slots and for a slot that is booked in every room,
+ * which is the search's linear worst case.
+ * Run with: java FreeRoomSearchBenchmark
+ */
+public class FreeRoomSearchBenchmark {
+    private static final int ROOMS = 100_000;
+    private static final int BOOKINGS_PER_ROOM = 20;
+    private static final int QUERIES = 100_000;
+    private static final int DAY_MINUTES = 24 * 60;
+    private static final int BLOCKS = 10; // The busy office books 9 of these blocks per room
+    private static final int BLOCK_MINUTES = DAY_MINUTES / BLOCKS;
+    private static final int BUSY_QUERIES = 1_000; // Slots crossing a block boundary are booked in every room
+    private static final int FULL_QUERIES = 100; // Each query on a fully booked slot visits every room
+
+    public static void main(String[] args) {
+        Random random = new Random(7);
+        OfficeConfiguration officeConfig = new OfficeConfiguration();
+        for (int roomId = 1; roomId <= ROOMS; roomId++) {
+            officeConfig.addRoom(roomId, 2 + random.nextInt(19)); // Capacities 2..20
+            BookingCalendar calendar = officeConfig.getRoom(roomId).getCalendar();
+            for (int i = 0; i < BOOKINGS_PER_ROOM; i++) {
+                calendar.add(random.nextInt(DAY_MINUTES), 15 + random.nextInt(60));
+            }
+        }
+
+        int[] capacities = new int[QUERIES];
+        long[] starts = new long[QUERIES];
+        int[] durations = new int[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            capacities[i] = 2 + random.nextInt(19);
+            starts[i] = random.nextInt(DAY_MINUTES);
+            durations[i] = 15 + random.nextInt(60);
+        }
+
+        // Warm up both paths before measuring
+        indexed(officeConfig, capacities, starts, durations);
+        linear(officeConfig, capacities, starts, durations, 1_000);
+
+        long begin = System.nanoTime();
+        int found = indexed(officeConfig, capacities, starts, durations);
+        long indexedNanos = (System.nanoTime() - begin) / QUERIES;
+
+        int linearQueries = 1_000; // The scan is too slow to run the full query set
+        begin = System.nanoTime();
+        linear(officeConfig, capacities, starts, durations, linearQueries);
+        long linearNanos = (System.nanoTime() - begin) / linearQueries;
+
+        System.out.println("Rooms: " + ROOMS + ", bookings per room: " + BOOKINGS_PER_ROOM);
+        System.out.println("Indexed search: " + indexedNanos + " ns/query (" + found + "/" + QUERIES + " found)");
+        System.out.println("Linear scan:    " + linearNanos + " ns/query");
+
+        officeConfig = busyOffice(random);
+        indexed(officeConfig, capacities, starts, durations, BUSY_QUERIES);
+        begin = System.nanoTime();
+        found = indexed(officeConfig, capacities, starts, durations, BUSY_QUERIES);
+        long busyNanos = (System.nanoTime() - begin) / BUSY_QUERIES;
+
+        // The first block is booked in every room, so these queries find nothing
+        long[] fullStarts = new long[FULL_QUERIES];
+        for (int i = 0; i < FULL_QUERIES; i++) {
+            fullStarts[i] = random.nextInt(BLOCK_MINUTES - 75);
+        }
+        indexed(officeConfig, capacities, fullStarts, durations, FULL_QUERIES);
+        begin = System.nanoTime();
+        int fullFound = indexed(officeConfig, capacities, fullStarts, durations, FULL_QUERIES);
+        long fullNanos = (System.nanoTime() - begin) / FULL_QUERIES;
+
+        System.out.println("90% booked, random slots: " + busyNanos + " ns/query (" + found + "/" + BUSY_QUERIES + " found)");
+        System.out.println("90% booked, full slot:    " + fullNanos + " ns/query (" + fullFound + "/" + FULL_QUERIES + " found)");
+    }
+
+    // Every room's day is ten blocks of which one, never the first, is left free
+    private static OfficeConfiguration busyOffice(Random random) {
+        OfficeConfiguration officeConfig = new OfficeConfiguration();
+        for (int roomId = 1; roomId <= ROOMS; roomId++) {
+            officeConfig.addRoom(roomId, 2 + random.nextInt(19));
+            BookingCalendar calendar = officeConfig.getRoom(roomId).getCalendar();
+            int free = 1 + random.nextInt(BLOCKS - 1);
+            for (int block = 0; block < BLOCKS; block++) {
+                if (block != free) {
+                    calendar.add(block * BLOCK_MINUTES, BLOCK_MINUTES);
+                }
+            }
+        }
+        return officeConfig;
+    }
+
+    private static int indexed(OfficeConfiguration officeConfig, int[] capacities, long[] starts, int[] durations) {
+        return indexed(officeConfig, capacities, starts, durations, capacities.length);
+    }
+
+    private static int indexed(OfficeConfiguration officeConfig, int[] capacities, long[] starts, int[] durations, int queries) {
+        int found = 0;
+        for (int i = 0; i < queries; i++) {
+            if (officeConfig.findFreeRoom(capacities[i], starts[i], durations[i]) != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    // Best-fit search the way it had to be done before the index: visit every room id
+    private static int linear(OfficeConfiguration officeConfig, int[] capacities, long[] starts, int[] durations, int queries) {
+        int found = 0;
+        for (int i = 0; i < queries; i++) {
+            Room best = null;
+            for (int roomId = 1; roomId <= ROOMS; roomId++) {
+                Room room = officeConfig.getRoom(roomId);
+                if (room.getCapacity() >= capacities[i]
+                        && (best == null || room.getCapacity() < best.getCapacity())
+                        && !room.getCalendar().overlaps(starts[i], durations[i])) {
+                    best = room;
+                }
+            }
+            if (best != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+}
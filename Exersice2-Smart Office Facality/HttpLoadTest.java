@@ -0,0 +1,248 @@
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * HttpLoadTest drives BookingHttpServer with many concurrent keep-alive clients and reports
+ * requests/sec and latency percentiles.
+ * Each client holds one connection and sends requests back to back: mostly room reads, plus
+ * bookings, cancellations and free-room searches. Clients run on virtual threads when the
+ * JDK has them, so tens of thousands of clients fit in one process.
+ * Without --host an in-process server on a free port is started and loaded.
+ *
+ * Run with: java HttpLoadTest [--clients N] [--seconds N] [--rooms N] [--host host --port N]
+ */
+public class HttpLoadTest {
+    private static final int LINEAR_MICROS = 128; // Latencies below this get one bucket per microsecond
+    private static final int SUB_BUCKETS = 64; // Buckets per power of two above that (about 1.5% resolution)
+    private static final AtomicLongArray histogram = new AtomicLongArray(LINEAR_MICROS + 40 * SUB_BUCKETS);
+
+    public static void main(String[] args) throws Exception {
+        int clients = 1000;
+        int seconds = 10;
+        int rooms = 100;
+        String host = null;
+        int port = 8080;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--clients": clients = Integer.parseInt(args[++i]); break;
+                case "--seconds": seconds = Integer.parseInt(args[++i]); break;
+                case "--rooms": rooms = Integer.parseInt(args[++i]); break;
+                case "--host": host = args[++i]; break;
+                case "--port": port = Integer.parseInt(args[++i]); break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        BookingHttpServer server = null;
+        if (host == null) {
+            server = new BookingHttpServer(new OfficeConfiguration(), new AuthenticationService(), 0);
+            server.start();
+            host = "127.0.0.1";
+            port = server.getPort();
+        }
+
+        String token;
+        try (Connection setup = new Connection(host, port)) {
+            token = setup.request("POST", "/login", null, "username=admin&password=admin123").body.replaceAll(".*\"token\": \"([^\"]+)\".*", "$1");
+            setup.request("POST", "/rooms?count=" + rooms, token);
+            for (int roomId = 1; roomId <= rooms; roomId++) {
+                setup.request("PUT", "/rooms/" + roomId + "/capacity?value=" + (4 + roomId % 16), token);
+            }
+        }
+
+        AtomicLong requests = new AtomicLong();
+        AtomicLong rejected = new AtomicLong(); // 4xx answers, e.g. a slot already booked
+        AtomicLong failed = new AtomicLong(); // 5xx answers and I/O errors
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(clients);
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        String serverHost = host;
+        int serverPort = port;
+        int roomCount = rooms;
+        for (int c = 0; c < clients; c++) {
+            newThread(() -> {
+                try (Connection connection = new Connection(serverHost, serverPort)) {
+                    start.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (System.nanoTime() < deadline) {
+                        int roomId = random.nextInt(roomCount) + 1;
+                        String time = String.format("%02d:%02d", random.nextInt(24), random.nextInt(60));
+                        int pick = random.nextInt(100);
+                        String method = pick < 80 ? "GET" : pick < 90 ? "POST" : pick < 95 ? "DELETE" : "GET";
+                        String path = pick < 80 ? "/rooms/" + roomId
+                                : pick < 95 ? "/rooms/" + roomId + "/bookings?start=" + time + "&duration=15"
+                                : "/rooms/free?capacity=8&start=" + time + "&duration=30";
+                        long begin = System.nanoTime();
+                        int status = connection.request(method, path, token).status;
+                        record((System.nanoTime() - begin) / 1000);
+                        requests.incrementAndGet();
+                        if (status >= 500) {
+                            failed.incrementAndGet();
+                        } else if (status >= 400) {
+                            rejected.incrementAndGet();
+                        }
+                    }
+                } catch (IOException e) {
+                    failed.incrementAndGet();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        double elapsed = (System.nanoTime() - begin) / 1e9;
+
+        System.out.printf("clients=%d seconds=%.1f requests=%d rejected=%d failed=%d%n",
+                clients, elapsed, requests.get(), rejected.get(), failed.get());
+        System.out.printf("throughput: %.0f req/s%n", requests.get() / elapsed);
+        System.out.printf("latency ms: p50=%.2f p90=%.2f p99=%.2f p99.9=%.2f max=%.2f%n",
+                percentile(0.50), percentile(0.90), percentile(0.99), percentile(0.999), percentile(1.0));
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    // Count a latency in the shared log-linear histogram
+    private static void record(long micros) {
+        int index;
+        if (micros < LINEAR_MICROS) {
+            index = (int) Math.max(0, micros);
+        } else {
+            int exponent = 63 - Long.numberOfLeadingZeros(micros); // At least 7
+            int sub = (int) (micros >>> (exponent - 6)) & (SUB_BUCKETS - 1);
+            index = Math.min(LINEAR_MICROS + (exponent - 7) * SUB_BUCKETS + sub, histogram.length() - 1);
+        }
+        histogram.incrementAndGet(index);
+    }
+
+    // Get the latency in milliseconds below which the given share of requests completed
+    private static double percentile(double p) {
+        long total = 0;
+        for (int i = 0; i < histogram.length(); i++) {
+            total += histogram.get(i);
+        }
+        long rank = Math.max(1, (long) Math.ceil(p * total));
+        long seen = 0;
+        for (int i = 0; i < histogram.length(); i++) {
+            seen += histogram.get(i);
+            if (seen >= rank) {
+                return upperBoundMicros(i) / 1000.0;
+            }
+        }
+        return 0;
+    }
+
+    private static long upperBoundMicros(int index) {
+        if (index < LINEAR_MICROS) {
+            return index + 1;
+        }
+        int exponent = (index - LINEAR_MICROS) / SUB_BUCKETS + 7;
+        int sub = (index - LINEAR_MICROS) % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + sub + 1) << (exponent - 6);
+    }
+
+    // Start a client on a virtual thread when available, otherwise on a platform thread
+    private static void newThread(Runnable task) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class.forName("java.lang.Thread$Builder").getMethod("start", Runnable.class).invoke(builder, task);
+        } catch (ReflectiveOperationException e) {
+            Thread thread = new Thread(task);
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    // Status code and body of a response
+    private static final class Reply {
+        final int status;
+        final String body;
+
+        Reply(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    // A minimal HTTP/1.1 client over one keep-alive connection
+    private static final class Connection implements AutoCloseable {
+        private final String host;
+        private final Socket socket;
+        private final InputStream in;
+        private final OutputStream out;
+
+        Connection(String host, int port) throws IOException {
+            this.host = host;
+            this.socket = new Socket();
+            socket.setTcpNoDelay(true);
+            socket.connect(new InetSocketAddress(host, port), 30_000);
+            this.in = new BufferedInputStream(socket.getInputStream());
+            this.out = socket.getOutputStream();
+        }
+
+        Reply request(String method, String path, String token) throws IOException {
+            return request(method, path, token, "");
+        }
+
+        // Send a request with a form-encoded body
+        Reply request(String method, String path, String token, String form) throws IOException {
+            byte[] content = form.getBytes(StandardCharsets.UTF_8);
+            String request = method + " " + path + " HTTP/1.1\r\nHost: " + host + "\r\nContent-Length: " + content.length + "\r\n"
+                    + (content.length > 0 ? "Content-Type: application/x-www-form-urlencoded\r\n" : "")
+                    + (token != null ? "Authorization: Bearer " + token + "\r\n" : "") + "\r\n";
+            out.write(request.getBytes(StandardCharsets.US_ASCII));
+            out.write(content);
+            out.flush();
+            String statusLine = readLine();
+            int status = Integer.parseInt(statusLine.substring(9, 12));
+            int length = 0;
+            String header;
+            while (!(header = readLine()).isEmpty()) {
+                if (header.regionMatches(true, 0, "Content-Length:", 0, 15)) {
+                    length = Integer.parseInt(header.substring(15).trim());
+                }
+            }
+            byte[] body = new byte[length];
+            for (int read = 0; read < length; ) {
+                int n = in.read(body, read, length - read);
+                if (n < 0) {
+                    throw new IOException("Connection closed mid-response");
+                }
+                read += n;
+            }
+            return new Reply(status, new String(body, StandardCharsets.UTF_8));
+        }
+
+        private String readLine() throws IOException {
+            StringBuilder line = new StringBuilder();
+            int c;
+            while ((c = in.read()) != '\n') {
+                if (c < 0) {
+                    throw new IOException("Connection closed");
+                }
+                if (c != '\r') {
+                    line.append((char) c);
+                }
+            }
+            return line.toString();
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
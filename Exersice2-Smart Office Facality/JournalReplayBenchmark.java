@@ -0,0 +1,65 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * JournalReplayBenchmark writes a journal of one million booking and occupancy events and
+ * measures how long recovery takes, with and without a snapshot taken halfway.
+ * Run with: java JournalReplayBenchmark [PER_BATCH|INTERVAL] [batchSizeOrIntervalMillis]
+ */
+public class JournalReplayBenchmark {
+    private static final int ROOMS = 10_000;
+    private static final int EVENTS = 1_000_000;
+
+    public static void main(String[] args) throws IOException {
+        BookingJournal.SyncMode mode = args.length > 0 ? BookingJournal.SyncMode.valueOf(args[0]) : BookingJournal.SyncMode.INTERVAL;
+        int syncSetting = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        // A snapshot drops the journal records it covers, so the full replay gets a directory of its own
+        Path withSnapshot = write(mode, syncSetting, true);
+        Path journalOnly = write(mode, syncSetting, false);
+
+        long begin = System.nanoTime();
+        OfficeConfiguration recovered = new OfficeConfiguration();
+        try (OfficePersistence persistence = new OfficePersistence(recovered, withSnapshot, mode, syncSetting)) {
+            System.out.printf("Recovered %d rooms from snapshot + %d journal records in %.0f ms%n",
+                    recovered.getRooms().size(), persistence.getRecoveredRecords(), (System.nanoTime() - begin) / 1e6);
+        }
+
+        begin = System.nanoTime();
+        OfficeConfiguration replayed = new OfficeConfiguration();
+        try (OfficePersistence persistence = new OfficePersistence(replayed, journalOnly, mode, syncSetting)) {
+            System.out.printf("Replayed the full journal (%d records) in %.0f ms%n",
+                    persistence.getRecoveredRecords(), (System.nanoTime() - begin) / 1e6);
+        }
+    }
+
+    // Write the events into a new data directory, taking a snapshot halfway if asked to
+    private static Path write(BookingJournal.SyncMode mode, int syncSetting, boolean snapshotHalfway) throws IOException {
+        Path directory = Files.createTempDirectory("smartoffice-journal");
+        OfficeConfiguration officeConfig = new OfficeConfiguration();
+        long begin = System.nanoTime();
+        try (OfficePersistence persistence = new OfficePersistence(officeConfig, directory, mode, syncSetting)) {
+            for (int roomId = 1; roomId <= ROOMS; roomId++) {
+                officeConfig.addRoom(roomId, 10);
+            }
+            Random random = new Random(3);
+            long timestamp = System.currentTimeMillis();
+            for (int i = 0; i < EVENTS; i++) {
+                Room room = officeConfig.getRoom(1 + random.nextInt(ROOMS));
+                if (i % 2 == 0) {
+                    room.tryBook(random.nextInt(1_000_000), 30);
+                } else {
+                    room.setOccupancy(random.nextInt(11), timestamp++);
+                }
+                if (snapshotHalfway && i == EVENTS / 2) {
+                    persistence.snapshot();
+                }
+            }
+            persistence.commit();
+        }
+        System.out.printf("Wrote %d events in %.0f ms (%s, %d%s)%n", EVENTS, (System.nanoTime() - begin) / 1e6, mode, syncSetting,
+                snapshotHalfway ? ", snapshot halfway" : "");
+        return directory;
+    }
+}
@@ -0,0 +1,108 @@
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * LocalShard keeps its rooms in a private OfficeConfiguration, so it shares no map, index or
+ * lock with other shards. All calls run on the shard's own single-threaded event loop; a
+ * shard's rooms are therefore never contended, and shards proceed in parallel.
+ */
+public class LocalShard implements Shard {
+    private final OfficeConfiguration rooms; // This shard's rooms only
+    private final ExecutorService eventLoop;
+
+    /**
+     * Create an empty shard with its own event loop thread.
+     * @param name Shard name, used for the thread name
+     */
+    public LocalShard(String name) {
+        this.rooms = new OfficeConfiguration();
+        this.eventLoop = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "shard-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Boolean> addRoom(int roomId, int capacity) {
+        return submit(() -> {
+            rooms.addRoom(roomId, capacity);
+            return true;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Boolean> setCapacity(int roomId, int capacity) {
+        return submit(() -> {
+            Room room = rooms.getRoom(roomId);
+            if (room == null) {
+                return false;
+            }
+            room.setCapacity(capacity);
+            return true;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Boolean> setOccupancy(int roomId, int occupants) {
+        return submit(() -> {
+            Room room = rooms.getRoom(roomId);
+            if (room == null || occupants < 0 || occupants > room.getCapacity()) {
+                return false;
+            }
+            room.setOccupancy(occupants);
+            return true;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Boolean> tryBook(int roomId, long start, int duration) {
+        return submit(() -> {
+            Room room = rooms.getRoom(roomId);
+            return room != null && room.tryBook(start, duration);
+        });
+    }
+
+    @Override
+    public CompletableFuture<Boolean> cancelBooking(int roomId, long start) {
+        return submit(() -> {
+            Room room = rooms.getRoom(roomId);
+            return room != null && room.cancelBooking(start);
+        });
+    }
+
+    @Override
+    public CompletableFuture<RoomInfo> getRoom(int roomId) {
+        return submit(() -> info(rooms.getRoom(roomId)));
+    }
+
+    @Override
+    public CompletableFuture<RoomInfo> findFreeRoom(int minCapacity, long start, int duration) {
+        return submit(() -> info(rooms.findFreeRoom(minCapacity, start, duration)));
+    }
+
+    // Get the shard's private configuration, for attaching journals or listeners
+    public OfficeConfiguration getConfiguration() {
+        return rooms;
+    }
+
+    @Override
+    public void close() {
+        eventLoop.shutdown();
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, eventLoop);
+    }
+
+    private static RoomInfo info(Room room) {
+        if (room == null) {
+            return null;
+        }
+        synchronized (room) {
+            return new RoomInfo(room.getRoomId(), room.getCapacity(), room.getOccupants(), room.getCalendar().size());
+        }
+    }
+}
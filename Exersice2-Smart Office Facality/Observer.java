@@ -0,0 +1,7 @@
+/**
+ * Observer of a room's occupancy. It is called after the room lock is released, either
+ * directly or from an OccupancyEventBus dispatcher thread.
+ */
+public interface Observer {
+    void update(Room room);
+}
@@ -0,0 +1,146 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * OccupancyEventBus delivers room occupancy changes to observers off the caller's thread.
+ * Changed rooms are queued in a bounded ring buffer and delivered in batches by a
+ * dedicated thread. A room that is already queued is not queued again, so a burst of
+ * updates for the same room reaches the observers once, with the latest state.
+ * The bus is opt-in through OfficeConfiguration.setEventBus, as SensorLoadGenerator does;
+ * the console and the HTTP server notify their cheap observers synchronously.
+ */
+public class OccupancyEventBus {
+    /**
+     * What publish() does when the ring buffer is full.
+     */
+    public enum BackpressurePolicy {
+        BLOCK, // Wait until the dispatcher frees a slot
+        DROP, // Discard the event and count it as dropped
+        CALLER_RUNS // Deliver the event synchronously on the publishing thread
+    }
+
+    private final ArrayBlockingQueue<Room> queue; // Bounded ring buffer of rooms with pending changes
+    private final Set<Room> pending; // Rooms currently in the queue, used to coalesce updates
+    private final int batchSize; // Maximum number of rooms delivered per batch
+    private final BackpressurePolicy policy; // Behaviour when the queue is full
+    private final ExecutorService executor; // Dedicated dispatcher thread
+    private final AtomicLong delivered = new AtomicLong(); // Number of room updates delivered
+    private final AtomicLong dropped = new AtomicLong(); // Number of updates dropped by backpressure
+    private volatile boolean running = true;
+
+    /**
+     * Create an event bus and start its dispatcher thread.
+     * @param capacity Size of the ring buffer
+     * @param batchSize Maximum number of rooms delivered per batch
+     * @param policy Behaviour when the ring buffer is full
+     */
+    public OccupancyEventBus(int capacity, int batchSize, BackpressurePolicy policy) {
+        if (capacity <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("Capacity and batch size must be positive.");
+        }
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.pending = ConcurrentHashMap.newKeySet();
+        this.batchSize = batchSize;
+        this.policy = policy;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "occupancy-event-bus");
+            thread.setDaemon(true); // Never keep the application alive on its own
+            return thread;
+        });
+        this.executor.execute(this::dispatchLoop);
+    }
+
+    /**
+     * Queue an occupancy change of the room for delivery.
+     * Returns immediately unless the buffer is full and the policy is BLOCK.
+     * @param room Room whose occupancy changed
+     */
+    public void publish(Room room) {
+        if (!pending.add(room)) {
+            return; // Already queued; observers will read the latest state when it is delivered
+        }
+        if (queue.offer(room)) {
+            return;
+        }
+        switch (policy) {
+            case BLOCK:
+                try {
+                    queue.put(room);
+                } catch (InterruptedException e) {
+                    pending.remove(room);
+                    dropped.incrementAndGet();
+                    Thread.currentThread().interrupt();
+                }
+                break;
+            case CALLER_RUNS:
+                pending.remove(room);
+                deliver(room);
+                break;
+            default:
+                pending.remove(room);
+                dropped.incrementAndGet();
+                break;
+        }
+    }
+
+    /**
+     * Stop the dispatcher after delivering everything already queued.
+     * @param timeoutMillis Maximum time to wait for the queue to drain
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void shutdown(long timeoutMillis) throws InterruptedException {
+        running = false;
+        executor.shutdown();
+        executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Get the number of room updates delivered to observers
+    public long getDeliveredCount() {
+        return delivered.get();
+    }
+
+    // Get the number of updates discarded because the buffer was full
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    // Take batches off the ring buffer and deliver them until shut down and drained
+    private void dispatchLoop() {
+        List<Room> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Room first = queue.poll(50, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                for (Room room : batch) {
+                    pending.remove(room); // Later changes must be queued again
+                    deliver(room);
+                }
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void deliver(Room room) {
+        try {
+            room.deliverToObservers();
+        } catch (RuntimeException e) {
+            // A failing observer must not stop delivery to the other rooms
+            System.out.println("OccupancyEventBus: observer failed for Room " + room.getRoomId() + ": " + e.getMessage());
+        }
+        delivered.incrementAndGet();
+    }
+}
@@ -1,11 +1,29 @@
-interface Observer {
-    void update(Room room);
-}
-
+/**
+ * OccupancySensor reacts to occupancy changes of the rooms it observes.
+ * Without a scheduler it switches AC and lights directly on every change; with an
+ * ActuationScheduler it only reports the reading, and the scheduler debounces and batches
+ * the resulting commands.
+ */
 public class OccupancySensor implements Observer {
+    private final ActuationScheduler scheduler; // Receives readings, or null to switch directly
+
+    public OccupancySensor() {
+        this(null);
+    }
+
+    /**
+     * Create a sensor that reports its readings to a scheduler.
+     * @param scheduler Scheduler that decides when to switch AC and lights
+     */
+    public OccupancySensor(ActuationScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
     @Override
     public void update(Room room) {
-        if (room.isOccupied()) {
+        if (scheduler != null) {
+            scheduler.occupancyChanged(room.getRoomId(), room.isOccupied(), System.currentTimeMillis());
+        } else if (room.isOccupied()) {
             System.out.println("OccupancySensor: Room " + room.getRoomId() + " is occupied. AC and lights turned on.");
         } else {
             System.out.println("OccupancySensor: Room " + room.getRoomId() + " is unoccupied. AC and lights are turned off");
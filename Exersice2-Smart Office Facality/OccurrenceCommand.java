@@ -0,0 +1,55 @@
+/**
+ * OccurrenceCommand cancels (skips) or restores a single occurrence of a recurring booking.
+ * The series is found from the occurrence's start; undo does the opposite.
+ */
+public class OccurrenceCommand implements RoomCommand {
+    private Room room;
+    private long start; // Start of the occurrence in epoch minutes
+    private boolean skip; // true to cancel the occurrence, false to restore it
+    private boolean applied;
+
+    public OccurrenceCommand(Room room, long start, boolean skip) {
+        this.room = room;
+        this.start = start;
+        this.skip = skip;
+    }
+
+    @Override
+    public void execute() {
+        if (apply()) {
+            System.out.println("Occurrence of Room " + room.getRoomId() + " at " + TimeParser.format(start) + (skip ? " skipped." : " restored."));
+        } else if (skip) {
+            System.out.println("Room " + room.getRoomId() + " has no recurring booking at " + TimeParser.format(start) + ". Cannot skip.");
+        } else {
+            System.out.println("Room " + room.getRoomId() + " has no skipped occurrence at " + TimeParser.format(start) + " whose slot is still free. Cannot restore.");
+        }
+    }
+
+    @Override
+    public boolean apply() {
+        applied = skip ? room.skipOccurrence(start) : room.restoreOccurrence(start);
+        return applied;
+    }
+
+    @Override
+    public void undo() {
+        if (applied) {
+            if (skip) {
+                room.restoreOccurrence(start);
+            } else {
+                room.skipOccurrence(start);
+            }
+            applied = false;
+        }
+    }
+
+    @Override
+    public boolean isApplied() {
+        return applied;
+    }
+
+    @Override
+    public Room getRoom() {
+        return room;
+    }
+}
@@ -1,16 +1,36 @@
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * OfficeConfiguration class manages the configuration of rooms in the office.
  * It follows the Singleton design pattern to ensure only one instance exists.
+ * Room lookups are lock-free; booking mutations lock only the room they touch.
  */
 public class OfficeConfiguration {
-    private static OfficeConfiguration instance; // Single instance of OfficeConfiguration
+    static final int ROOMS_PER_FLOOR = 100; // Room IDs are building * 10000 + floor * 100 + room
+
     private Map<Integer, Room> rooms; // Map to store rooms by their IDs
+    private NavigableMap<Integer, Set<Room>> roomsByCapacity; // Capacity-sorted index used by free-room search
+    private volatile OccupancyEventBus eventBus; // Event bus attached to every room, or null
+    private volatile BookingJournal journal; // Write-ahead log attached to every room, or null
+    private final List<BookingListener> bookingListeners = new CopyOnWriteArrayList<>(); // Added to every room
+
+    // Package-private so benchmarks can build standalone configurations
+    OfficeConfiguration() {
+        rooms = new ConcurrentHashMap<>(); // Initialize the map
+        roomsByCapacity = new ConcurrentSkipListMap<>();
+    }
 
-    private OfficeConfiguration() {
-        rooms = new HashMap<>(); // Initialize the map
+    // Holder class so the single instance is created lazily and safely on first use
+    private static class InstanceHolder {
+        private static final OfficeConfiguration INSTANCE = new OfficeConfiguration();
     }
 
     /**
@@ -18,10 +38,7 @@ public class OfficeConfiguration {
      * @return Instance of OfficeConfiguration
      */
     public static OfficeConfiguration getInstance() {
-        if (instance == null) {
-            instance = new OfficeConfiguration();
-        }
-        return instance;
+        return InstanceHolder.INSTANCE;
     }
 
     /**
@@ -30,7 +47,86 @@ public class OfficeConfiguration {
      * @param capacity Maximum capacity of the room
      */
     public void addRoom(int roomId, int capacity) {
-        rooms.put(roomId, new Room(roomId, capacity)); // Create and add the room
+        Room room = new Room(roomId, capacity);
+        room.setConfiguration(this);
+        room.setEventBus(eventBus);
+        room.setJournal(journal);
+        for (BookingListener listener : bookingListeners) {
+            room.addBookingListener(listener);
+        }
+        // Published and journaled under the new room's lock, so its ADD_ROOM record precedes every
+        // change to it, and a snapshot that misses the room also starts after that record
+        synchronized (room) {
+            Room previous = rooms.put(roomId, room); // Replaces any room with the same ID
+            if (previous != null) {
+                unindex(previous, previous.getCapacity());
+                previous.setConfiguration(null);
+            }
+            index(room, capacity);
+            if (journal != null) {
+                journal.append(BookingJournal.ADD_ROOM, roomId, 0, capacity);
+            }
+        }
+    }
+
+    // Remove every room; used when recovery fails halfway
+    void clear() {
+        for (Room room : rooms.values()) {
+            room.setConfiguration(null);
+        }
+        rooms.clear();
+        roomsByCapacity.clear();
+    }
+
+    /**
+     * Deliver occupancy changes of every room, current and future, through the event bus.
+     * @param eventBus Event bus to use, or null to go back to synchronous notification
+     */
+    public void setEventBus(OccupancyEventBus eventBus) {
+        this.eventBus = eventBus;
+        for (Room room : rooms.values()) {
+            room.setEventBus(eventBus);
+        }
+    }
+
+    /**
+     * Record every change of every room, current and future, in the journal.
+     * @param journal Journal to append to, or null to stop journaling
+     */
+    public void setJournal(BookingJournal journal) {
+        this.journal = journal;
+        for (Room room : rooms.values()) {
+            room.setJournal(journal);
+        }
+    }
+
+    /**
+     * Get the utilization of every room over the last 7 days.
+     * Each value is read from the room's pre-aggregated buckets in constant time.
+     * @return Utilization between 0 and 1, keyed by room ID
+     */
+    public Map<Integer, Double> getWeeklyUtilization() {
+        Map<Integer, Double> utilization = new HashMap<>(rooms.size() * 2);
+        for (Room room : rooms.values()) {
+            utilization.put(room.getRoomId(), room.getWeeklyUtilization());
+        }
+        return utilization;
+    }
+
+    /**
+     * Add a booking listener to every room, current and future.
+     * @param listener Listener to be added
+     */
+    public void addBookingListener(BookingListener listener) {
+        bookingListeners.add(listener);
+        for (Room room : rooms.values()) {
+            room.addBookingListener(listener);
+        }
+    }
+
+    // Get a live view of all rooms in the configuration
+    public Collection<Room> getRooms() {
+        return rooms.values();
     }
 
     /**
@@ -41,4 +137,72 @@ public class OfficeConfiguration {
     public Room getRoom(int roomId) {
         return rooms.get(roomId); // Retrieve the room from the map
     }
+
+    /**
+     * Find the best-fit free room: the smallest room with at least the requested capacity
+     * that has no booking overlapping the slot. Rooms are visited in ascending capacity order starting at minCapacity,
+     * and each candidate is checked with a binary search on its calendar. Current occupancy is
+     * ignored: the slot may be hours away. There is no availability index, so the cost grows with
+     * how booked the office is: a query visits about 1/p rooms when a share p of them is free for
+     * the slot, and a slot that is booked everywhere costs one binary search per room with enough
+     * seats, i.e. linear in the number of rooms. FreeRoomSearchBenchmark measures both cases.
+     * @param minCapacity Minimum number of seats needed
+     * @param start Start of the slot in epoch minutes
+     * @param duration Duration of the slot in minutes
+     * @return The best-fit free room, or null if none is available
+     */
+    public Room findFreeRoom(int minCapacity, long start, int duration) {
+        for (Set<Room> bucket : roomsByCapacity.tailMap(Math.max(minCapacity, 1), true).values()) {
+            for (Room room : bucket) {
+                if (room.isAvailable(start, duration)) {
+                    return room;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Atomically book the best-fit free room for a slot.
+     * A room taken by another client between the search and the booking is skipped.
+     * Like findFreeRoom, a slot that is booked everywhere visits every room with enough seats,
+     * each under its own lock.
+     * @param minCapacity Minimum number of seats needed
+     * @param start Start of the slot in epoch minutes
+     * @param duration Duration of the slot in minutes
+     * @return The booked room, or null if none is available
+     */
+    public Room bookFreeRoom(int minCapacity, long start, int duration) {
+        for (Set<Room> bucket : roomsByCapacity.tailMap(Math.max(minCapacity, 1), true).values()) {
+            for (Room room : bucket) {
+                if (room.tryBook(start, duration)) {
+                    return room;
+                }
+            }
+        }
+        return null;
+    }
+
+    // Get the floor a room is on, as a campus-wide key: building * 100 + floor
+    static int floorOf(int roomId) {
+        return roomId / ROOMS_PER_FLOOR;
+    }
+
+    // Move a room to its new capacity bucket; called by Room.setCapacity
+    void capacityChanged(Room room, int oldCapacity, int newCapacity) {
+        unindex(room, oldCapacity);
+        index(room, newCapacity);
+    }
+
+    private void index(Room room, int capacity) {
+        roomsByCapacity.computeIfAbsent(capacity, c -> ConcurrentHashMap.newKeySet()).add(room);
+    }
+
+    // Empty buckets are kept so a concurrent index() never adds to a detached set
+    private void unindex(Room room, int capacity) {
+        Set<Room> bucket = roomsByCapacity.get(capacity);
+        if (bucket != null) {
+            bucket.remove(room);
+        }
+    }
 }
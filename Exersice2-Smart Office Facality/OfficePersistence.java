@@ -0,0 +1,100 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OfficePersistence makes an OfficeConfiguration durable.
+ * On open it restores the latest snapshot and replays the journal tail, then attaches the
+ * journal so every later change is logged. Snapshots can be taken on demand or periodically;
+ * each one drops the journal records it covers, so the journal stays as short as the changes
+ * since the last snapshot.
+ */
+public class OfficePersistence implements Closeable {
+    private static final String JOURNAL_FILE = "office.journal";
+    private static final String SNAPSHOT_FILE = "office.snapshot";
+
+    private final OfficeConfiguration officeConfig;
+    private final BookingJournal journal;
+    private final Path snapshotFile;
+    private ScheduledExecutorService snapshotter; // Periodic snapshot thread, or null
+    private long recoveredRecords; // Journal records replayed during recovery
+
+    /**
+     * Recover the configuration from a data directory and start journaling changes.
+     * @param officeConfig Configuration to recover into and then persist
+     * @param directory Directory holding the journal and snapshot
+     * @param mode When appended records are forced to disk
+     * @param batchSizeOrIntervalMillis Records per force in PER_BATCH mode, milliseconds between forces in INTERVAL mode
+     * @throws IOException if the data cannot be read or the journal cannot be opened; the configuration is then left empty
+     */
+    public OfficePersistence(OfficeConfiguration officeConfig, Path directory, BookingJournal.SyncMode mode,
+                             int batchSizeOrIntervalMillis) throws IOException {
+        Files.createDirectories(directory);
+        this.officeConfig = officeConfig;
+        this.snapshotFile = directory.resolve(SNAPSHOT_FILE);
+        this.journal = new BookingJournal(directory.resolve(JOURNAL_FILE), mode, batchSizeOrIntervalMillis);
+        try {
+            Map<Integer, Long> covered = new HashMap<>();
+            long from = OfficeSnapshot.read(officeConfig, snapshotFile, covered);
+            this.recoveredRecords = journal.replay(from, officeConfig, covered);
+        } catch (IOException | RuntimeException e) {
+            journal.close();
+            officeConfig.clear(); // Don't leave a half-recovered office behind
+            throw e;
+        }
+        officeConfig.setJournal(journal); // Attach only after recovery so replay is not logged again
+    }
+
+    // Write a snapshot of the configuration now, then drop the journal records it covers
+    public synchronized void snapshot() throws IOException {
+        long position = OfficeSnapshot.write(officeConfig, snapshotFile, journal);
+        journal.compact(position);
+    }
+
+    /**
+     * Take a snapshot at a fixed period in the background.
+     * @param periodMillis Milliseconds between snapshots
+     */
+    public synchronized void startPeriodicSnapshots(long periodMillis) {
+        if (snapshotter != null) {
+            return;
+        }
+        snapshotter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "office-snapshotter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshotter.scheduleAtFixedRate(() -> {
+            try {
+                snapshot();
+            } catch (IOException e) {
+                System.out.println("OfficePersistence: snapshot failed: " + e.getMessage());
+            }
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Force every journaled change to disk
+    public void commit() {
+        journal.commit();
+    }
+
+    // Get the number of journal records replayed when the configuration was recovered
+    public long getRecoveredRecords() {
+        return recoveredRecords;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (snapshotter != null) {
+            snapshotter.shutdown();
+        }
+        officeConfig.setJournal(null);
+        journal.close();
+    }
+}
@@ -0,0 +1,135 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * OfficeSnapshot writes and reads compact binary snapshots of every room in a configuration.
+ * Each room is captured under its lock together with the journal position at that moment;
+ * every change to a room is journaled under the same lock, so the room's records before that
+ * position are exactly the ones the snapshot contains. Recovery replays the journal from the
+ * earliest of these positions and skips each room's records up to its own.
+ */
+public class OfficeSnapshot {
+    private static final int MAGIC = 0x534F4634; // "SOF4": rooms with a journal position, recurring bookings and usage statistics
+
+    private OfficeSnapshot() {
+    }
+
+    /**
+     * Write a snapshot of the configuration. The file is written next to the target and
+     * renamed into place, so a crash never leaves a half-written snapshot behind.
+     * @param officeConfig Configuration to snapshot
+     * @param file Snapshot file
+     * @param journal Journal attached to the configuration, or null
+     * @return Journal position from which recovery replays; every earlier record is in the snapshot
+     * @throws IOException if the snapshot cannot be written
+     */
+    public static long write(OfficeConfiguration officeConfig, Path file, BookingJournal journal) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        long journalPosition = journal != null ? journal.position() : 0; // No room can be captured before this
+        List<Room> rooms = new ArrayList<>(officeConfig.getRooms());
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeLong(journalPosition);
+            out.writeInt(rooms.size());
+            for (Room room : rooms) {
+                synchronized (room) { // Each room is captured consistently; the journal tail covers the rest
+                    BookingCalendar calendar = room.getCalendar();
+                    out.writeInt(room.getRoomId());
+                    out.writeLong(journal != null ? journal.position() : 0); // Covers this room's records before it
+                    out.writeInt(room.getCapacity());
+                    out.writeInt(room.getOccupants());
+                    out.writeLong(room.getOccupiedSince());
+                    out.writeLong(room.getLastUnoccupiedTime());
+                    out.writeInt(room.getTotalBookings());
+                    out.writeLong(room.getCompletedOccupiedTime());
+                    out.writeInt(calendar.size());
+                    for (int i = 0; i < calendar.size(); i++) {
+                        out.writeLong(calendar.startAt(i));
+                        out.writeInt((int) (calendar.endAt(i) - calendar.startAt(i)));
+                    }
+                    RecurringSchedule schedule = room.getRecurringSchedule();
+                    List<RecurrenceRule> rules = schedule == null ? Collections.<RecurrenceRule>emptyList() : schedule.getRules();
+                    out.writeInt(rules.size());
+                    for (RecurrenceRule rule : rules) {
+                        out.writeLong(rule.getFirstStart());
+                        out.writeInt(rule.getDuration());
+                        out.writeInt(rule.getRepeat());
+                        out.writeLong(rule.getCount());
+                        long[] skipped = rule.getExceptions();
+                        out.writeInt(skipped.length);
+                        for (long start : skipped) {
+                            out.writeLong(start);
+                        }
+                    }
+                    room.getStatistics().write(out);
+                }
+            }
+            out.writeInt(MAGIC); // Trailer marks a complete snapshot
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return journalPosition;
+    }
+
+    /**
+     * Load a snapshot into the configuration.
+     * @param officeConfig Configuration to load the rooms into; it must not have a journal attached
+     * @param file Snapshot file
+     * @param covered Receives, per room ID, the journal position up to which the room's records are in the snapshot
+     * @return Journal position to replay from, or 0 if there is no snapshot
+     * @throws IOException if the snapshot exists but cannot be read
+     */
+    public static long read(OfficeConfiguration officeConfig, Path file, Map<Integer, Long> covered) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            int magic = in.readInt();
+            if (magic != MAGIC) {
+                throw new IOException("Not a SmartOffice snapshot: " + file);
+            }
+            long journalPosition = in.readLong();
+            int roomCount = in.readInt();
+            for (int r = 0; r < roomCount; r++) {
+                int roomId = in.readInt();
+                covered.put(roomId, in.readLong());
+                int capacity = in.readInt();
+                int occupants = in.readInt();
+                long occupiedSince = in.readLong();
+                long lastUnoccupiedTime = in.readLong();
+                int totalBookings = in.readInt();
+                long totalOccupiedTime = in.readLong();
+                officeConfig.addRoom(roomId, capacity);
+                Room room = officeConfig.getRoom(roomId);
+                int bookings = in.readInt();
+                for (int i = 0; i < bookings; i++) {
+                    room.tryBook(in.readLong(), in.readInt());
+                }
+                int rules = in.readInt();
+                for (int i = 0; i < rules; i++) {
+                    RecurrenceRule rule = RecurrenceRule.of(in.readLong(), in.readInt(), in.readInt(), in.readLong());
+                    room.tryBookRecurring(rule);
+                    int skipped = in.readInt();
+                    for (int s = 0; s < skipped; s++) {
+                        room.skipOccurrence(rule, in.readLong());
+                    }
+                }
+                room.restore(occupants, occupiedSince, lastUnoccupiedTime, totalBookings, totalOccupiedTime);
+                room.restoreStatistics(RoomStatistics.read(in, TimeParser.getZone()));
+            }
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Truncated SmartOffice snapshot: " + file);
+            }
+            return journalPosition;
+        }
+    }
+}
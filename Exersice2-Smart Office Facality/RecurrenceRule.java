@@ -0,0 +1,420 @@
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * RecurrenceRule describes a series of bookings that repeat at a fixed period (daily,
+ * weekly, or every N weeks on the weekday of the first occurrence) or monthly on the Nth
+ * (or last) weekday of the month.
+ * The series is stored as the rule itself, never as a list of instances: occurrence k
+ * starts at firstStart + k * period, or on the Nth weekday of the k-th month after the
+ * first, and cancelled occurrences are kept as a sorted list of exceptions. Every question
+ * about a time window is answered with arithmetic and a binary search over the exceptions,
+ * however long the series is; a monthly series looks at one date per month of the window.
+ * Times are epoch minutes; periods are exact minutes and monthly occurrences keep the UTC
+ * time of day of the first, so occurrences keep their UTC time across daylight saving changes.
+ */
+public final class RecurrenceRule {
+    public static final int DAY = 24 * 60; // Minutes per day
+    public static final int WEEK = 7 * DAY; // Minutes per week
+    public static final long FOREVER = Long.MAX_VALUE; // Occurrence count of an open-ended series
+    static final int MONTHLY = -1; // Repeat code of a monthly series on the Nth weekday
+    static final int MONTHLY_LAST = -2; // Repeat code of a monthly series on the last weekday
+    private static final long[] NO_EXCEPTIONS = new long[0];
+    private static final String[] ORDINALS = {"1st", "2nd", "3rd", "4th"};
+    private static final int MIN_MONTHLY_GAP = 4 * WEEK; // Shortest time between two monthly occurrences
+    private static final long MAX_MONTHLY_COUNT = 12 * 100_000L; // Keeps finite monthly series within LocalDate's range
+    private static final long GREGORIAN_CYCLE = 146_097L * DAY; // 400 years; dates and weekdays repeat after it
+    private static final long MIN_TIME = LocalDate.MIN.toEpochDay() * DAY;
+    private static final long MAX_TIME = LocalDate.MAX.toEpochDay() * DAY;
+
+    private final long firstStart; // Start of occurrence 0 in epoch minutes
+    private final int duration; // Length of each occurrence in minutes
+    private final int period; // Minutes between consecutive occurrences, or 0 for a monthly series
+    private final long count; // Number of occurrences, or FOREVER
+    private final int weekOfMonth; // Monthly: 1 to 4 for the Nth weekday of the month, -1 for the last; otherwise 0
+    private final DayOfWeek weekday; // Monthly: weekday of every occurrence; otherwise null
+    private final long firstMonth; // Monthly: month of occurrence 0, as year * 12 + month - 1
+    private final int timeOfDay; // Monthly: minutes after midnight UTC of every occurrence
+    private long[] exceptions; // Starts of cancelled occurrences, sorted; guarded by the owning room's lock
+    private int exceptionCount; // Number of cancelled occurrences
+
+    /**
+     * Create a rule.
+     * @param firstStart Start of the first occurrence in epoch minutes
+     * @param duration Length of each occurrence in minutes, at most the period
+     * @param period Minutes between occurrences
+     * @param count Number of occurrences, or FOREVER
+     */
+    public RecurrenceRule(long firstStart, int duration, int period, long count) {
+        if (period <= 0 || duration <= 0 || duration > period || count <= 0) {
+            throw new IllegalArgumentException("Need 0 < duration <= period and a positive occurrence count.");
+        }
+        this.firstStart = firstStart;
+        this.duration = duration;
+        this.period = period;
+        this.count = count;
+        this.weekOfMonth = 0;
+        this.weekday = null;
+        this.firstMonth = 0;
+        this.timeOfDay = 0;
+        this.exceptions = NO_EXCEPTIONS;
+    }
+
+    // Monthly series on the weekday of the first occurrence, in the same week of the month or the last one
+    private RecurrenceRule(long firstStart, int duration, boolean lastWeekday, long count) {
+        if (duration <= 0 || duration > MIN_MONTHLY_GAP || count <= 0 || (count != FOREVER && count > MAX_MONTHLY_COUNT)) {
+            throw new IllegalArgumentException("Need 0 < duration <= 28 days and a positive occurrence count of at most " + MAX_MONTHLY_COUNT + ".");
+        }
+        LocalDate date = LocalDate.ofEpochDay(Math.floorDiv(firstStart, (long) DAY));
+        int nth = (date.getDayOfMonth() - 1) / 7 + 1;
+        if (lastWeekday && date.plusWeeks(1).getMonth() == date.getMonth()) {
+            throw new IllegalArgumentException("The first occurrence is not on the last " + date.getDayOfWeek() + " of its month.");
+        }
+        if (!lastWeekday && nth > 4) {
+            throw new IllegalArgumentException("The first occurrence is on the 5th " + date.getDayOfWeek() + " of its month, which most months lack; repeat on the last one instead.");
+        }
+        this.firstStart = firstStart;
+        this.duration = duration;
+        this.period = 0;
+        this.count = count;
+        this.weekOfMonth = lastWeekday ? -1 : nth;
+        this.weekday = date.getDayOfWeek();
+        this.firstMonth = monthOf(firstStart);
+        this.timeOfDay = (int) Math.floorMod(firstStart, (long) DAY);
+        this.exceptions = NO_EXCEPTIONS;
+    }
+
+    // A series that repeats every day
+    public static RecurrenceRule daily(long firstStart, int duration, long count) {
+        return new RecurrenceRule(firstStart, duration, DAY, count);
+    }
+
+    // A series that repeats every N weeks on the weekday of the first occurrence
+    public static RecurrenceRule weekly(long firstStart, int duration, int everyWeeks, long count) {
+        return new RecurrenceRule(firstStart, duration, everyWeeks * WEEK, count);
+    }
+
+    /**
+     * A series that repeats every month on the weekday of the first occurrence: in the same
+     * week of the month (the first to fourth), or in the last week.
+     * @param firstStart Start of the first occurrence in epoch minutes (UTC)
+     * @param duration Length of each occurrence in minutes, at most 28 days
+     * @param lastWeekday true to repeat on the last such weekday of each month
+     * @param count Number of occurrences, or FOREVER
+     */
+    public static RecurrenceRule monthly(long firstStart, int duration, boolean lastWeekday, long count) {
+        return new RecurrenceRule(firstStart, duration, lastWeekday, count);
+    }
+
+    /**
+     * Rebuild a rule from the values stored in the journal or a snapshot.
+     * @param repeat The value returned by getRepeat()
+     */
+    static RecurrenceRule of(long firstStart, int duration, int repeat, long count) {
+        return repeat > 0 ? new RecurrenceRule(firstStart, duration, repeat, count)
+                : monthly(firstStart, duration, repeat == MONTHLY_LAST, count);
+    }
+
+    public long getFirstStart() {
+        return firstStart;
+    }
+
+    public int getDuration() {
+        return duration;
+    }
+
+    // Get the minutes between occurrences, or 0 for a monthly series
+    public int getPeriod() {
+        return period;
+    }
+
+    // Get the period in minutes, or MONTHLY / MONTHLY_LAST; together with the other getters this rebuilds the rule
+    int getRepeat() {
+        return period > 0 ? period : weekOfMonth == -1 ? MONTHLY_LAST : MONTHLY;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    // Get a copy of the starts of the cancelled occurrences, sorted; call with the owning room's lock held
+    long[] getExceptions() {
+        return Arrays.copyOf(exceptions, exceptionCount);
+    }
+
+    // Get the position of the occurrences within one period, from 0 to period - 1; 0 for a monthly series
+    long phase() {
+        return period > 0 ? Math.floorMod(firstStart, (long) period) : 0;
+    }
+
+    // Get the end of the last occurrence in epoch minutes, or FOREVER
+    public long lastEnd() {
+        return count == FOREVER ? FOREVER : startOf(count - 1) + duration;
+    }
+
+    /**
+     * Check whether a time is the start of an occurrence that has not been cancelled.
+     * @param start Time in epoch minutes
+     * @return true if an occurrence starts there
+     */
+    public boolean isOccurrence(long start) {
+        return isScheduled(start) && !isException(start);
+    }
+
+    /**
+     * Check whether a time is the start of an occurrence, cancelled or not.
+     * @param start Time in epoch minutes
+     * @return true if the series has an occurrence starting there
+     */
+    public boolean isScheduled(long start) {
+        if (period == 0) {
+            long k = monthOf(start) - firstMonth;
+            return k >= 0 && k < count && startOf(k) == start;
+        }
+        long offset = start - firstStart;
+        return offset >= 0 && offset % period == 0 && offset / period < count;
+    }
+
+    /**
+     * Check whether any remaining occurrence overlaps the interval [start, end).
+     * Only the occurrences inside the interval are considered, and they are counted, not listed.
+     * @param start Start of the interval in epoch minutes
+     * @param end End of the interval in epoch minutes (exclusive)
+     * @return true if an occurrence overlaps
+     */
+    public boolean overlaps(long start, long end) {
+        return overlaps(start, end, true);
+    }
+
+    private boolean overlaps(long start, long end, boolean withExceptions) {
+        if (end <= start) {
+            return false;
+        }
+        long first = firstIndex(start);
+        long last = lastIndex(end);
+        if (first > last) {
+            return false;
+        }
+        if (period > 0) { // Every occurrence from first to last overlaps
+            long cancelled = withExceptions ? exceptionsBetween(startOf(first), startOf(last)) : 0;
+            return last - first + 1 > cancelled;
+        }
+        for (long k = first; k <= last; k++) {
+            long occurrence = startOf(k);
+            if (occurrence < end && occurrence + duration > start && !(withExceptions && isException(occurrence))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check whether any remaining occurrence of this rule overlaps one of another rule.
+     * If the two periods can never line up the answer comes from their phases alone;
+     * otherwise the occurrences of the shorter series in the common time range are checked.
+     * @param other Another rule
+     * @return true if the two series collide at least once
+     */
+    public boolean overlaps(RecurrenceRule other) {
+        if (period == 0 || other.period == 0) {
+            return overlapsMonthly(other);
+        }
+        long gcd = gcd(period, other.period);
+        // Occurrence starts of other minus those of this take exactly the values firstDelta + m * gcd
+        long residue = Math.floorMod(other.firstStart - firstStart, gcd);
+        boolean phasesCollide = residue < duration || gcd - residue < other.duration;
+        if (!phasesCollide) {
+            return false;
+        }
+        if (count == FOREVER && other.count == FOREVER) {
+            return true; // Collisions repeat forever, and only finitely many occurrences can be cancelled
+        }
+        long from = Math.max(firstStart, other.firstStart);
+        long to = Math.min(lastEnd(), other.lastEnd());
+        if (from >= to) {
+            return false;
+        }
+        RecurrenceRule shorter = count <= other.count ? this : other;
+        RecurrenceRule longer = shorter == this ? other : this;
+        boolean[] found = new boolean[1];
+        shorter.forEachOccurrence(from, to, occurrence -> {
+            if (!found[0] && longer.overlaps(occurrence, occurrence + shorter.duration)) {
+                found[0] = true;
+            }
+        });
+        return found[0];
+    }
+
+    /**
+     * Generate the starts of the remaining occurrences that overlap [from, to), in order.
+     * Nothing is materialized; occurrences outside the window are never visited.
+     * @param from Start of the window in epoch minutes
+     * @param to End of the window in epoch minutes (exclusive)
+     * @param action Receives the start of each occurrence
+     */
+    public void forEachOccurrence(long from, long to, LongConsumer action) {
+        long first = firstIndex(from);
+        long last = lastIndex(to);
+        if (first > last) {
+            return;
+        }
+        int exception = lowerBound(startOf(first));
+        for (long k = first; k <= last; k++) {
+            long start = startOf(k);
+            if (start >= to || start + duration <= from) {
+                continue; // Only a monthly series can have a candidate just outside the window
+            }
+            while (exception < exceptionCount && exceptions[exception] < start) {
+                exception++;
+            }
+            if (exception < exceptionCount && exceptions[exception] == start) {
+                continue;
+            }
+            action.accept(start);
+        }
+    }
+
+    /**
+     * Cancel one occurrence of the series. Call with the owning room's lock held.
+     * @param start Start of the occurrence in epoch minutes
+     * @return true if it was a remaining occurrence
+     */
+    boolean addException(long start) {
+        if (!isOccurrence(start)) {
+            return false;
+        }
+        int index = lowerBound(start);
+        if (exceptionCount == exceptions.length) {
+            exceptions = Arrays.copyOf(exceptions, Math.max(4, exceptionCount * 2));
+        }
+        System.arraycopy(exceptions, index, exceptions, index + 1, exceptionCount - index);
+        exceptions[index] = start;
+        exceptionCount++;
+        return true;
+    }
+
+    /**
+     * Restore a cancelled occurrence. Call with the owning room's lock held.
+     * @param start Start of the occurrence in epoch minutes
+     * @return true if the occurrence had been cancelled
+     */
+    boolean removeException(long start) {
+        if (!isException(start)) {
+            return false;
+        }
+        int index = lowerBound(start);
+        System.arraycopy(exceptions, index + 1, exceptions, index, exceptionCount - index - 1);
+        exceptionCount--;
+        return true;
+    }
+
+    /**
+     * Collision check when at least one of the series is monthly. A monthly series repeats
+     * with the 400-year Gregorian cycle, so two open-ended series collide forever if they
+     * collide at all within the least common multiple of their cycles.
+     */
+    private boolean overlapsMonthly(RecurrenceRule other) {
+        RecurrenceRule monthly = period == 0 ? this : other;
+        RecurrenceRule second = monthly == this ? other : this;
+        long from = Math.max(firstStart, other.firstStart);
+        boolean endless = count == FOREVER && other.count == FOREVER;
+        long to = endless ? from + lcm(GREGORIAN_CYCLE, second.period == 0 ? GREGORIAN_CYCLE : second.period)
+                : Math.min(lastEnd(), other.lastEnd());
+        if (from >= to) {
+            return false;
+        }
+        // Only finitely many occurrences can be cancelled, so endless collisions ignore the exceptions
+        long last = monthly.lastIndex(to);
+        for (long k = monthly.firstIndex(from); k <= last; k++) {
+            long start = monthly.startOf(k);
+            if ((endless || !monthly.isException(start)) && second.overlaps(start, start + monthly.duration, !endless)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Get the start of occurrence k in epoch minutes
+    private long startOf(long k) {
+        if (period > 0) {
+            return firstStart + k * period;
+        }
+        long month = firstMonth + k;
+        LocalDate date = LocalDate.of((int) Math.floorDiv(month, 12L), (int) Math.floorMod(month, 12L) + 1, 1)
+                .with(TemporalAdjusters.dayOfWeekInMonth(weekOfMonth, weekday));
+        return date.toEpochDay() * DAY + timeOfDay;
+    }
+
+    // Index of the first occurrence that can overlap an interval starting at the given time, at least 0
+    private long firstIndex(long from) {
+        if (period == 0) { // An occurrence ending after from starts in the month of from - duration or later
+            return Math.max(0, monthOf(from - duration) - firstMonth);
+        }
+        // Occurrence k overlaps iff firstStart + k * period < end and firstStart + k * period + duration > start
+        return Math.max(0, Math.floorDiv(from - duration - firstStart, (long) period) + 1);
+    }
+
+    // Index of the last occurrence that can overlap an interval ending (exclusive) at the given time, at most count - 1
+    private long lastIndex(long to) {
+        if (period == 0) {
+            return Math.min(count - 1, monthOf(to - 1) - firstMonth);
+        }
+        return Math.min(count - 1, Math.floorDiv(to - 1 - firstStart, (long) period));
+    }
+
+    // Get the month of a time, as year * 12 + month - 1; times outside LocalDate's range are clamped
+    private static long monthOf(long epochMinutes) {
+        long clamped = Math.max(MIN_TIME, Math.min(MAX_TIME, epochMinutes));
+        LocalDate date = LocalDate.ofEpochDay(Math.floorDiv(clamped, (long) DAY));
+        return date.getYear() * 12L + date.getMonthValue() - 1;
+    }
+
+    private boolean isException(long start) {
+        int index = lowerBound(start);
+        return index < exceptionCount && exceptions[index] == start;
+    }
+
+    // Count the cancelled occurrences starting within [from, to]
+    private long exceptionsBetween(long from, long to) {
+        return exceptionCount == 0 ? 0 : lowerBound(to + 1) - lowerBound(from);
+    }
+
+    // Index of the first exception at or after the given time
+    private int lowerBound(long time) {
+        int low = 0;
+        int high = exceptionCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (exceptions[mid] < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static long lcm(long a, long b) {
+        return Math.multiplyExact(a / gcd(a, b), b);
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    @Override
+    public String toString() {
+        String every = period == 0 ? "monthly on the " + (weekOfMonth == -1 ? "last" : ORDINALS[weekOfMonth - 1]) + " " + weekday
+                : period == DAY ? "daily" : period % WEEK == 0 ? "every " + period / WEEK + " week(s)" : "every " + period + " minutes";
+        return every + " from " + TimeParser.format(firstStart) + " for " + duration + " minutes"
+                + (count == FOREVER ? "" : ", " + count + " times");
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * RecurringBookingCommand books a whole series of occurrences in one room.
+ * The series is checked and booked atomically, and undo cancels the whole series.
+ */
+public class RecurringBookingCommand implements RoomCommand {
+    private Room room;
+    private RecurrenceRule rule;
+    private boolean applied;
+
+    public RecurringBookingCommand(Room room, RecurrenceRule rule) {
+        this.room = room;
+        this.rule = rule;
+    }
+
+    /**
+     * Parse a CLI repeat pattern into a rule.
+     * @param start Start of the first occurrence in epoch minutes
+     * @param duration Duration of each occurrence in minutes
+     * @param pattern "daily", "weekly", "[N]weeks" for every N weeks, "monthly" for the same weekday
+     *                in the same week of every month (e.g. the 2nd Tuesday), or "monthly-last" for the
+     *                last such weekday of every month
+     * @param occurrences Number of occurrences, or 0 for no end
+     * @return The rule
+     * @throws IllegalArgumentException if the pattern is not recognised
+     */
+    public static RecurrenceRule parseRule(long start, int duration, String pattern, long occurrences) {
+        long count = occurrences > 0 ? occurrences : RecurrenceRule.FOREVER;
+        String lower = pattern.toLowerCase();
+        if (lower.equals("daily")) {
+            return RecurrenceRule.daily(start, duration, count);
+        }
+        if (lower.equals("weekly")) {
+            return RecurrenceRule.weekly(start, duration, 1, count);
+        }
+        if (lower.equals("monthly") || lower.equals("monthly-last")) {
+            return RecurrenceRule.monthly(start, duration, lower.equals("monthly-last"), count);
+        }
+        if (lower.endsWith("weeks")) {
+            return RecurrenceRule.weekly(start, duration, Integer.parseInt(lower.substring(0, lower.length() - 5)), count);
+        }
+        throw new IllegalArgumentException("Unknown repeat pattern " + pattern);
+    }
+
+    @Override
+    public void execute() {
+        if (apply()) {
+            System.out.println("Room " + room.getRoomId() + " booked " + rule + ".");
+        } else {
+            System.out.println("Room " + room.getRoomId() + " is already booked during one of these times. Cannot book.");
+        }
+    }
+
+    @Override
+    public boolean apply() {
+        applied = room.tryBookRecurring(rule);
+        return applied;
+    }
+
+    @Override
+    public void undo() {
+        if (applied) {
+            room.cancelRecurring(rule);
+            applied = false;
+        }
+    }
+
+    @Override
+    public boolean isApplied() {
+        return applied;
+    }
+
+    @Override
+    public Room getRoom() {
+        return room;
+    }
+}
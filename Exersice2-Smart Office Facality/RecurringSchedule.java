@@ -0,0 +1,196 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * RecurringSchedule holds the recurring bookings (RecurrenceRules) of a single room.
+ * Rules are grouped by period, and within a group sorted by phase, the position of the
+ * occurrences inside one period. A conflict check therefore binary-searches each group for
+ * the few rules whose phase can reach the queried interval and tests only those, instead of
+ * testing every rule or expanding any series. Monthly rules have no fixed period; they share
+ * one group (period 0) that is always tested in full.
+ * Instances are guarded by the owning Room's lock.
+ */
+public class RecurringSchedule {
+    private final List<Group> groups = new ArrayList<>(2); // One per distinct period; rarely more than a few
+
+    // Rules sharing a period, sorted by phase
+    private static final class Group {
+        final int period;
+        RecurrenceRule[] rules = new RecurrenceRule[4];
+        long[] phases = new long[4];
+        int size;
+        int maxDuration; // Longest occurrence in the group; bounds how far back a phase can reach
+
+        Group(int period) {
+            this.period = period;
+        }
+
+        void add(RecurrenceRule rule) {
+            if (size == rules.length) {
+                rules = Arrays.copyOf(rules, size * 2);
+                phases = Arrays.copyOf(phases, size * 2);
+            }
+            long phase = rule.phase();
+            int index = firstPhaseAbove(phase);
+            System.arraycopy(rules, index, rules, index + 1, size - index);
+            System.arraycopy(phases, index, phases, index + 1, size - index);
+            rules[index] = rule;
+            phases[index] = phase;
+            size++;
+            maxDuration = Math.max(maxDuration, rule.getDuration());
+        }
+
+        boolean remove(RecurrenceRule rule) {
+            for (int i = 0; i < size; i++) {
+                if (rules[i] == rule) {
+                    System.arraycopy(rules, i + 1, rules, i, size - i - 1);
+                    System.arraycopy(phases, i + 1, phases, i, size - i - 1);
+                    rules[--size] = null;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean overlaps(long start, long end) {
+            long reach = end - start + maxDuration; // Phases within (start - maxDuration, end) can overlap
+            if (reach >= period) {
+                return anyOverlaps(0, size, start, end);
+            }
+            long from = Math.floorMod(start - maxDuration, (long) period);
+            long to = from + reach;
+            if (to <= period) {
+                return anyOverlaps(firstPhaseAbove(from), firstPhaseAbove(to - 1), start, end);
+            }
+            // The candidate phases wrap around the end of the period
+            return anyOverlaps(firstPhaseAbove(from), size, start, end)
+                    || anyOverlaps(0, firstPhaseAbove(to - period - 1), start, end);
+        }
+
+        private boolean anyOverlaps(int fromIndex, int toIndex, long start, long end) {
+            for (int i = fromIndex; i < toIndex; i++) {
+                if (rules[i].overlaps(start, end)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // Index of the first rule whose phase is greater than the given one
+        private int firstPhaseAbove(long phase) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (phases[mid] <= phase) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    /**
+     * Check whether any recurring booking overlaps the interval [start, end).
+     * @param start Start of the interval in epoch minutes
+     * @param end End of the interval in epoch minutes (exclusive)
+     * @return true if an occurrence overlaps
+     */
+    public boolean overlaps(long start, long end) {
+        for (Group group : groups) {
+            if (group.overlaps(start, end)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check whether a new rule collides with any rule already in the schedule.
+     * @param rule Candidate rule
+     * @return true if some occurrences would overlap
+     */
+    public boolean overlaps(RecurrenceRule rule) {
+        for (Group group : groups) {
+            for (int i = 0; i < group.size; i++) {
+                if (group.rules[i].overlaps(rule)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Add a rule; the caller checks for conflicts first
+    public void add(RecurrenceRule rule) {
+        for (Group group : groups) {
+            if (group.period == rule.getPeriod()) {
+                group.add(rule);
+                return;
+            }
+        }
+        Group group = new Group(rule.getPeriod());
+        group.add(rule);
+        groups.add(group);
+    }
+
+    // Remove a rule; returns false if it is not in the schedule
+    public boolean remove(RecurrenceRule rule) {
+        for (Group group : groups) {
+            if (group.period == rule.getPeriod() && group.remove(rule)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Find the rule with an occurrence, cancelled or not, starting at the given time.
+     * Rules of one room never overlap, so there is at most one.
+     * @param occurrenceStart Start of the occurrence in epoch minutes
+     * @return The rule, or null if no series has an occurrence there
+     */
+    public RecurrenceRule find(long occurrenceStart) {
+        for (Group group : groups) {
+            for (int i = 0; i < group.size; i++) {
+                if (group.rules[i].isScheduled(occurrenceStart)) {
+                    return group.rules[i];
+                }
+            }
+        }
+        return null;
+    }
+
+    // Check if the schedule holds a rule
+    public boolean contains(RecurrenceRule rule) {
+        for (Group group : groups) {
+            for (int i = 0; i < group.size; i++) {
+                if (group.rules[i] == rule) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Get the number of rules in the schedule
+    public int size() {
+        int size = 0;
+        for (Group group : groups) {
+            size += group.size;
+        }
+        return size;
+    }
+
+    // Get a copy of every rule in the schedule
+    public List<RecurrenceRule> getRules() {
+        List<RecurrenceRule> rules = new ArrayList<>(size());
+        for (Group group : groups) {
+            rules.addAll(Arrays.asList(group.rules).subList(0, group.size));
+        }
+        return rules;
+    }
+}
@@ -0,0 +1,208 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * RemoteShard is the client side of a shard served by ShardServer in another process.
+ * Requests are pipelined over one socket: each carries an ID, is written without waiting
+ * for earlier answers, and its future is completed by a reader thread when the answer arrives.
+ * A request that gets no answer within the timeout fails with a TimeoutException, and once the
+ * connection is lost every pending and later request fails with the connection's IOException.
+ *
+ * Request: id (long), op (byte), roomId or minCapacity (int), value (int), time (long).
+ * Response: id (long), result (byte), then roomId, capacity, occupants, bookings (ints) for RESULT_ROOM.
+ */
+public class RemoteShard implements Shard {
+    // Operations
+    static final byte ADD_ROOM = 1;
+    static final byte SET_CAPACITY = 2;
+    static final byte SET_OCCUPANCY = 3;
+    static final byte BOOK = 4;
+    static final byte CANCEL = 5;
+    static final byte GET_ROOM = 6;
+    static final byte FIND_FREE = 7;
+
+    // Results
+    static final byte RESULT_FALSE = 0;
+    static final byte RESULT_TRUE = 1;
+    static final byte RESULT_NO_ROOM = 2;
+    static final byte RESULT_ROOM = 3;
+    static final byte RESULT_ERROR = 4;
+
+    private static final long DEFAULT_TIMEOUT_MILLIS = 10_000;
+
+    // Fails requests that were not answered in time; shared by all connections
+    private static final ScheduledThreadPoolExecutor TIMEOUTS = new ScheduledThreadPoolExecutor(1, runnable -> {
+        Thread thread = new Thread(runnable, "remote-shard-timeouts");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        TIMEOUTS.setRemoveOnCancelPolicy(true); // Answered requests don't leave their timeout task behind
+    }
+
+    private final Socket socket;
+    private final DataOutputStream out;
+    private final DataInputStream in;
+    private final AtomicLong nextId = new AtomicLong();
+    private final Map<Long, CompletableFuture<Object>> pending = new ConcurrentHashMap<>(); // Requests awaiting an answer
+    private final long timeoutMillis;
+    private volatile IOException closed; // Why the connection ended, or null while it is open
+
+    /**
+     * Connect to a shard server with the default request timeout of 10 seconds.
+     * @param host Server host, normally the loopback address
+     * @param port Server port
+     * @throws IOException if the connection fails
+     */
+    public RemoteShard(String host, int port) throws IOException {
+        this(host, port, DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Connect to a shard server.
+     * @param host Server host, normally the loopback address
+     * @param port Server port
+     * @param timeoutMillis How long a request may wait for its answer
+     * @throws IOException if the connection fails
+     */
+    public RemoteShard(String host, int port, long timeoutMillis) throws IOException {
+        if (timeoutMillis <= 0) {
+            throw new IllegalArgumentException("Timeout must be positive.");
+        }
+        this.timeoutMillis = timeoutMillis;
+        this.socket = new Socket(host, port);
+        socket.setTcpNoDelay(true);
+        this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 14));
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 14));
+        Thread reader = new Thread(this::readResponses, "remote-shard-" + host + ":" + port);
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    @Override
+    public CompletableFuture<Boolean> addRoom(int roomId, int capacity) {
+        return send(ADD_ROOM, roomId, capacity, 0).thenApply(Boolean.class::cast);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> setCapacity(int roomId, int capacity) {
+        return send(SET_CAPACITY, roomId, capacity, 0).thenApply(Boolean.class::cast);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> setOccupancy(int roomId, int occupants) {
+        return send(SET_OCCUPANCY, roomId, occupants, 0).thenApply(Boolean.class::cast);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> tryBook(int roomId, long start, int duration) {
+        return send(BOOK, roomId, duration, start).thenApply(Boolean.class::cast);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> cancelBooking(int roomId, long start) {
+        return send(CANCEL, roomId, 0, start).thenApply(Boolean.class::cast);
+    }
+
+    @Override
+    public CompletableFuture<RoomInfo> getRoom(int roomId) {
+        return send(GET_ROOM, roomId, 0, 0).thenApply(RoomInfo.class::cast);
+    }
+
+    @Override
+    public CompletableFuture<RoomInfo> findFreeRoom(int minCapacity, long start, int duration) {
+        return send(FIND_FREE, minCapacity, duration, start).thenApply(RoomInfo.class::cast);
+    }
+
+    @Override
+    public void close() {
+        if (closed == null) {
+            closed = new IOException("Shard connection is closed.");
+        }
+        try {
+            socket.close(); // Also ends the reader thread, which fails the pending requests
+        } catch (IOException e) {
+            System.out.println("RemoteShard: close failed: " + e.getMessage());
+        }
+    }
+
+    private CompletableFuture<Object> send(byte op, int roomId, int value, long time) {
+        long id = nextId.incrementAndGet();
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        pending.put(id, future);
+        // The reader sets closed before failing what is pending, so a request added after that is failed here
+        IOException failure = closed;
+        if (failure != null) {
+            pending.remove(id);
+            future.completeExceptionally(failure);
+            return future;
+        }
+        ScheduledFuture<?> timeout = TIMEOUTS.schedule(() -> {
+            if (pending.remove(id, future)) {
+                future.completeExceptionally(new TimeoutException("Shard request " + id + " got no answer in " + timeoutMillis + " ms."));
+            }
+        }, timeoutMillis, TimeUnit.MILLISECONDS);
+        future.whenComplete((result, error) -> timeout.cancel(false));
+        try {
+            synchronized (out) {
+                out.writeLong(id);
+                out.writeByte(op);
+                out.writeInt(roomId);
+                out.writeInt(value);
+                out.writeLong(time);
+                out.flush();
+            }
+        } catch (IOException e) {
+            pending.remove(id);
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private void readResponses() {
+        try {
+            while (true) {
+                long id = in.readLong();
+                byte result = in.readByte();
+                Object value;
+                if (result == RESULT_ROOM) {
+                    value = new RoomInfo(in.readInt(), in.readInt(), in.readInt(), in.readInt());
+                } else {
+                    value = result == RESULT_TRUE ? Boolean.TRUE : result == RESULT_FALSE ? Boolean.FALSE : null;
+                }
+                CompletableFuture<Object> future = pending.remove(id);
+                if (future == null) {
+                    continue;
+                }
+                if (result == RESULT_ERROR) {
+                    future.completeExceptionally(new IllegalStateException("Shard request " + id + " failed on the server."));
+                } else {
+                    future.complete(value);
+                }
+            }
+        } catch (IOException e) {
+            if (closed == null) {
+                closed = e;
+            }
+            for (Long id : pending.keySet()) {
+                CompletableFuture<Object> future = pending.remove(id);
+                if (future != null) {
+                    future.completeExceptionally(closed);
+                }
+            }
+        }
+    }
+}
@@ -1,20 +1,28 @@
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Room class represents a meeting room in the office.
  * It tracks occupancy, capacity, booking statistics, and observers.
+ * Every mutation synchronizes on the room itself, so each room is its own lock
+ * and a check-and-book is atomic without serializing unrelated rooms.
  */
 public class Room {
     private int roomId; // Unique identifier for the room
-    private int capacity; // Maximum capacity of the room
-    private int occupants; // Current number of occupants in the room
-    private List<Observer> observers; // List of observers to notify on changes
-    private String startTime; // Start time of the current booking
-    private int duration; // Duration of the current booking
-    private long lastUnoccupiedTime; // Timestamp when the room was last unoccupied
-    private int totalBookings; // To track total bookings (including occupants)
-    private long totalOccupiedTime; // To track total occupied time
+    private volatile int capacity; // Maximum capacity of the room
+    private volatile int occupants; // Current number of occupants in the room
+    private CopyOnWriteArrayList<Observer> observers; // List of observers to notify on changes
+    private BookingCalendar calendar; // All bookings of the room, sorted by start time
+    private volatile long lastUnoccupiedTime; // Timestamp when the room was last unoccupied
+    private volatile int totalBookings; // To track total bookings (including occupants)
+    private volatile long totalOccupiedTime; // To track total occupied time of completed occupancies
+    private volatile long occupiedSince; // Timestamp when the current occupancy started
+    private RoomStatistics statistics; // Rolling window and histograms, updated on every occupancy change
+    private OfficeConfiguration configuration; // Configuration indexing this room by capacity, if any
+    private volatile OccupancyEventBus eventBus; // Asynchronous dispatcher for observers, or null for synchronous delivery
+    private volatile BookingJournal journal; // Write-ahead log receiving every change, or null
+    private CopyOnWriteArrayList<BookingListener> bookingListeners; // Notified when bookings are added or removed
+    private RecurringSchedule recurring; // Recurring bookings, or null until the first one
+    private volatile long version; // Incremented on every change to capacity, occupancy or usage counters
 
     /**
      * Constructor to initialize the room with an ID and capacity.
@@ -25,12 +33,13 @@ public class Room {
         this.roomId = roomId;
         this.capacity = capacity;
         this.occupants = 0; 
-        this.observers = new ArrayList<>();
-        this.startTime = null; 
-        this.duration = 0; 
+        this.observers = new CopyOnWriteArrayList<>(); // Safe to iterate while observers are added
+        this.calendar = new BookingCalendar();
+        this.bookingListeners = new CopyOnWriteArrayList<>();
         this.lastUnoccupiedTime = System.currentTimeMillis(); 
         this.totalBookings = 0; // Initialize total bookings
         this.totalOccupiedTime = 0; // Initialize total occupied time
+        this.statistics = new RoomStatistics(lastUnoccupiedTime);
     }
 
     // Getter for room ID
@@ -39,8 +48,14 @@ public class Room {
     }
 
     // Setter for room capacity
-    public void setCapacity(int capacity) {
+    public synchronized void setCapacity(int capacity) {
+        int oldCapacity = this.capacity;
         this.capacity = capacity;
+        version++;
+        if (configuration != null && oldCapacity != capacity) {
+            configuration.capacityChanged(this, oldCapacity, capacity); // Keep the capacity index in sync
+        }
+        journal(BookingJournal.CAPACITY, 0, capacity);
     }
 
     // Getter for room capacity
@@ -53,18 +68,60 @@ public class Room {
      * @param occupants New number of occupants in the room
      */
     public void setOccupancy(int occupants) {
-        if (this.occupants != occupants) {
-            if (occupants > 0) {
-                // Room is being occupied, count this as a booking
-                totalOccupiedTime += System.currentTimeMillis() - lastUnoccupiedTime; // Update occupied time
+        setOccupancy(occupants, System.currentTimeMillis());
+    }
+
+    /**
+     * Set the occupancy of the room as observed at the given time and notify observers.
+     * The change is made under the room's lock and observers are notified after it is
+     * released, so an event bus that blocks on a full buffer does not hold up the room.
+     * @param occupants New number of occupants in the room
+     * @param timestamp Time of the reading in epoch milliseconds
+     */
+    public void setOccupancy(int occupants, long timestamp) {
+        if (changeOccupancy(occupants, timestamp, true)) {
+            notifyObservers(); // Notify observers of the change
+        }
+    }
+
+    /**
+     * Put back the occupancy removed by a cancellation that is being undone.
+     * Unlike setOccupancy, the room becoming occupied again is not counted as another booking.
+     * @param occupants Number of occupants to restore
+     * @param timestamp Time of the change in epoch milliseconds
+     */
+    public void reoccupy(int occupants, long timestamp) {
+        if (changeOccupancy(occupants, timestamp, false)) {
+            notifyObservers();
+        }
+    }
+
+    // Record an occupancy change; returns false if the occupancy was already the same
+    private synchronized boolean changeOccupancy(int occupants, long timestamp, boolean counted) {
+        if (this.occupants == occupants) {
+            return false;
+        }
+        if (occupants > 0 && this.occupants == 0) {
+            // Room is being occupied, count this as a booking
+            occupiedSince = timestamp;
+            if (counted) {
                 totalBookings++; // Increment total bookings when adding occupants
-            } else {
-                // Room is being unoccupied
-                lastUnoccupiedTime = System.currentTimeMillis(); // Update unoccupied time
             }
-            this.occupants = occupants; // Update the number of occupants
-            notifyObservers(); // Notify observers of the change
+        } else if (occupants == 0) {
+            // Room is being unoccupied
+            totalOccupiedTime += timestamp - occupiedSince; // Update occupied time
+            lastUnoccupiedTime = timestamp; // Update unoccupied time
         }
+        statistics.recordOccupancy(occupants, timestamp); // Constant-time rolling window and histogram update
+        this.occupants = occupants; // Update the number of occupants
+        version++;
+        journal(counted ? BookingJournal.OCCUPANCY : BookingJournal.REOCCUPY, timestamp, occupants);
+        return true;
+    }
+
+    // Get the current number of occupants in the room
+    public int getOccupants() {
+        return occupants;
     }
 
     // Check if the room is currently occupied
@@ -82,13 +139,38 @@ public class Room {
      * @param observer Observer to be added
      */
     public void addObserver(Observer observer) {
-        if (!observers.contains(observer)) {
-            observers.add(observer);
+        observers.addIfAbsent(observer);
+    }
+
+    /**
+     * Route observer notifications through an event bus instead of calling them inline.
+     * @param eventBus Event bus to publish to, or null to notify observers synchronously
+     */
+    public void setEventBus(OccupancyEventBus eventBus) {
+        this.eventBus = eventBus;
+    }
+
+    /**
+     * Add a listener to be told about bookings being added or removed.
+     * Listeners run with the room lock held, so they must be quick.
+     * @param listener Listener to be added
+     */
+    public void addBookingListener(BookingListener listener) {
+        bookingListeners.addIfAbsent(listener);
+    }
+
+    // Notify all observers of changes, asynchronously when an event bus is attached; call without the room's lock
+    void notifyObservers() {
+        OccupancyEventBus bus = eventBus;
+        if (bus != null) {
+            bus.publish(this);
+        } else {
+            deliverToObservers();
         }
     }
 
-    // Notify all observers of changes
-    private void notifyObservers() {
+    // Call every observer with the current state of the room
+    void deliverToObservers() {
         for (Observer observer : observers) {
             observer.update(this);
         }
@@ -96,29 +178,329 @@ public class Room {
 
     /**
      * Book the room for a specified duration.
-     * @param startTime Start time of the booking
+     * @param start Start of the booking in epoch minutes
      * @param duration Duration of the booking in minutes
+     * @return true if the room was booked; false if the slot overlaps an existing booking
      */
-    public void book(String startTime, int duration) {
-        this.startTime = startTime;
-        this.duration = duration;
+    public boolean book(long start, int duration) {
+        if (!tryBook(start, duration)) {
+            return false;
+        }
+        System.out.println("Room " + roomId + " booked from " + TimeParser.formatTime(start) + " for " + duration + " minutes.");
+        return true;
+    }
+
+    /**
+     * Atomically check the slot and book it if it is free.
+     * @param start Start of the booking in epoch minutes
+     * @param duration Duration of the booking in minutes
+     * @return true if the room was booked; false if the slot overlaps an existing booking
+     */
+    public synchronized boolean tryBook(long start, int duration) {
+        if (recurring != null && recurring.overlaps(start, start + duration)) {
+            return false;
+        }
+        if (!calendar.add(start, duration)) {
+            return false;
+        }
         totalBookings++; // Increment total bookings when room is booked
-        System.out.println("Room " + roomId + " booked from " + startTime + " for " + duration + " minutes.");
+        version++;
+        journal(BookingJournal.BOOK, start, duration);
+        for (BookingListener listener : bookingListeners) {
+            listener.bookingAdded(this, start, duration);
+        }
+        return true;
     }
 
-    // Cancel the current booking and reset occupancy
-    public void cancelBooking() {
-        this.startTime = null;
-        this.duration = 0;
-        if (occupants > 0) {
-            setOccupancy(0); // Reset occupancy to 0 when booking is canceled
+    /**
+     * Put back a booking removed by a cancellation that is being undone.
+     * Unlike tryBook, the booking is not counted again.
+     * @param start Start of the booking in epoch minutes
+     * @param duration Duration of the booking in minutes
+     * @return true if the booking was restored; false if its slot has been taken since
+     */
+    public synchronized boolean rebook(long start, int duration) {
+        if (recurring != null && recurring.overlaps(start, start + duration)) {
+            return false;
+        }
+        if (!calendar.add(start, duration)) {
+            return false;
+        }
+        version++;
+        journal(BookingJournal.REBOOK, start, duration);
+        for (BookingListener listener : bookingListeners) {
+            listener.bookingAdded(this, start, duration);
+        }
+        return true;
+    }
+
+    /**
+     * Check if the room is free for the given time slot.
+     * @param start Start of the slot in epoch minutes
+     * @param duration Duration of the slot in minutes
+     * @return true if no existing booking overlaps the slot
+     */
+    public synchronized boolean isAvailable(long start, int duration) {
+        return !calendar.overlaps(start, duration) && (recurring == null || !recurring.overlaps(start, start + duration));
+    }
+
+    /**
+     * Atomically add a recurring booking if none of its occurrences conflicts with a
+     * single booking or another recurring booking of this room.
+     * @param rule The series to book
+     * @return true if the series was booked
+     */
+    public synchronized boolean tryBookRecurring(RecurrenceRule rule) {
+        if (recurring != null && (recurring.contains(rule) || recurring.overlaps(rule))) {
+            return false;
+        }
+        for (int i = 0; i < calendar.size(); i++) {
+            if (rule.overlaps(calendar.startAt(i), calendar.endAt(i))) {
+                return false;
+            }
+        }
+        if (recurring == null) {
+            recurring = new RecurringSchedule();
+        }
+        recurring.add(rule);
+        totalBookings++;
+        version++;
+        BookingJournal current = journal;
+        if (current != null) {
+            current.appendRecurring(roomId, rule);
+        }
+        return true;
+    }
+
+    /**
+     * Cancel a whole recurring booking.
+     * @param rule The series to cancel
+     * @return true if the series was booked in this room
+     */
+    public synchronized boolean cancelRecurring(RecurrenceRule rule) {
+        if (recurring == null || !recurring.remove(rule)) {
+            return false;
+        }
+        journal(BookingJournal.CANCEL_RECURRING, rule.getFirstStart(), 0); // Rules of a room never share a first start
+        return true;
+    }
+
+    /**
+     * Cancel a single occurrence of a recurring booking, freeing its slot.
+     * @param rule The series
+     * @param occurrenceStart Start of the occurrence in epoch minutes
+     * @return true if the occurrence was cancelled
+     */
+    public synchronized boolean skipOccurrence(RecurrenceRule rule, long occurrenceStart) {
+        if (recurring == null || !recurring.contains(rule) || !rule.addException(occurrenceStart)) {
+            return false;
+        }
+        journal(BookingJournal.SKIP, occurrenceStart, 0);
+        return true;
+    }
+
+    /**
+     * Cancel a single occurrence of whichever recurring booking has one at the given time.
+     * @param occurrenceStart Start of the occurrence in epoch minutes
+     * @return true if the occurrence was cancelled
+     */
+    public synchronized boolean skipOccurrence(long occurrenceStart) {
+        RecurrenceRule rule = findRecurring(occurrenceStart);
+        return rule != null && skipOccurrence(rule, occurrenceStart);
+    }
+
+    /**
+     * Restore a cancelled occurrence, if its slot is still free.
+     * @param rule The series
+     * @param occurrenceStart Start of the occurrence in epoch minutes
+     * @return true if the occurrence was restored
+     */
+    public synchronized boolean restoreOccurrence(RecurrenceRule rule, long occurrenceStart) {
+        if (recurring == null || !recurring.contains(rule)) {
+            return false;
+        }
+        // The skipped occurrence itself does not count, so this only finds other bookings
+        if (calendar.overlaps(occurrenceStart, rule.getDuration())
+                || recurring.overlaps(occurrenceStart, occurrenceStart + rule.getDuration())) {
+            return false;
+        }
+        if (!rule.removeException(occurrenceStart)) {
+            return false;
+        }
+        journal(BookingJournal.UNSKIP, occurrenceStart, 0);
+        return true;
+    }
+
+    /**
+     * Restore a cancelled occurrence of whichever recurring booking has one at the given time.
+     * @param occurrenceStart Start of the occurrence in epoch minutes
+     * @return true if the occurrence was restored
+     */
+    public synchronized boolean restoreOccurrence(long occurrenceStart) {
+        RecurrenceRule rule = findRecurring(occurrenceStart);
+        return rule != null && restoreOccurrence(rule, occurrenceStart);
+    }
+
+    // Find the recurring booking with an occurrence (cancelled or not) at the given time, or null
+    public synchronized RecurrenceRule findRecurring(long occurrenceStart) {
+        return recurring == null ? null : recurring.find(occurrenceStart);
+    }
+
+    // Get the recurring bookings of the room, or null if it never had one; call with the room's lock held
+    public RecurringSchedule getRecurringSchedule() {
+        return recurring;
+    }
+
+    /**
+     * Cancel all bookings and reset occupancy.
+     * @return true if the room had a booking or occupants; false if there was nothing to cancel
+     */
+    public boolean cancelBooking() {
+        int cleared = clearBookings();
+        if (cleared < 0) {
+            return false;
+        }
+        if (cleared > 0) {
+            notifyObservers();
         }
         System.out.println("Booking for Room " + roomId + " cancelled successfully.");
+        return true;
     }
 
-    // Check if the room is currently booked
-    public boolean isBooked() {
-        return this.startTime != null || occupants > 0; // Either booked or occupied by people
+    /**
+     * Remove all bookings and reset occupancy without printing or notifying observers.
+     * If occupants were removed, the caller notifies observers with notifyObservers() once it
+     * holds no locks, so an event bus that blocks on a full buffer does not hold up the room.
+     * @return Number of occupants removed, or -1 if the room had no booking or occupants
+     */
+    public synchronized int clearBookings() {
+        if (!isBooked()) {
+            return -1;
+        }
+        int cleared = occupants;
+        if (cleared > 0) {
+            // Journaled before CANCEL_ALL, so a replay ends the occupancy at the time it really ended
+            changeOccupancy(0, System.currentTimeMillis(), true);
+        }
+        long[] removed = new long[bookingListeners.isEmpty() ? 0 : calendar.size()];
+        for (int i = 0; i < removed.length; i++) {
+            removed[i] = calendar.startAt(i);
+        }
+        calendar.clear();
+        journal(BookingJournal.CANCEL_ALL, 0, 0);
+        // Notify once the slots are free, so a listener may rebook them right away
+        for (long start : removed) {
+            for (BookingListener listener : bookingListeners) {
+                listener.bookingRemoved(this, start);
+            }
+        }
+        return cleared;
+    }
+
+    /**
+     * Cancel the booking that starts at the given time without printing.
+     * @param start Start of the booking in epoch minutes
+     * @return true if a booking was cancelled
+     */
+    public synchronized boolean cancelBooking(long start) {
+        if (!calendar.remove(start)) {
+            return false;
+        }
+        journal(BookingJournal.CANCEL, start, 0);
+        for (BookingListener listener : bookingListeners) {
+            listener.bookingRemoved(this, start);
+        }
+        return true;
+    }
+
+    /**
+     * Cancel the booking of exactly the given slot without printing.
+     * A different booking that starts at the same time is left alone.
+     * @param start Start of the booking in epoch minutes
+     * @param duration Duration of the booking in minutes
+     * @return true if the booking was cancelled
+     */
+    public synchronized boolean cancelBooking(long start, int duration) {
+        if (!calendar.remove(start, duration)) {
+            return false;
+        }
+        journal(BookingJournal.CANCEL, start, 0);
+        for (BookingListener listener : bookingListeners) {
+            listener.bookingRemoved(this, start);
+        }
+        return true;
+    }
+
+    // Check if the room has any booking or is occupied by people
+    public synchronized boolean isBooked() {
+        return !calendar.isEmpty() || occupants > 0;
+    }
+
+    // Attach the configuration that indexes this room by capacity
+    void setConfiguration(OfficeConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    // Attach the write-ahead log that records every change of this room
+    void setJournal(BookingJournal journal) {
+        this.journal = journal;
+    }
+
+    // Append a change to the journal, if one is attached; called with the room lock held
+    private void journal(int type, long time, int value) {
+        BookingJournal current = journal;
+        if (current != null) {
+            current.append(type, roomId, time, value);
+        }
+    }
+
+    /**
+     * Restore counters and occupancy loaded from a snapshot, without notifying or journaling.
+     * @param occupants Number of occupants
+     * @param occupiedSince Timestamp when the current occupancy started
+     * @param lastUnoccupiedTime Timestamp when the room was last unoccupied
+     * @param totalBookings Total number of bookings
+     * @param totalOccupiedTime Total occupied time of completed occupancies in milliseconds
+     */
+    synchronized void restore(int occupants, long occupiedSince, long lastUnoccupiedTime, int totalBookings, long totalOccupiedTime) {
+        this.occupants = occupants;
+        this.occupiedSince = occupiedSince;
+        this.lastUnoccupiedTime = lastUnoccupiedTime;
+        this.totalBookings = totalBookings;
+        this.totalOccupiedTime = totalOccupiedTime;
+        version++;
+        if (occupants > 0) {
+            statistics.recordOccupancy(occupants, occupiedSince); // Resume the ongoing occupancy in the rolling window
+        }
+    }
+
+    /**
+     * Replace the usage statistics with ones loaded from a snapshot.
+     * @param statistics Statistics as of the snapshot
+     */
+    synchronized void restoreStatistics(RoomStatistics statistics) {
+        this.statistics = statistics;
+        version++;
+    }
+
+    // Get the timestamp when the room was last unoccupied
+    public long getLastUnoccupiedTime() {
+        return lastUnoccupiedTime;
+    }
+
+    // Get the timestamp when the current occupancy started
+    public long getOccupiedSince() {
+        return occupiedSince;
+    }
+
+    // Get the calendar holding all bookings of the room; callers sharing the room across threads must synchronize on it
+    public BookingCalendar getCalendar() {
+        return calendar;
+    }
+
+    // Get a number that changes whenever capacity, occupancy or the usage counters change
+    public long getVersion() {
+        return version;
     }
 
     // Get total number of bookings for the room
@@ -126,8 +508,28 @@ public class Room {
         return totalBookings;
     }
 
-    // Get total occupied time for the room
-    public long getTotalOccupiedTime() {
+    // Get total occupied time for the room, including the ongoing occupancy
+    public synchronized long getTotalOccupiedTime() {
+        return occupants > 0 ? totalOccupiedTime + System.currentTimeMillis() - occupiedSince : totalOccupiedTime;
+    }
+
+    // Get the occupied time of completed occupancies only
+    long getCompletedOccupiedTime() {
         return totalOccupiedTime;
     }
+
+    // Get the pre-aggregated usage statistics; callers sharing the room across threads must synchronize on it
+    public RoomStatistics getStatistics() {
+        return statistics;
+    }
+
+    // Get the share of the last 7 days during which the room was occupied
+    public synchronized double getWeeklyUtilization() {
+        return statistics.getWindowUtilization(System.currentTimeMillis());
+    }
+
+    // Get the highest number of occupants seen at once
+    public synchronized int getPeakOccupants() {
+        return statistics.getPeakOccupants();
+    }
 }
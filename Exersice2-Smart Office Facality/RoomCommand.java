@@ -0,0 +1,19 @@
+/**
+ * Command that changes a single room; used by CommandProcessor to batch commands per room.
+ */
+public interface RoomCommand extends Command {
+    Room getRoom();
+
+    // Execute without printing; returns true if the room was changed
+    boolean apply();
+
+    /**
+     * Notify observers of an occupancy change made by apply() or execute(), which leave that
+     * to the caller. Call once no room or processor lock is held.
+     */
+    default void notifyApplied() {
+    }
+
+    // Check whether the last execution changed the room (and can therefore be undone)
+    boolean isApplied();
+}
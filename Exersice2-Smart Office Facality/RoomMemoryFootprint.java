@@ -0,0 +1,50 @@
+/**
+ * RoomMemoryFootprint compares the heap used by OfficeConfiguration (one Room object per room)
+ * with CompactRoomStore (primitive arrays) at 10k, 100k and 1M rooms.
+ * Every room gets a capacity and one booking so both layouts hold the same data.
+ * Run with: java -Xmx2g RoomMemoryFootprint
+ */
+public class RoomMemoryFootprint {
+    private static final int[] ROOM_COUNTS = {10_000, 100_000, 1_000_000};
+
+    public static void main(String[] args) {
+        System.out.println("rooms, object bytes/room, compact bytes/room");
+        for (int rooms : ROOM_COUNTS) {
+            long before = usedHeap();
+            OfficeConfiguration officeConfig = new OfficeConfiguration();
+            for (int roomId = 0; roomId < rooms; roomId++) {
+                officeConfig.addRoom(roomId, 8);
+                officeConfig.getRoom(roomId).tryBook(roomId, 30);
+            }
+            long objectBytes = usedHeap() - before;
+            keepAlive(officeConfig);
+            officeConfig = null;
+
+            before = usedHeap();
+            CompactRoomStore store = new CompactRoomStore(rooms);
+            for (int roomId = 0; roomId < rooms; roomId++) {
+                store.setCapacity(roomId, 8);
+                store.tryBook(roomId, roomId, 30);
+            }
+            long compactBytes = usedHeap() - before;
+            keepAlive(store);
+
+            System.out.printf("%d, %d, %d%n", rooms, objectBytes / rooms, compactBytes / rooms);
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    // Keep the structure reachable until after it has been measured
+    private static void keepAlive(Object structure) {
+        if (structure.hashCode() == System.nanoTime()) {
+            System.out.println();
+        }
+    }
+}
@@ -0,0 +1,275 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
+
+/**
+ * RoomStatistics keeps pre-aggregated usage figures for one room.
+ * Occupied time is added incrementally on every occupancy change into a rolling window
+ * of hourly buckets (the last 7 days), plus cumulative histograms by hour of day and by
+ * weekday. Reads never scan history: the window total is kept as a running sum.
+ * Hour of day and weekday follow the zone's rules, so time is split at local hour boundaries
+ * and daylight saving changes; the offset is cached until the zone's next transition.
+ * The figures are written to and read from snapshots, so they survive a restart.
+ * The window arrays are only allocated once the room is first occupied, so idle rooms stay small.
+ * Instances are guarded by the owning Room's lock.
+ */
+public class RoomStatistics {
+    static final int WINDOW_HOURS = 7 * 24; // Length of the rolling window
+    private static final long HOUR_MILLIS = 60L * 60 * 1000;
+    private static final long DAY_MILLIS = 24 * HOUR_MILLIS;
+
+    private final ZoneRules zoneRules; // Rules of the zone used for hour-of-day and weekday buckets
+    private long offsetMillis; // Zone offset cached for [offsetFrom, offsetUntil)
+    private long offsetFrom = Long.MAX_VALUE;
+    private long offsetUntil = Long.MIN_VALUE;
+    private long[] windowBuckets; // Occupied ms per hour, ring indexed by epoch hour; null until first needed
+    private long[] windowBucketHour; // Epoch hour held by each ring slot; null until first needed
+    private long windowSum; // Sum of all live window buckets
+    private long windowHead; // Latest epoch hour the window has been advanced to
+    private long[] byHourOfDay; // Cumulative occupied ms per local hour of day; null until first needed
+    private long[] byWeekday; // Cumulative occupied ms per local weekday, Monday first; null until first needed
+    private int peakOccupants; // Highest occupant count seen
+    private int currentOccupants; // Occupants since the last change
+    private long lastChange; // Time of the last change in epoch milliseconds
+
+    /**
+     * Create empty statistics starting at the given time, bucketed in the zone times are parsed in.
+     * @param now Creation time in epoch milliseconds
+     */
+    public RoomStatistics(long now) {
+        this(now, TimeParser.getZone());
+    }
+
+    /**
+     * Create empty statistics starting at the given time.
+     * @param now Creation time in epoch milliseconds
+     * @param zone Zone whose local time decides the hour-of-day and weekday buckets
+     */
+    public RoomStatistics(long now, ZoneId zone) {
+        this.zoneRules = zone.getRules();
+        this.lastChange = now;
+        this.windowHead = hourOf(now);
+    }
+
+    /**
+     * Read statistics written by {@link #write}.
+     * @param in Source positioned at the statistics
+     * @param zone Zone whose local time decides the hour-of-day and weekday buckets
+     * @return The statistics as they were written
+     * @throws IOException if the source cannot be read
+     */
+    public static RoomStatistics read(DataInput in, ZoneId zone) throws IOException {
+        int peakOccupants = in.readInt();
+        int currentOccupants = in.readInt();
+        long lastChange = in.readLong();
+        long windowHead = in.readLong();
+        RoomStatistics statistics = new RoomStatistics(lastChange, zone);
+        statistics.peakOccupants = peakOccupants;
+        statistics.currentOccupants = currentOccupants;
+        statistics.windowHead = windowHead;
+        if (in.readBoolean()) {
+            statistics.allocate();
+            int buckets = in.readInt();
+            for (int i = 0; i < buckets; i++) {
+                statistics.addToWindow(in.readLong(), in.readLong());
+            }
+            for (int hour = 0; hour < 24; hour++) {
+                statistics.byHourOfDay[hour] = in.readLong();
+            }
+            for (int weekday = 0; weekday < 7; weekday++) {
+                statistics.byWeekday[weekday] = in.readLong();
+            }
+        }
+        return statistics;
+    }
+
+    /**
+     * Write the statistics: counters, the live window buckets and the histograms.
+     * @param out Destination
+     * @throws IOException if the destination cannot be written
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(peakOccupants);
+        out.writeInt(currentOccupants);
+        out.writeLong(lastChange);
+        out.writeLong(windowHead);
+        out.writeBoolean(windowBuckets != null);
+        if (windowBuckets == null) {
+            return;
+        }
+        int buckets = 0;
+        for (int slot = 0; slot < WINDOW_HOURS; slot++) {
+            if (isLive(slot)) {
+                buckets++;
+            }
+        }
+        out.writeInt(buckets);
+        for (int slot = 0; slot < WINDOW_HOURS; slot++) {
+            if (isLive(slot)) {
+                out.writeLong(windowBucketHour[slot]);
+                out.writeLong(windowBuckets[slot]);
+            }
+        }
+        for (long millis : byHourOfDay) {
+            out.writeLong(millis);
+        }
+        for (long millis : byWeekday) {
+            out.writeLong(millis);
+        }
+    }
+
+    /**
+     * Record an occupancy change. The time since the previous change is credited to the
+     * previous occupant count.
+     * @param occupants New number of occupants
+     * @param timestamp Time of the change in epoch milliseconds
+     */
+    public void recordOccupancy(int occupants, long timestamp) {
+        if (currentOccupants > 0) {
+            if (timestamp > lastChange) {
+                addOccupied(lastChange, timestamp);
+            }
+            lastChange = Math.max(lastChange, timestamp); // A late reading must not credit the same time twice
+        } else {
+            lastChange = timestamp; // Nothing to credit; readings may predate this object, e.g. on journal replay
+        }
+        currentOccupants = occupants;
+        if (occupants > peakOccupants) {
+            peakOccupants = occupants;
+        }
+    }
+
+    /**
+     * Get the occupied time within the last 7 days, including the ongoing occupancy.
+     * @param now Current time in epoch milliseconds
+     * @return Occupied milliseconds in the window
+     */
+    public long getWindowOccupiedTime(long now) {
+        advanceTo(hourOf(now));
+        long ongoing = currentOccupants > 0 ? Math.min(now - lastChange, WINDOW_HOURS * HOUR_MILLIS) : 0;
+        return windowSum + Math.max(0, ongoing);
+    }
+
+    /**
+     * Get the share of the last 7 days during which the room was occupied.
+     * @param now Current time in epoch milliseconds
+     * @return Utilization between 0 and 1
+     */
+    public double getWindowUtilization(long now) {
+        return Math.min(1.0, (double) getWindowOccupiedTime(now) / (WINDOW_HOURS * HOUR_MILLIS));
+    }
+
+    /**
+     * Get the cumulative occupied time that fell into a local hour of day.
+     * @param hour Hour of day, 0-23
+     * @return Occupied milliseconds
+     */
+    public long getOccupiedTimeByHourOfDay(int hour) {
+        return byHourOfDay == null ? 0 : byHourOfDay[hour];
+    }
+
+    /**
+     * Get the cumulative occupied time that fell on a local weekday.
+     * @param weekday Day of week, 0 = Monday ... 6 = Sunday
+     * @return Occupied milliseconds
+     */
+    public long getOccupiedTimeByWeekday(int weekday) {
+        return byWeekday == null ? 0 : byWeekday[weekday];
+    }
+
+    // Get the highest number of occupants seen at once
+    public int getPeakOccupants() {
+        return peakOccupants;
+    }
+
+    // Credit the interval [from, to) to the hour buckets it spans
+    private void addOccupied(long from, long to) {
+        if (windowBuckets == null) {
+            allocate();
+        }
+        long time = from;
+        while (time < to) {
+            long hour = hourOf(time);
+            long local = time + offsetAt(time);
+            // A slice ends at the next UTC hour, local hour or offset change, whichever comes first
+            long localHourEnd = (Math.floorDiv(local, HOUR_MILLIS) + 1) * HOUR_MILLIS - offsetMillis;
+            long sliceEnd = Math.min(Math.min(to, (hour + 1) * HOUR_MILLIS), Math.min(localHourEnd, offsetUntil));
+            long slice = sliceEnd - time;
+            addToWindow(hour, slice);
+            byHourOfDay[(int) Math.floorMod(Math.floorDiv(local, HOUR_MILLIS), 24L)] += slice;
+            // Epoch day 0 (1970-01-01) was a Thursday, so shift by 3 to make Monday 0
+            byWeekday[(int) Math.floorMod(Math.floorDiv(local, DAY_MILLIS) + 3, 7L)] += slice;
+            time = sliceEnd;
+        }
+    }
+
+    // Get the zone offset at a time; looked up again only outside the cached range
+    private long offsetAt(long time) {
+        if (time < offsetFrom || time >= offsetUntil) {
+            Instant instant = Instant.ofEpochMilli(time);
+            offsetMillis = zoneRules.getOffset(instant).getTotalSeconds() * 1000L;
+            ZoneOffsetTransition next = zoneRules.nextTransition(instant);
+            offsetFrom = time;
+            offsetUntil = next != null ? next.toEpochSecond() * 1000 : Long.MAX_VALUE;
+        }
+        return offsetMillis;
+    }
+
+    private void addToWindow(long hour, long millis) {
+        advanceTo(hour);
+        if (hour <= windowHead - WINDOW_HOURS) {
+            return; // Older than the window
+        }
+        int slot = (int) Math.floorMod(hour, (long) WINDOW_HOURS);
+        if (windowBucketHour[slot] != hour) {
+            windowSum -= windowBuckets[slot];
+            windowBuckets[slot] = 0;
+            windowBucketHour[slot] = hour;
+        }
+        windowBuckets[slot] += millis;
+        windowSum += millis;
+    }
+
+    // Check whether a ring slot holds an hour that is still in the window
+    private boolean isLive(int slot) {
+        return windowBucketHour[slot] > windowHead - WINDOW_HOURS && windowBuckets[slot] != 0;
+    }
+
+    private void allocate() {
+        windowBuckets = new long[WINDOW_HOURS];
+        windowBucketHour = new long[WINDOW_HOURS];
+        Arrays.fill(windowBucketHour, Long.MIN_VALUE);
+        byHourOfDay = new long[24];
+        byWeekday = new long[7];
+    }
+
+    // Expire the buckets that fell out of the window; at most WINDOW_HOURS steps, amortized O(1)
+    private void advanceTo(long hour) {
+        if (hour <= windowHead) {
+            return;
+        }
+        if (windowBuckets == null) {
+            windowHead = hour; // Nothing recorded yet, so nothing to expire
+            return;
+        }
+        long steps = Math.min(hour - windowHead, WINDOW_HOURS);
+        for (long h = hour - steps + 1; h <= hour; h++) {
+            int slot = (int) Math.floorMod(h, (long) WINDOW_HOURS);
+            if (windowBucketHour[slot] != h) {
+                windowSum -= windowBuckets[slot];
+                windowBuckets[slot] = 0;
+                windowBucketHour[slot] = h;
+            }
+        }
+        windowHead = hour;
+    }
+
+    private static long hourOf(long millis) {
+        return Math.floorDiv(millis, HOUR_MILLIS);
+    }
+}
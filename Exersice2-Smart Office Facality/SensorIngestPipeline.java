@@ -0,0 +1,207 @@
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * SensorIngestPipeline applies batches of occupancy readings to the rooms of an office.
+ * A reading is (roomId, occupants, timestamp). Each batch is coalesced per room first: only
+ * a room's last reading in the batch is applied, so a room that reports several times takes
+ * its lock and notifies its observers once per batch. Readings that do not change a room's
+ * occupancy are skipped before any lock is taken or any observer is notified.
+ * Text batches are parsed straight from bytes into reusable primitive arrays, so
+ * steady-state ingestion does not allocate.
+ * A pipeline instance is meant to be driven by a single ingest thread.
+ */
+public class SensorIngestPipeline {
+    private static final int ROOM_CACHE_SIZE = 1 << 16; // Room ids below this are resolved without a map lookup
+
+    private final OfficeConfiguration officeConfig;
+    private final Room[] roomCache; // Dense cache of resolved rooms, indexed by room id
+    private int[] roomIds = new int[1024]; // Parse buffers, reused across batches
+    private int[] occupants = new int[1024];
+    private long[] timestamps = new long[1024];
+    private int[] lastRoomIds = new int[2048]; // Open-addressing table from room id to its last reading in the batch
+    private int[] lastReadings = new int[2048];
+    private int[] lastBatches = new int[2048]; // Batch that filled each slot; slots of older batches are empty
+    private int batch; // Number of the batch being applied
+    private long applied; // Readings that changed a room
+    private long coalesced; // Readings superseded by a later reading for the same room in the batch
+    private long unchanged; // Readings skipped because the value did not change
+    private long unknownRooms; // Readings for rooms that do not exist
+    private long malformed; // Lines that could not be parsed
+
+    public SensorIngestPipeline(OfficeConfiguration officeConfig) {
+        this.officeConfig = officeConfig;
+        this.roomCache = new Room[ROOM_CACHE_SIZE];
+    }
+
+    /**
+     * Apply a batch of readings held in parallel arrays. Only the last reading of each room
+     * is applied, in the order of those last readings.
+     * @param roomIds Room of each reading
+     * @param occupants Occupant count of each reading
+     * @param timestamps Time of each reading in epoch milliseconds
+     * @param count Number of readings in the arrays
+     */
+    public void ingest(int[] roomIds, int[] occupants, long[] timestamps, int count) {
+        startBatch(count);
+        for (int i = 0; i < count; i++) {
+            lastReadings[slot(roomIds[i])] = i;
+        }
+        for (int i = 0; i < count; i++) {
+            if (lastReadings[slot(roomIds[i])] != i) {
+                coalesced++; // A later reading in this batch supersedes it
+                continue;
+            }
+            Room room = resolve(roomIds[i]);
+            if (room == null) {
+                unknownRooms++;
+            } else if (room.getOccupants() == occupants[i]) {
+                unchanged++; // Deduplicated without taking the room lock
+            } else {
+                room.setOccupancy(occupants[i], timestamps[i]);
+                applied++;
+            }
+        }
+    }
+
+    /**
+     * Parse and apply a batch of ASCII readings, one "roomId,occupants,timestamp" per line.
+     * The buffer is read from its position to its limit; a trailing partial line is left
+     * unread so the caller can compact the buffer and append more data.
+     * @param buffer Bytes received from the sensors
+     * @return Number of readings parsed
+     */
+    public int ingest(ByteBuffer buffer) {
+        int count = 0;
+        int lineStart = buffer.position();
+        int limit = buffer.limit();
+        int field = 0;
+        long value = 0;
+        boolean digits = false;
+        boolean valid = true;
+        for (int i = lineStart; i < limit; i++) {
+            byte b = buffer.get(i);
+            if (b >= '0' && b <= '9') {
+                value = value * 10 + (b - '0');
+                digits = true;
+            } else if (b == ',' || b == '\n') {
+                valid &= digits;
+                if (field == 0) {
+                    ensureCapacity(count + 1);
+                    roomIds[count] = (int) value;
+                } else if (field == 1) {
+                    occupants[count] = (int) value;
+                } else if (field == 2) {
+                    timestamps[count] = value;
+                } else {
+                    valid = false; // Too many fields
+                }
+                field++;
+                value = 0;
+                digits = false;
+                if (b == '\n') {
+                    if (valid && field == 3) {
+                        count++;
+                    } else {
+                        malformed++;
+                    }
+                    field = 0;
+                    valid = true;
+                    lineStart = i + 1;
+                }
+            } else if (b != '\r' && b != ' ') {
+                valid = false;
+            }
+        }
+        buffer.position(lineStart);
+        ingest(roomIds, occupants, timestamps, count);
+        return count;
+    }
+
+    // Forget resolved rooms, e.g. after rooms were re-added to the configuration
+    public void clearRoomCache() {
+        Arrays.fill(roomCache, null);
+    }
+
+    // Get the number of readings that changed a room
+    public long getAppliedCount() {
+        return applied;
+    }
+
+    // Get the number of readings skipped because a later reading in the same batch was for the same room
+    public long getCoalescedCount() {
+        return coalesced;
+    }
+
+    // Get the number of readings skipped because the occupancy did not change
+    public long getUnchangedCount() {
+        return unchanged;
+    }
+
+    // Get the number of readings for rooms that do not exist
+    public long getUnknownRoomCount() {
+        return unknownRooms;
+    }
+
+    // Get the number of lines that could not be parsed
+    public long getMalformedCount() {
+        return malformed;
+    }
+
+    // Start a new batch of up to count readings; grows the table to stay at most half full
+    private void startBatch(int count) {
+        if (count * 2 > lastRoomIds.length) {
+            int capacity = Integer.highestOneBit(count * 2 - 1) << 1;
+            lastRoomIds = new int[capacity];
+            lastReadings = new int[capacity];
+            lastBatches = new int[capacity];
+            batch = 0;
+        }
+        if (++batch == 0) { // Wrapped around: forget every slot before numbering batches again
+            Arrays.fill(lastBatches, 0);
+            batch = 1;
+        }
+    }
+
+    // Find the table slot of a room in the current batch, claiming a free one if needed
+    private int slot(int roomId) {
+        int mask = lastRoomIds.length - 1;
+        int hash = roomId * 0x9E3779B9; // Spreads consecutive ids across the table
+        int slot = (hash ^ hash >>> 16) & mask;
+        while (lastBatches[slot] == batch && lastRoomIds[slot] != roomId) {
+            slot = (slot + 1) & mask;
+        }
+        if (lastBatches[slot] != batch) {
+            lastBatches[slot] = batch;
+            lastRoomIds[slot] = roomId;
+        }
+        return slot;
+    }
+
+    private Room resolve(int roomId) {
+        if (roomId < 0 || roomId >= ROOM_CACHE_SIZE) {
+            return officeConfig.getRoom(roomId);
+        }
+        Room room = roomCache[roomId];
+        if (room == null) {
+            room = officeConfig.getRoom(roomId);
+            roomCache[roomId] = room;
+        }
+        return room;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required > roomIds.length) {
+            int newCapacity = Math.max(required, roomIds.length * 2);
+            int[] newRoomIds = new int[newCapacity];
+            int[] newOccupants = new int[newCapacity];
+            long[] newTimestamps = new long[newCapacity];
+            System.arraycopy(roomIds, 0, newRoomIds, 0, roomIds.length);
+            System.arraycopy(occupants, 0, newOccupants, 0, occupants.length);
+            System.arraycopy(timestamps, 0, newTimestamps, 0, timestamps.length);
+            roomIds = newRoomIds;
+            occupants = newOccupants;
+            timestamps = newTimestamps;
+        }
+    }
+}
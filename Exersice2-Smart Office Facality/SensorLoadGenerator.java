@@ -0,0 +1,107 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * SensorLoadGenerator drives the SensorIngestPipeline with synthetic sensor traffic and
+ * reports the sustained readings/sec and the p99 latency of applying one batch.
+ * Batches are encoded up front and replayed; each replay gets later timestamps, stamped in
+ * place before the batch is timed, so every room sees its readings in increasing time order.
+ * Run with: java SensorLoadGenerator [rooms] [batchSize] [seconds]
+ */
+public class SensorLoadGenerator {
+    private static final int PREBUILT_BATCHES = 256; // Batches are encoded up front so generation is not measured
+    private static final int TIMESTAMP_DIGITS = 13; // Epoch milliseconds have 13 digits until the year 2286
+
+    public static void main(String[] args) {
+        int rooms = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int batchSize = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        OfficeConfiguration officeConfig = new OfficeConfiguration();
+        for (int roomId = 1; roomId <= rooms; roomId++) {
+            officeConfig.addRoom(roomId, 20);
+        }
+        // Observers run on the event bus so the ingest thread only measures the apply path
+        OccupancyEventBus bus = new OccupancyEventBus(rooms, 256, OccupancyEventBus.BackpressurePolicy.DROP);
+        officeConfig.setEventBus(bus);
+        Observer noop = room -> { };
+        for (int roomId = 1; roomId <= rooms; roomId++) {
+            officeConfig.getRoom(roomId).addObserver(noop);
+        }
+
+        long firstTimestamp = System.currentTimeMillis();
+        int[][] timestampPositions = new int[PREBUILT_BATCHES][batchSize];
+        ByteBuffer[] batches = buildBatches(rooms, batchSize, firstTimestamp, timestampPositions);
+        SensorIngestPipeline pipeline = new SensorIngestPipeline(officeConfig);
+        long[] latencies = new long[1 << 20];
+        int samples = 0;
+        long readings = 0;
+        long applyNanos = 0;
+
+        long begin = System.nanoTime();
+        long deadline = begin + seconds * 1_000_000_000L;
+        for (int i = 0; System.nanoTime() < deadline; i++) {
+            ByteBuffer batch = batches[i % PREBUILT_BATCHES];
+            if (i >= PREBUILT_BATCHES) {
+                stampTimestamps(batch, timestampPositions[i % PREBUILT_BATCHES], firstTimestamp + (long) i * batchSize);
+            }
+            batch.rewind();
+            long start = System.nanoTime();
+            readings += pipeline.ingest(batch);
+            long elapsed = System.nanoTime() - start;
+            applyNanos += elapsed;
+            if (samples < latencies.length) {
+                latencies[samples++] = elapsed;
+            }
+        }
+        double totalSeconds = (System.nanoTime() - begin) / 1e9;
+
+        Arrays.sort(latencies, 0, samples);
+        long p50 = latencies[samples / 2];
+        long p99 = latencies[Math.min(samples - 1, (int) (samples * 0.99))];
+        System.out.println("Rooms: " + rooms + ", batch size: " + batchSize);
+        // Readings per second of time spent applying, so stamping replayed batches is not counted
+        System.out.printf("Sustained: %.0f readings/sec over %.1f s%n", readings / (applyNanos / 1e9), totalSeconds);
+        System.out.printf("Batch apply latency: p50 %.1f us, p99 %.1f us%n", p50 / 1e3, p99 / 1e3);
+        System.out.println("Applied: " + pipeline.getAppliedCount() + ", coalesced: " + pipeline.getCoalescedCount()
+                + ", unchanged: " + pipeline.getUnchangedCount() + ", malformed: " + pipeline.getMalformedCount());
+    }
+
+    // Encode batches where most readings repeat the room's previous value, as real sensors do;
+    // records where each reading's timestamp starts so replays can stamp later ones
+    private static ByteBuffer[] buildBatches(int rooms, int batchSize, long firstTimestamp, int[][] timestampPositions) {
+        Random random = new Random(1);
+        int[] lastValue = new int[rooms + 1];
+        long timestamp = firstTimestamp;
+        ByteBuffer[] batches = new ByteBuffer[PREBUILT_BATCHES];
+        for (int b = 0; b < PREBUILT_BATCHES; b++) {
+            StringBuilder text = new StringBuilder(batchSize * 24);
+            for (int i = 0; i < batchSize; i++) {
+                int roomId = 1 + random.nextInt(rooms);
+                if (random.nextInt(10) == 0) {
+                    lastValue[roomId] = random.nextInt(21); // One reading in ten is a change
+                }
+                text.append(roomId).append(',').append(lastValue[roomId]).append(',');
+                timestampPositions[b][i] = text.length(); // ASCII, so characters and bytes line up
+                text.append(timestamp++).append('\n');
+            }
+            byte[] bytes = text.toString().getBytes(StandardCharsets.US_ASCII);
+            batches[b] = ByteBuffer.allocateDirect(bytes.length);
+            batches[b].put(bytes).flip();
+        }
+        return batches;
+    }
+
+    // Overwrite the timestamps of a batch with consecutive values starting at first
+    private static void stampTimestamps(ByteBuffer batch, int[] positions, long first) {
+        for (int i = 0; i < positions.length; i++) {
+            long value = first + i;
+            for (int digit = TIMESTAMP_DIGITS - 1; digit >= 0; digit--) {
+                batch.put(positions[i] + digit, (byte) ('0' + value % 10));
+                value /= 10;
+            }
+        }
+    }
+}
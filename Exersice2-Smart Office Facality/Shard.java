@@ -0,0 +1,41 @@
+import java.io.Closeable;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A partition of the office's rooms. Every call is asynchronous, so a router can send
+ * requests to many shards at once, whether they live in this process or behind a socket.
+ */
+public interface Shard extends Closeable {
+    CompletableFuture<Boolean> addRoom(int roomId, int capacity);
+    CompletableFuture<Boolean> setCapacity(int roomId, int capacity);
+    CompletableFuture<Boolean> setOccupancy(int roomId, int occupants);
+    CompletableFuture<Boolean> tryBook(int roomId, long start, int duration);
+    CompletableFuture<Boolean> cancelBooking(int roomId, long start);
+    CompletableFuture<RoomInfo> getRoom(int roomId); // Completes with null if the room is not on this shard
+    CompletableFuture<RoomInfo> findFreeRoom(int minCapacity, long start, int duration); // Best fit on this shard, or null
+
+    @Override
+    void close();
+
+    /**
+     * A copy of a room's state that can be sent between processes.
+     */
+    final class RoomInfo {
+        final int roomId;
+        final int capacity;
+        final int occupants;
+        final int bookings;
+
+        RoomInfo(int roomId, int capacity, int occupants, int bookings) {
+            this.roomId = roomId;
+            this.capacity = capacity;
+            this.occupants = occupants;
+            this.bookings = bookings;
+        }
+
+        @Override
+        public String toString() {
+            return "Room " + roomId + " (capacity " + capacity + ", " + occupants + " occupants, " + bookings + " bookings)";
+        }
+    }
+}
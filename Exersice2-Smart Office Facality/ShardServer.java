@@ -0,0 +1,137 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * ShardServer runs a LocalShard as its own process and serves it to RemoteShard clients
+ * over loopback sockets (see RemoteShard for the wire format).
+ * Each connection has a reader thread that hands requests to the shard's event loop;
+ * answers are written as they complete, so one connection can carry many requests at once.
+ * Run with: java ShardServer [port] [name]
+ */
+public class ShardServer implements Closeable {
+    private final Shard shard;
+    private final ServerSocket serverSocket;
+
+    /**
+     * Bind a server for a shard on the loopback interface.
+     * @param shard Shard to serve
+     * @param port TCP port, or 0 for any free port
+     * @throws IOException if the port cannot be bound
+     */
+    public ShardServer(Shard shard, int port) throws IOException {
+        this.shard = shard;
+        this.serverSocket = new ServerSocket(port, 128, InetAddress.getLoopbackAddress());
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 9100;
+        String name = args.length > 1 ? args[1] : "shard-" + port;
+        ShardServer server = new ShardServer(new LocalShard(name), port);
+        System.out.println("Shard " + name + " listening on port " + server.getPort());
+        server.serve();
+    }
+
+    // Get the port the server is bound to
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    // Start accepting connections on a background thread
+    public void start() {
+        Thread acceptor = new Thread(this::serve, "shard-server-" + getPort());
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    // Accept connections until the server is closed
+    public void serve() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                Thread connection = new Thread(() -> handle(socket), "shard-connection-" + socket.getPort());
+                connection.setDaemon(true);
+                connection.start();
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    System.out.println("ShardServer: accept failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        shard.close();
+    }
+
+    private void handle(Socket socket) {
+        try (Socket connection = socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream(), 1 << 14));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream(), 1 << 14))) {
+            while (true) {
+                long id = in.readLong();
+                byte op = in.readByte();
+                int roomId = in.readInt();
+                int value = in.readInt();
+                long time = in.readLong();
+                dispatch(op, roomId, value, time).whenComplete((result, error) -> reply(out, id, result, error));
+            }
+        } catch (EOFException e) {
+            // Client disconnected
+        } catch (IOException e) {
+            System.out.println("ShardServer: connection failed: " + e.getMessage());
+        }
+    }
+
+    private CompletableFuture<?> dispatch(byte op, int roomId, int value, long time) {
+        switch (op) {
+            case RemoteShard.ADD_ROOM: return shard.addRoom(roomId, value);
+            case RemoteShard.SET_CAPACITY: return shard.setCapacity(roomId, value);
+            case RemoteShard.SET_OCCUPANCY: return shard.setOccupancy(roomId, value);
+            case RemoteShard.BOOK: return shard.tryBook(roomId, time, value);
+            case RemoteShard.CANCEL: return shard.cancelBooking(roomId, time);
+            case RemoteShard.GET_ROOM: return shard.getRoom(roomId);
+            case RemoteShard.FIND_FREE: return shard.findFreeRoom(roomId, time, value);
+            default:
+                CompletableFuture<Object> unknown = new CompletableFuture<>();
+                unknown.completeExceptionally(new IllegalArgumentException("Unknown operation " + op));
+                return unknown;
+        }
+    }
+
+    private static void reply(DataOutputStream out, long id, Object result, Throwable error) {
+        try {
+            synchronized (out) {
+                out.writeLong(id);
+                if (error != null) {
+                    out.writeByte(RemoteShard.RESULT_ERROR);
+                } else if (result instanceof Shard.RoomInfo) {
+                    Shard.RoomInfo room = (Shard.RoomInfo) result;
+                    out.writeByte(RemoteShard.RESULT_ROOM);
+                    out.writeInt(room.roomId);
+                    out.writeInt(room.capacity);
+                    out.writeInt(room.occupants);
+                    out.writeInt(room.bookings);
+                } else if (result instanceof Boolean) {
+                    out.writeByte((Boolean) result ? RemoteShard.RESULT_TRUE : RemoteShard.RESULT_FALSE);
+                } else {
+                    out.writeByte(RemoteShard.RESULT_NO_ROOM);
+                }
+                out.flush();
+            }
+        } catch (IOException e) {
+            // The connection is gone; the reader loop will notice and close it
+        }
+    }
+}
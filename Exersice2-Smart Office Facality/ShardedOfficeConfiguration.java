@@ -0,0 +1,201 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ShardedOfficeConfiguration spreads a campus over independent shards and routes every
+ * call to the shard that owns the room. Rooms are numbered building * 10000 + floor * 100 +
+ * room, and a whole floor (roomId / 100) lives on one shard, chosen on a consistent-hash
+ * ring with virtual nodes so floors spread evenly and adding a shard moves only a small
+ * share of them. Shards may be LocalShards in this process or RemoteShards in other processes.
+ *
+ * Single-room calls touch exactly one shard. findFreeRoom asks every shard at once and
+ * keeps the best fit: the smallest capacity, then the lowest room ID.
+ * Shards should all be added before rooms, as existing rooms are not moved.
+ *
+ * Run with: java ShardedOfficeConfiguration [local shard count | host:port ...]
+ */
+public class ShardedOfficeConfiguration {
+    private static final int VIRTUAL_NODES = 64; // Ring positions per shard
+
+    private volatile NavigableMap<Integer, Shard> ring = new TreeMap<>(); // Replaced, never mutated, so reads need no lock
+    private volatile List<Shard> shards = Collections.emptyList(); // Distinct shards, for fan-out
+
+    /**
+     * Add a shard to the ring.
+     * @param name Unique shard name; it decides the shard's ring positions
+     * @param shard The shard
+     */
+    public synchronized void addShard(String name, Shard shard) {
+        TreeMap<Integer, Shard> next = new TreeMap<>(ring);
+        for (int i = 0; i < VIRTUAL_NODES; i++) {
+            next.put(mix((name + "#" + i).hashCode()), shard);
+        }
+        List<Shard> all = new ArrayList<>(shards);
+        all.add(shard);
+        ring = next;
+        shards = Collections.unmodifiableList(all);
+    }
+
+    /**
+     * Get the shard that owns a room.
+     * @param roomId Room ID
+     * @return Owning shard
+     */
+    public Shard getShard(int roomId) {
+        NavigableMap<Integer, Shard> current = ring;
+        if (current.isEmpty()) {
+            throw new IllegalStateException("No shards configured.");
+        }
+        Map.Entry<Integer, Shard> entry = current.ceilingEntry(mix(OfficeConfiguration.floorOf(roomId)));
+        return (entry != null ? entry : current.firstEntry()).getValue(); // Wrap around the ring
+    }
+
+    public void addRoom(int roomId, int capacity) {
+        getShard(roomId).addRoom(roomId, capacity).join();
+    }
+
+    public boolean setCapacity(int roomId, int capacity) {
+        return getShard(roomId).setCapacity(roomId, capacity).join();
+    }
+
+    public boolean setOccupancy(int roomId, int occupants) {
+        return getShard(roomId).setOccupancy(roomId, occupants).join();
+    }
+
+    /**
+     * Book a slot in a room on its owning shard.
+     * @param roomId Room ID
+     * @param start Start of the slot in epoch minutes
+     * @param duration Duration of the slot in minutes
+     * @return true if the room was booked
+     */
+    public boolean tryBook(int roomId, long start, int duration) {
+        return getShard(roomId).tryBook(roomId, start, duration).join();
+    }
+
+    public boolean cancelBooking(int roomId, long start) {
+        return getShard(roomId).cancelBooking(roomId, start).join();
+    }
+
+    // Get a copy of a room's state, or null if it does not exist
+    public Shard.RoomInfo getRoom(int roomId) {
+        return getShard(roomId).getRoom(roomId).join();
+    }
+
+    /**
+     * Find the best-fit free room on any shard. All shards search in parallel.
+     * @param minCapacity Minimum number of seats needed
+     * @param start Start of the slot in epoch minutes
+     * @param duration Duration of the slot in minutes
+     * @return Future completed with the best-fit free room, or null if none is available
+     */
+    public CompletableFuture<Shard.RoomInfo> findFreeRoomAsync(int minCapacity, long start, int duration) {
+        CompletableFuture<Shard.RoomInfo> best = CompletableFuture.completedFuture(null);
+        for (Shard shard : shards) {
+            best = best.thenCombine(shard.findFreeRoom(minCapacity, start, duration), ShardedOfficeConfiguration::better);
+        }
+        return best;
+    }
+
+    public Shard.RoomInfo findFreeRoom(int minCapacity, long start, int duration) {
+        return findFreeRoomAsync(minCapacity, start, duration).join();
+    }
+
+    // Close every shard
+    public synchronized void close() {
+        for (Shard shard : shards) {
+            shard.close();
+        }
+    }
+
+    private static Shard.RoomInfo better(Shard.RoomInfo a, Shard.RoomInfo b) {
+        if (a == null || b == null) {
+            return a == null ? b : a;
+        }
+        if (a.capacity != b.capacity) {
+            return a.capacity < b.capacity ? a : b;
+        }
+        return a.roomId <= b.roomId ? a : b;
+    }
+
+    // Spread nearby keys (consecutive floors, similar names) over the whole ring
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    // Build a campus on local or remote shards and measure routed booking throughput
+    public static void main(String[] args) throws IOException, InterruptedException {
+        ShardedOfficeConfiguration campus = new ShardedOfficeConfiguration();
+        if (args.length > 0 && args[0].contains(":")) {
+            for (String address : args) {
+                int colon = address.lastIndexOf(':');
+                campus.addShard(address, new RemoteShard(address.substring(0, colon), Integer.parseInt(address.substring(colon + 1))));
+            }
+        } else {
+            int count = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+            for (int i = 0; i < count; i++) {
+                campus.addShard("shard-" + i, new LocalShard("shard-" + i));
+            }
+        }
+
+        int buildings = 24;
+        int floors = 10;
+        int roomsPerFloor = 20;
+        int[] roomIds = new int[buildings * floors * roomsPerFloor];
+        int n = 0;
+        for (int building = 1; building <= buildings; building++) {
+            for (int floor = 0; floor < floors; floor++) {
+                for (int room = 1; room <= roomsPerFloor; room++) {
+                    int roomId = building * 10_000 + floor * OfficeConfiguration.ROOMS_PER_FLOOR + room;
+                    campus.addRoom(roomId, 2 + room % 12);
+                    roomIds[n++] = roomId;
+                }
+            }
+        }
+
+        int threads = 8;
+        int bookingsPerThread = 20_000;
+        AtomicLong booked = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(threads);
+        long begin = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < bookingsPerThread; i++) {
+                    int roomId = roomIds[random.nextInt(roomIds.length)];
+                    if (campus.tryBook(roomId, random.nextInt(7 * 24 * 4) * 15L, 15)) {
+                        booked.incrementAndGet();
+                    }
+                }
+                done.countDown();
+            });
+            worker.start();
+        }
+        done.await();
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        System.out.printf("%d rooms on %d shards: %.0f booking calls/sec, %d booked%n",
+                roomIds.length, campus.shards.size(), threads * bookingsPerThread / seconds, booked.get());
+
+        begin = System.nanoTime();
+        Shard.RoomInfo free = null;
+        for (int i = 0; i < 1000; i++) {
+            free = campus.findFreeRoom(10, i * 15L, 60);
+        }
+        System.out.printf("findFreeRoom fan-out: %.1f us/query, e.g. %s%n", (System.nanoTime() - begin) / 1e3 / 1000, free);
+        campus.close();
+    }
+}
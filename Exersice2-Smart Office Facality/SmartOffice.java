@@ -1,3 +1,10 @@
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
 import java.util.Scanner;
 
 /**
@@ -5,11 +12,60 @@ import java.util.Scanner;
  * Users can log in, configure room counts, set capacities, and manage bookings.
  */
 public class SmartOffice {
+    private static final int STATISTICS_PAGE_SIZE = 50; // Rooms per page of the statistics report
+
     public static void main(String[] args) {
+        // Non-interactive mode: SmartOffice --batch [file | -]
+        if (args.length > 0 && args[0].equals("--batch")) {
+            BatchRunner.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
         // Initialize the office configuration, occupancy sensor, and authentication service
         OfficeConfiguration officeConfig = OfficeConfiguration.getInstance();
-        OccupancySensor sensor = new OccupancySensor();
-        AuthenticationService authService = new AuthenticationService();
+        // Switch AC and lights at once when a room fills, two minutes after it empties, batched per floor
+        ActuationScheduler actuationScheduler = new ActuationScheduler(new ConsoleBuildingController(), 0, 120_000, 10, 1000);
+        OccupancySensor sensor = new OccupancySensor(actuationScheduler);
+        AuthenticationService authService = loadUsers(Paths.get("smartoffice-data", "users.txt"));
+        if (authService == null) {
+            return; // A user file that cannot be read must not open the office to the built-in accounts
+        }
+        CommandProcessor commandProcessor = new CommandProcessor(100); // Keeps the last 100 changes for undo
+        StatisticsReport statisticsReport = new StatisticsReport(officeConfig, 60_000); // Reuses unchanged rows between reports
+
+        // Restore rooms and bookings from the last run and journal every change from now on
+        try {
+            OfficePersistence persistence = new OfficePersistence(officeConfig, Paths.get("smartoffice-data"),
+                    BookingJournal.SyncMode.PER_BATCH, 1);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    persistence.snapshot();
+                    persistence.close();
+                } catch (IOException e) {
+                    System.out.println("Could not save office state: " + e.getMessage());
+                }
+            }));
+        } catch (IOException e) {
+            System.out.println("Could not open office data, changes will not be saved: " + e.getMessage());
+        }
+
+        // Free rooms when their bookings end, or when nobody shows up within 15 minutes
+        BookingReleaseScheduler releaseScheduler = new BookingReleaseScheduler(15, 1000);
+        releaseScheduler.attach(officeConfig);
+
+        // Rejected bookings wait in line and are booked as soon as the slot frees up, admins first
+        BookingWaitlist waitlist = new BookingWaitlist(BookingWaitlist.Policy.ROLE_PRIORITY, releaseScheduler.getWheel());
+        waitlist.attach(officeConfig);
+
+        // Server mode: SmartOffice --http [port] serves the office over HTTP instead of the console
+        if (args.length > 0 && args[0].equals("--http")) {
+            try {
+                new BookingHttpServer(officeConfig, authService, waitlist, args.length > 1 ? Integer.parseInt(args[1]) : 8080).start();
+            } catch (IOException | NumberFormatException e) {
+                System.out.println("Could not start the HTTP server: " + e.getMessage());
+            }
+            return;
+        }
         Scanner scanner = new Scanner(System.in);
         int numberOfRooms = 0;
 
@@ -20,7 +76,8 @@ public class SmartOffice {
         System.out.print("Password: ");
         String password = scanner.nextLine();
 
-        if (!authService.authenticate(username, password)) {
+        String sessionToken = authService.login(username, password);
+        if (sessionToken == null) {
             System.out.println("Invalid username or password. Access denied.");
             return;
         }
@@ -34,7 +91,9 @@ public class SmartOffice {
             numberOfRooms = Integer.parseInt(scanner.nextLine());
             StringBuilder roomList = new StringBuilder("Office configured with " + numberOfRooms + " meeting rooms: ");
             for (int i = 1; i <= numberOfRooms; i++) {
-                officeConfig.addRoom(i, 0); // Initialize rooms with no capacity
+                if (officeConfig.getRoom(i) == null) {
+                    officeConfig.addRoom(i, 0); // Initialize new rooms with no capacity; restored rooms keep their state
+                }
                 roomList.append("Room ").append(i);
                 if (i < numberOfRooms) {
                     roomList.append(", ");
@@ -72,8 +131,12 @@ public class SmartOffice {
 
         // Main command loop for room management
         while (true) {
-            System.out.println("Enter command (Add occupant / Block room / Cancel room / Room statistics): ");
+            System.out.println("Enter command (Add occupant / Block room / Block recurring / Skip occurrence / Restore occurrence / Find room / Cancel room / Undo / Room statistics): ");
             String command = scanner.nextLine().trim();
+            if (authService.validate(sessionToken) == null) {
+                System.out.println("Your session has expired. Please log in again.");
+                return;
+            }
 
             // Add Occupant Command
             if (command.equalsIgnoreCase("Add occupant")) {
@@ -132,21 +195,95 @@ public class SmartOffice {
                     int roomId = Integer.parseInt(inputs[0]);
                     String startTime = inputs[1];
                     int duration = Integer.parseInt(inputs[2]);
+                    if (duration <= 0) {
+                        System.out.println("Duration must be positive.");
+                        continue;
+                    }
+
+                    Room room = officeConfig.getRoom(roomId);
+                    if (room == null) {
+                        System.out.println("Room " + roomId + " does not exist.");
+                        continue;
+                    }
+
+                    // The command checks and books atomically, so concurrent clients cannot double-book
+                    long start = TimeParser.parse(startTime);
+                    BookingCommand bookingCommand = new BookingCommand(room, start, duration);
+                    commandProcessor.execute(bookingCommand);
+                    if (!bookingCommand.isApplied()) { // The slot overlaps another booking: wait for it
+                        BookingWaitlist.Request request = waitlist.enqueue(authService.validate(sessionToken), room, start, duration);
+                        int position = waitlist.getPosition(request);
+                        if (position >= 0) {
+                            System.out.println("Added to the waitlist for Room " + roomId + " at position " + (position + 1)
+                                    + ". The room will be booked automatically when the slot frees up.");
+                            request.getPromotion().thenAccept(booked -> System.out.println(booked
+                                    ? "Waitlist: Room " + roomId + " booked from " + startTime + " for " + duration + " minutes."
+                                    : "Waitlist: request for Room " + roomId + " at " + startTime + " expired."));
+                        } else if (request.getPromotion().join()) { // No longer waiting, so completed or about to be
+                            System.out.println("The slot just freed up: Room " + roomId + " booked from " + startTime + " for " + duration + " minutes.");
+                        }
+                    }
+                } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException | DateTimeParseException e) {
+                    System.out.println("Invalid input. Please provide valid roomId, start time (HH:mm), and duration.");
+                }
+            }
+
+            // Block Recurring Command
+            else if (command.equalsIgnoreCase("Block recurring")) {
+                System.out.println("Block recurring [roomId] [startTime] [duration] [daily|weekly|Nweeks|monthly|monthly-last] [occurrences, 0 = no end]: ");
+                try {
+                    String[] inputs = scanner.nextLine().split(" ");
+                    int roomId = Integer.parseInt(inputs[0]);
+                    Room room = officeConfig.getRoom(roomId);
+                    if (room == null) {
+                        System.out.println("Room " + roomId + " does not exist.");
+                        continue;
+                    }
+
+                    RecurrenceRule rule = RecurringBookingCommand.parseRule(TimeParser.parse(inputs[1]), Integer.parseInt(inputs[2]),
+                            inputs[3], Long.parseLong(inputs[4]));
+                    commandProcessor.execute(new RecurringBookingCommand(room, rule));
+                } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException | DateTimeParseException e) {
+                    System.out.println("Invalid input. Please provide valid roomId, start time (HH:mm), duration, repeat pattern and occurrences.");
+                }
+            }
 
+            // Skip Occurrence / Restore Occurrence Commands
+            else if (command.equalsIgnoreCase("Skip occurrence") || command.equalsIgnoreCase("Restore occurrence")) {
+                boolean skip = command.equalsIgnoreCase("Skip occurrence");
+                System.out.println((skip ? "Skip" : "Restore") + " occurrence [roomId] [startTime of the occurrence]: ");
+                try {
+                    String[] inputs = scanner.nextLine().split(" ");
+                    int roomId = Integer.parseInt(inputs[0]);
                     Room room = officeConfig.getRoom(roomId);
                     if (room == null) {
                         System.out.println("Room " + roomId + " does not exist.");
                         continue;
                     }
 
-                    if (room.isBooked()) {
-                        System.out.println("Room " + roomId + " is already booked during this time. Cannot book.");
+                    commandProcessor.execute(new OccurrenceCommand(room, TimeParser.parse(inputs[1]), skip));
+                } catch (NumberFormatException | ArrayIndexOutOfBoundsException | DateTimeParseException e) {
+                    System.out.println("Invalid input. Please provide a valid roomId and start time.");
+                }
+            }
+
+            // Find Room Command
+            else if (command.equalsIgnoreCase("Find room")) {
+                System.out.println("Find room [capacity] [startTime] [duration]: ");
+                try {
+                    String[] inputs = scanner.nextLine().split(" ");
+                    int capacity = Integer.parseInt(inputs[0]);
+                    String startTime = inputs[1];
+                    int duration = Integer.parseInt(inputs[2]);
+
+                    Room room = officeConfig.findFreeRoom(capacity, TimeParser.parse(startTime), duration);
+                    if (room == null) {
+                        System.out.println("No room with capacity " + capacity + " is free at " + startTime + " for " + duration + " minutes.");
                     } else {
-                        BookingCommand bookingCommand = new BookingCommand(room, startTime, duration);
-                        bookingCommand.execute();
+                        System.out.println("Room " + room.getRoomId() + " (capacity " + room.getCapacity() + ") is free at " + startTime + " for " + duration + " minutes.");
                     }
-                } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
-                    System.out.println("Invalid input. Please provide valid roomId, start time, and duration.");
+                } catch (NumberFormatException | ArrayIndexOutOfBoundsException | DateTimeParseException e) {
+                    System.out.println("Invalid input. Please provide valid capacity, start time (HH:mm), and duration.");
                 }
             }
 
@@ -161,26 +298,43 @@ public class SmartOffice {
                         continue;
                     }
 
-                    if (room.isBooked()) {
-                        room.cancelBooking();
-                    } else {
-                        System.out.println("Room " + roomId + " is not booked. Cannot cancel booking.");
-                    }
+                    commandProcessor.execute(new CancellationCommand(room));
                 } catch (NumberFormatException e) {
                     System.out.println("Invalid input. Please provide a valid roomId.");
                 }
             }
 
+            // Undo Command
+            else if (command.equalsIgnoreCase("Undo")) {
+                RoomCommand undone = commandProcessor.undo();
+                if (undone == null) {
+                    System.out.println("Nothing to undo.");
+                } else {
+                    System.out.println("Undid last change to Room " + undone.getRoom().getRoomId() + ".");
+                }
+            }
+
             // Room Usage Statistics Command
             else if (command.equalsIgnoreCase("Room statistics")) {
-                System.out.println("Room Usage Statistics:");
-                for (int i = 1; i <= numberOfRooms; i++) {
-                    Room room = officeConfig.getRoom(i);
-                    if (room != null) {
-                        System.out.println("Room " + room.getRoomId() + ":");
-                        System.out.println("  Total bookings: " + room.getTotalBookings());
-                        System.out.println("  Total occupied time: " + room.getTotalOccupiedTime() + " ms");
+                System.out.println("Room statistics [page] [csv|json] (" + STATISTICS_PAGE_SIZE + " rooms per page, Enter for page 1): ");
+                try {
+                    String[] inputs = scanner.nextLine().trim().split("\\s+");
+                    int page = inputs[0].isEmpty() ? 1 : Integer.parseInt(inputs[0]);
+                    StatisticsReport.Format format = inputs.length > 1 ? StatisticsReport.Format.valueOf(inputs[1].toUpperCase()) : StatisticsReport.Format.CSV;
+                    if (page < 1) {
+                        System.out.println("Invalid input. Page numbers start at 1.");
+                        continue;
                     }
+                    System.out.println("Room Usage Statistics:");
+                    int total = statisticsReport.write(Channels.newChannel(System.out), format, null,
+                            (page - 1) * STATISTICS_PAGE_SIZE, STATISTICS_PAGE_SIZE);
+                    System.out.flush();
+                    int pages = Math.max(1, (total + STATISTICS_PAGE_SIZE - 1) / STATISTICS_PAGE_SIZE);
+                    System.out.println("Page " + page + " of " + pages + " (" + total + " rooms).");
+                } catch (IllegalArgumentException e) {
+                    System.out.println("Invalid input. Please provide a page number and csv or json.");
+                } catch (IOException e) {
+                    System.out.println("Could not write the report: " + e.getMessage());
                 }
             }
 
@@ -201,4 +355,17 @@ public class SmartOffice {
             }
         }
     }
+
+    // Load the user file if there is one, otherwise use the built-in users; null if the file cannot be read
+    private static AuthenticationService loadUsers(Path usersFile) {
+        if (!Files.exists(usersFile)) {
+            return new AuthenticationService();
+        }
+        try {
+            return new AuthenticationService(usersFile, AuthenticationService.DEFAULT_TTL_MILLIS);
+        } catch (IOException e) {
+            System.out.println("Could not read users from " + usersFile + ", not starting: " + e.getMessage());
+            return null;
+        }
+    }
 }
@@ -0,0 +1,281 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * StatisticsReport renders the usage statistics of every room as CSV or JSON.
+ * Each room's row is rendered once and cached as bytes together with the room's version;
+ * a later report re-renders only the rows whose room changed since, plus rows whose figures
+ * move with the clock (ongoing occupancy, at most once per refresh interval, and the 7-day
+ * window at each hour boundary). The rows of the requested page are picked under the
+ * report's lock, then copied into one buffer and written to the channel in large chunks
+ * outside it, so a slow reader does not hold up other reports, and a report over tens of
+ * thousands of rooms costs a few writes.
+ * Besides the totals, each row carries the room's occupied time by local hour of day and by
+ * weekday: CSV shows the busiest hour and weekday, JSON also lists the full histograms.
+ * Reports can be filtered and paged; rows are ordered by room ID.
+ */
+public class StatisticsReport {
+    private static final long HOUR_MILLIS = 60L * 60 * 1000;
+    private static final byte[] CSV_HEADER = "room,capacity,occupants,totalBookings,totalOccupiedMillis,weeklyUtilization,peakOccupants,busiestHour,busiestWeekday\n"
+            .getBytes(StandardCharsets.UTF_8);
+
+    public enum Format {
+        CSV, JSON
+    }
+
+    private final OfficeConfiguration officeConfig;
+    private final long refreshMillis; // Longest time an occupied room's row is reused
+    private final TreeMap<Integer, Row> rows = new TreeMap<>(); // Cached rows by room ID
+    private long rendered; // Rows rendered since creation
+
+    /**
+     * One room's figures as of its last render.
+     */
+    public static final class Row {
+        private final int roomId;
+        private final long version; // Room version the row was rendered from
+        private final long renderedAt; // Render time in epoch milliseconds
+        private final int capacity;
+        private final int occupants;
+        private final int totalBookings;
+        private final long occupiedMillis;
+        private final double utilization;
+        private final int peakOccupants;
+        private final long[] occupiedByHourOfDay = new long[24]; // Completed occupied ms per local hour of day
+        private final long[] occupiedByWeekday = new long[7]; // Completed occupied ms per local weekday, Monday first
+        private byte[] csv; // Rendered lazily per format
+        private byte[] json;
+
+        private Row(Room room, long now) {
+            synchronized (room) { // One consistent view of the room
+                this.roomId = room.getRoomId();
+                this.version = room.getVersion();
+                this.renderedAt = now;
+                this.capacity = room.getCapacity();
+                this.occupants = room.getOccupants();
+                this.totalBookings = room.getTotalBookings();
+                this.occupiedMillis = room.getTotalOccupiedTime();
+                this.utilization = room.getWeeklyUtilization();
+                this.peakOccupants = room.getPeakOccupants();
+                RoomStatistics statistics = room.getStatistics();
+                for (int hour = 0; hour < 24; hour++) {
+                    occupiedByHourOfDay[hour] = statistics.getOccupiedTimeByHourOfDay(hour);
+                }
+                for (int weekday = 0; weekday < 7; weekday++) {
+                    occupiedByWeekday[weekday] = statistics.getOccupiedTimeByWeekday(weekday);
+                }
+            }
+        }
+
+        public int getRoomId() {
+            return roomId;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public int getOccupants() {
+            return occupants;
+        }
+
+        public int getTotalBookings() {
+            return totalBookings;
+        }
+
+        public long getOccupiedMillis() {
+            return occupiedMillis;
+        }
+
+        public double getUtilization() {
+            return utilization;
+        }
+
+        public int getPeakOccupants() {
+            return peakOccupants;
+        }
+
+        /**
+         * Get the occupied time that fell into a local hour of day, not counting the ongoing occupancy.
+         * @param hour Hour of day, 0-23
+         * @return Occupied milliseconds
+         */
+        public long getOccupiedMillisByHourOfDay(int hour) {
+            return occupiedByHourOfDay[hour];
+        }
+
+        /**
+         * Get the occupied time that fell on a local weekday, not counting the ongoing occupancy.
+         * @param weekday Day of week, 0 = Monday ... 6 = Sunday
+         * @return Occupied milliseconds
+         */
+        public long getOccupiedMillisByWeekday(int weekday) {
+            return occupiedByWeekday[weekday];
+        }
+
+        // Get the local hour of day with the most occupied time, or -1 if the room was never occupied
+        public int getBusiestHourOfDay() {
+            return busiest(occupiedByHourOfDay);
+        }
+
+        // Get the weekday with the most occupied time, 0 = Monday, or -1 if the room was never occupied
+        public int getBusiestWeekday() {
+            return busiest(occupiedByWeekday);
+        }
+
+        private byte[] bytes(Format format) {
+            int busiestHour = getBusiestHourOfDay();
+            int busiestWeekday = getBusiestWeekday();
+            if (format == Format.CSV) {
+                if (csv == null) {
+                    csv = (roomId + "," + capacity + "," + occupants + "," + totalBookings + "," + occupiedMillis + ","
+                            + fraction(utilization) + "," + peakOccupants + "," + (busiestHour < 0 ? "" : busiestHour) + ","
+                            + (busiestWeekday < 0 ? "" : DayOfWeek.of(busiestWeekday + 1)) + "\n").getBytes(StandardCharsets.UTF_8);
+                }
+                return csv;
+            }
+            if (json == null) {
+                json = ("{\"id\": " + roomId + ", \"capacity\": " + capacity + ", \"occupants\": " + occupants
+                        + ", \"totalBookings\": " + totalBookings + ", \"totalOccupiedMillis\": " + occupiedMillis
+                        + ", \"weeklyUtilization\": " + fraction(utilization)
+                        + ", \"peakOccupants\": " + peakOccupants
+                        + ", \"busiestHour\": " + (busiestHour < 0 ? "null" : busiestHour)
+                        + ", \"busiestWeekday\": " + (busiestWeekday < 0 ? "null" : "\"" + DayOfWeek.of(busiestWeekday + 1) + "\"")
+                        + ", \"occupiedMillisByHour\": " + Arrays.toString(occupiedByHourOfDay)
+                        + ", \"occupiedMillisByWeekday\": " + Arrays.toString(occupiedByWeekday) + "}").getBytes(StandardCharsets.UTF_8);
+            }
+            return json;
+        }
+    }
+
+    /**
+     * Create a report over an office.
+     * @param officeConfig Office whose rooms are reported
+     * @param refreshMillis Longest time the row of an occupied room is reused
+     */
+    public StatisticsReport(OfficeConfiguration officeConfig, long refreshMillis) {
+        this.officeConfig = officeConfig;
+        this.refreshMillis = refreshMillis;
+    }
+
+    /**
+     * Write the matching rows to a channel.
+     * @param channel Destination; not closed
+     * @param format CSV (with a header line) or JSON (one array)
+     * @param filter Rows to include, or null for all
+     * @param offset Number of matching rows to skip
+     * @param limit Maximum number of rows to write
+     * @return Number of matching rows in total, for paging
+     * @throws IOException if the channel cannot be written
+     */
+    public int write(WritableByteChannel channel, Format format, Predicate<Row> filter, int offset, int limit) throws IOException {
+        List<byte[]> page = new ArrayList<>();
+        int matching = 0;
+        synchronized (this) {
+            refresh(System.currentTimeMillis());
+            for (Row row : rows.values()) {
+                if (filter != null && !filter.test(row)) {
+                    continue;
+                }
+                if (matching++ >= offset && page.size() < limit) {
+                    page.add(row.bytes(format));
+                }
+            }
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        put(channel, buffer, format == Format.CSV ? CSV_HEADER : new byte[] {'['});
+        for (int i = 0; i < page.size(); i++) {
+            if (format == Format.JSON && i > 0) {
+                put(channel, buffer, new byte[] {',', ' '});
+            }
+            put(channel, buffer, page.get(i));
+        }
+        if (format == Format.JSON) {
+            put(channel, buffer, new byte[] {']', '\n'});
+        }
+        drain(channel, buffer);
+        return matching;
+    }
+
+    // Get the number of rows rendered since creation; cached rows are not counted
+    public synchronized long getRowsRendered() {
+        return rendered;
+    }
+
+    // Bring the cached rows up to date with the rooms
+    private void refresh(long now) {
+        for (Room room : officeConfig.getRooms()) {
+            Row row = rows.get(room.getRoomId());
+            if (row == null || isStale(row, room, now)) {
+                rows.put(room.getRoomId(), new Row(room, now));
+                rendered++;
+            }
+        }
+        if (rows.size() > officeConfig.getRooms().size()) {
+            for (Iterator<Map.Entry<Integer, Row>> it = rows.entrySet().iterator(); it.hasNext(); ) {
+                if (officeConfig.getRoom(it.next().getKey()) == null) {
+                    it.remove(); // The room was removed
+                }
+            }
+        }
+    }
+
+    private boolean isStale(Row row, Room room, long now) {
+        if (row.version != room.getVersion()) {
+            return true;
+        }
+        if (row.occupants > 0 && now - row.renderedAt >= refreshMillis) {
+            return true; // Occupied time keeps growing
+        }
+        // Hours drop out of the 7-day window on the hour
+        return row.utilization > 0 && now / HOUR_MILLIS != row.renderedAt / HOUR_MILLIS;
+    }
+
+    // Index of the largest value, the first one on ties, or -1 if all are 0
+    private static int busiest(long[] values) {
+        int busiest = -1;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] > 0 && (busiest < 0 || values[i] > values[busiest])) {
+                busiest = i;
+            }
+        }
+        return busiest;
+    }
+
+    // Format a value between 0 and 1 with four decimals, like "%.4f" but without a Formatter
+    private static String fraction(double value) {
+        long tenThousandths = Math.round(value * 10_000);
+        String digits = Long.toString(10_000 + tenThousandths % 10_000);
+        return tenThousandths / 10_000 + "." + digits.substring(1);
+    }
+
+    private static void put(WritableByteChannel channel, ByteBuffer buffer, byte[] bytes) throws IOException {
+        int from = 0;
+        while (from < bytes.length) {
+            if (!buffer.hasRemaining()) {
+                drain(channel, buffer);
+            }
+            int n = Math.min(buffer.remaining(), bytes.length - from);
+            buffer.put(bytes, from, n);
+            from += n;
+        }
+    }
+
+    private static void drain(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,188 @@
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.time.zone.ZoneOffsetTransition;
+
+/**
+ * TimeParser converts the times users type into epoch minutes, the only time representation
+ * used inside the office, and back for display.
+ * Parsing works on characters directly and allocates nothing in the steady state: the epoch
+ * minute of local midnight and the zone offset are cached per day and recomputed only when
+ * the day changes or a daylight saving transition falls inside it.
+ * Accepted formats: "HH:mm" or "H:mm" (today), and "yyyy-MM-ddTHH:mm" or "yyyy-MM-dd HH:mm".
+ */
+public final class TimeParser {
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private static volatile ZoneId zone = ZoneId.systemDefault();
+    private static volatile Day today; // Day of the last "HH:mm" parse
+    private static volatile Day lastDate; // Day of the last full date parse
+
+    // Local midnight and offset of one day; immutable so it can be shared without locking
+    private static final class Day {
+        final long epochDay; // Days since 1970-01-01
+        final long midnight; // Local midnight in epoch minutes
+        final int offsetMinutes; // Zone offset at midnight
+        final long transition; // First offset change within the day (epoch minutes), or Long.MAX_VALUE
+
+        Day(long epochDay, ZoneId zone) {
+            this.epochDay = epochDay;
+            LocalDateTime start = LocalDateTime.of(1970, 1, 1, 0, 0).plusDays(epochDay);
+            long midnightSecond = start.atZone(zone).toEpochSecond();
+            this.midnight = Math.floorDiv(midnightSecond, 60L);
+            this.offsetMinutes = zone.getRules().getOffset(Instant.ofEpochSecond(midnightSecond)).getTotalSeconds() / 60;
+            // From just before the day starts: where DST begins at midnight, the day starts on the transition itself
+            ZoneOffsetTransition next = zone.getRules().nextTransition(Instant.ofEpochSecond(midnightSecond - 1));
+            long nextMinute = next == null ? Long.MAX_VALUE : next.getInstant().getEpochSecond() / 60;
+            this.transition = nextMinute < midnight + MINUTES_PER_DAY + 180 ? nextMinute : Long.MAX_VALUE;
+        }
+
+        // Convert a local minute of this day; days with a DST transition take the java.time path
+        long at(int minuteOfDay, ZoneId zone) {
+            if (transition == Long.MAX_VALUE) {
+                return midnight + minuteOfDay;
+            }
+            LocalDateTime local = LocalDateTime.of(1970, 1, 1, 0, 0).plusDays(epochDay).plusMinutes(minuteOfDay);
+            return local.atZone(zone).toEpochSecond() / 60;
+        }
+    }
+
+    private TimeParser() {
+    }
+
+    /**
+     * Parse a time as typed by a user.
+     * @param text "HH:mm" for today, or a full local date and time
+     * @return The time in epoch minutes
+     * @throws DateTimeParseException if the text is not a valid time
+     */
+    public static long parse(CharSequence text) {
+        return parse(text, 0, text.length());
+    }
+
+    /**
+     * Parse a time from part of a character sequence, e.g. a field of an input line.
+     * @param text Characters to read
+     * @param from Index of the first character
+     * @param to Index after the last character
+     * @return The time in epoch minutes
+     * @throws DateTimeParseException if the characters are not a valid time
+     */
+    public static long parse(CharSequence text, int from, int to) {
+        int length = to - from;
+        if (length == 4 || length == 5) {
+            int minuteOfDay = minuteOfDay(text, from, to);
+            if (minuteOfDay >= 0) {
+                ZoneId currentZone = zone;
+                long todayEpochDay = Math.floorDiv(System.currentTimeMillis() / 60_000L + currentOffset(), MINUTES_PER_DAY);
+                return day(todayEpochDay, true).at(minuteOfDay, currentZone);
+            }
+        } else if (length == 16 && text.charAt(from + 4) == '-' && text.charAt(from + 7) == '-'
+                && (text.charAt(from + 10) == 'T' || text.charAt(from + 10) == ' ')) {
+            int year = digits(text, from, 4);
+            int month = digits(text, from + 5, 2);
+            int dayOfMonth = digits(text, from + 8, 2);
+            int minuteOfDay = minuteOfDay(text, from + 11, to);
+            if (year >= 0 && month >= 1 && month <= 12 && dayOfMonth >= 1 && dayOfMonth <= daysInMonth(year, month) && minuteOfDay >= 0) {
+                return day(epochDay(year, month, dayOfMonth), false).at(minuteOfDay, zone);
+            }
+        }
+        throw new DateTimeParseException("Text '" + text.subSequence(from, to) + "' is not a valid time", text, from);
+    }
+
+    /**
+     * Format epoch minutes for display ("yyyy-MM-ddTHH:mm", local time).
+     * @param epochMinute Time in epoch minutes
+     * @return Human-readable time
+     */
+    public static String format(long epochMinute) {
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(epochMinute * 60), zone).toString();
+    }
+
+    /**
+     * Format epoch minutes as "HH:mm" if they fall on the current day, otherwise in full.
+     * @param epochMinute Time in epoch minutes
+     * @return Human-readable time
+     */
+    public static String formatTime(long epochMinute) {
+        String full = format(epochMinute);
+        return full.startsWith(format(System.currentTimeMillis() / 60_000L).substring(0, 10)) ? full.substring(11) : full;
+    }
+
+    // Get the zone local times are interpreted in
+    static ZoneId getZone() {
+        return zone;
+    }
+
+    // Use another zone, e.g. in tests; the cached days are dropped
+    static void setZone(ZoneId newZone) {
+        zone = newZone;
+        today = null;
+        lastDate = null;
+    }
+
+    // Offset of the current time in minutes, from the cached day when possible
+    private static int currentOffset() {
+        Day cached = today;
+        long now = System.currentTimeMillis() / 60_000L;
+        if (cached != null && now >= cached.midnight && now < cached.midnight + MINUTES_PER_DAY && now < cached.transition) {
+            return cached.offsetMinutes;
+        }
+        return zone.getRules().getOffset(Instant.ofEpochSecond(now * 60)).getTotalSeconds() / 60;
+    }
+
+    private static Day day(long epochDay, boolean isToday) {
+        Day cached = isToday ? today : lastDate;
+        if (cached == null || cached.epochDay != epochDay) {
+            cached = new Day(epochDay, zone);
+            if (isToday) {
+                today = cached;
+            } else {
+                lastDate = cached;
+            }
+        }
+        return cached;
+    }
+
+    // Parse "HH:mm" or "H:mm"; returns -1 if invalid
+    private static int minuteOfDay(CharSequence text, int from, int to) {
+        int colon = to - 3;
+        if (colon < from + 1 || colon > from + 2 || text.charAt(colon) != ':') {
+            return -1;
+        }
+        int hour = digits(text, from, colon - from);
+        int minute = digits(text, colon + 1, 2);
+        return hour < 0 || hour > 23 || minute < 0 || minute > 59 ? -1 : hour * 60 + minute;
+    }
+
+    // Parse a fixed number of decimal digits; returns -1 if any character is not a digit
+    private static int digits(CharSequence text, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        if (month == 2) {
+            return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+        }
+        return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+    }
+
+    // Days since 1970-01-01 of a proleptic Gregorian date, without java.time objects
+    private static long epochDay(int year, int month, int dayOfMonth) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + dayOfMonth - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+}
@@ -0,0 +1,231 @@
+import java.io.Closeable;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * TimerWheel is a hashed timing wheel for large numbers of pending timers.
+ * Time is divided into ticks; each tick maps to a bucket of a circular array, and a timer
+ * lands in the bucket of its deadline with a count of remaining wheel rotations.
+ * Scheduling and cancelling are O(1): both only enqueue, and a single worker thread moves
+ * new timers into their buckets, unlinks cancelled ones and runs expired tasks on each tick.
+ * No thread is created per timer.
+ */
+public class TimerWheel implements Closeable {
+    private static final int MAX_TRANSFERS_PER_TICK = 100_000; // Keeps a scheduling burst from stalling a tick
+
+    private final long tickMillis;
+    private final int mask; // Wheel size - 1; the size is a power of two
+    private final Bucket[] wheel;
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>(); // Scheduled, not yet in a bucket
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>(); // Cancelled, not yet unlinked
+    private final AtomicLong pendingTimers = new AtomicLong();
+    private final long startTime;
+    private final Thread worker;
+    private volatile boolean running = true;
+    private long tick; // Ticks processed so far; owned by the worker thread
+
+    /**
+     * A handle to a scheduled task.
+     */
+    public final class Timeout {
+        private static final int INIT = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final Runnable task;
+        private final long deadline; // Epoch milliseconds
+        private final AtomicInteger state = new AtomicInteger(INIT);
+        private long remainingRounds;
+        private Bucket bucket;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancel the timer. The task will not run if this returns true.
+         * @return true if the timer was still pending
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(INIT, CANCELLED)) {
+                return false;
+            }
+            cancelled.add(this); // Unlinked by the worker on its next tick
+            pendingTimers.decrementAndGet();
+            return true;
+        }
+
+        // Get the deadline in epoch milliseconds
+        public long getDeadline() {
+            return deadline;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+
+        private void expire() {
+            if (!state.compareAndSet(INIT, EXPIRED)) {
+                return;
+            }
+            pendingTimers.decrementAndGet();
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                System.out.println("TimerWheel: task failed: " + e.getMessage());
+            }
+        }
+    }
+
+    // Doubly-linked list of timers sharing a bucket
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        Timeout remove(Timeout timeout) {
+            Timeout next = timeout.next;
+            if (timeout.prev != null) {
+                timeout.prev.next = next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            }
+            if (timeout == head) {
+                head = next;
+            }
+            if (timeout == tail) {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+            return next;
+        }
+    }
+
+    /**
+     * Create a wheel and start its worker thread.
+     * @param tickMillis Duration of one tick; timers fire with at most this much delay
+     * @param wheelSize Number of buckets, rounded up to a power of two
+     */
+    public TimerWheel(long tickMillis, int wheelSize) {
+        if (tickMillis <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("Tick duration and wheel size must be positive.");
+        }
+        int size = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+        this.tickMillis = tickMillis;
+        this.mask = size - 1;
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.startTime = System.currentTimeMillis();
+        this.worker = new Thread(this::run, "timer-wheel");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Schedule a task to run on the wheel's worker thread at (or just after) the deadline.
+     * Deadlines in the past fire on the next tick.
+     * @param task Task to run; it should be short, as it runs on the shared worker thread
+     * @param deadlineMillis Deadline in epoch milliseconds
+     * @return Handle that can cancel the timer
+     */
+    public Timeout schedule(Runnable task, long deadlineMillis) {
+        Timeout timeout = new Timeout(task, deadlineMillis);
+        pendingTimers.incrementAndGet();
+        pending.add(timeout);
+        return timeout;
+    }
+
+    // Get the number of timers that have neither fired nor been cancelled
+    public long getPendingTimers() {
+        return pendingTimers.get();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        worker.interrupt();
+    }
+
+    private void run() {
+        while (running) {
+            long nextTickTime = startTime + (tick + 1) * tickMillis;
+            long sleep = nextTickTime - System.currentTimeMillis();
+            if (sleep > 0) {
+                try {
+                    Thread.sleep(sleep);
+                } catch (InterruptedException e) {
+                    if (!running) {
+                        return;
+                    }
+                }
+                continue;
+            }
+            unlinkCancelled();
+            transferPending();
+            expire(wheel[(int) (tick & mask)]);
+            tick++;
+        }
+    }
+
+    private void transferPending() {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+            Timeout timeout = pending.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.isCancelled()) {
+                continue;
+            }
+            long deadlineTick = Math.max((timeout.deadline - startTime) / tickMillis, tick); // Late timers fire now
+            timeout.remainingRounds = (deadlineTick - tick) / wheel.length;
+            wheel[(int) (deadlineTick & mask)].add(timeout);
+        }
+    }
+
+    private void unlinkCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    private void expire(Bucket bucket) {
+        Timeout timeout = bucket.head;
+        while (timeout != null) {
+            if (timeout.remainingRounds <= 0) {
+                Timeout next = bucket.remove(timeout);
+                timeout.expire();
+                timeout = next;
+            } else {
+                timeout.remainingRounds--;
+                timeout = timeout.next;
+            }
+        }
+    }
+}
@@ -1,20 +1,37 @@
-
+import java.util.Arrays;
 
 class User {
     private String username;
-    private String password;
+    private String role; // "admin" or "user"
+    private byte[] salt; // Random per-user salt
+    private byte[] passwordHash; // PBKDF2 hash of the password with the salt
+    private int iterations; // PBKDF2 iteration count used for the hash
 
-    public User(String username, String password) {
+    public User(String username, String role, byte[] salt, byte[] passwordHash, int iterations) {
         this.username = username;
-        this.password = password;
+        this.role = role;
+        this.salt = salt.clone();
+        this.passwordHash = passwordHash.clone();
+        this.iterations = iterations;
     }
 
     public String getUsername() {
         return username;
     }
 
-    public String getPassword() {
-        return password;
+    public String getRole() {
+        return role;
+    }
+
+    public byte[] getSalt() {
+        return salt.clone();
     }
-}
 
+    public byte[] getPasswordHash() {
+        return Arrays.copyOf(passwordHash, passwordHash.length);
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+}
@@ -0,0 +1,42 @@
+import bench.ChannelLookup;
+
+/**
+ * NotificationBenchmarkFixture holds the two channel lookups compared by the JMH
+ * NotificationFactoryBenchmarks: the factory as it was before the registry, and the registry.
+ */
+public class NotificationBenchmarkFixture {
+    private NotificationBenchmarkFixture() {
+    }
+
+    // The factory as it was before the registry: toUpperCase, a string switch and a new sender per call
+    public static final class Legacy implements ChannelLookup {
+        @Override
+        public Object lookup(String type) {
+            if (type == null) {
+                return null;
+            }
+            switch (type.toUpperCase()) {
+                case "EMAIL":
+                    return new EmailNotification();
+                case "SMS":
+                    return new SMSNotification();
+                case "PUSH":
+                    return new PushNotification();
+                case "INSTAGRAM":
+                    return new InstagramNotification();
+                case "WHATSAPP":
+                    return new WhatsAppNotification();
+                default:
+                    return null;
+            }
+        }
+    }
+
+    // The allocation-free registry lookup returning shared senders
+    public static final class Registry implements ChannelLookup {
+        @Override
+        public Object lookup(String type) {
+            return NotificationRegistry.lookup(type);
+        }
+    }
+}
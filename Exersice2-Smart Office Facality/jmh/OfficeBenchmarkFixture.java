@@ -0,0 +1,110 @@
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+import bench.OfficeOperations;
+
+/**
+ * OfficeBenchmarkFixture runs the benchmarked operations on a real office for the JMH
+ * benchmarks in the bench package, which cannot see the default package themselves.
+ */
+public class OfficeBenchmarkFixture implements OfficeOperations {
+    private final OfficeConfiguration config = new OfficeConfiguration();
+    private final AuthenticationService authService = new AuthenticationService();
+    private final CommandProcessor processor = new CommandProcessor(Integer.MAX_VALUE);
+
+    // Observer doing a little work of its own; each keeps its result, so nothing is shared between observers
+    private static final class CountingObserver implements Observer {
+        private final int id;
+        long last;
+
+        CountingObserver(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public void update(Room room) {
+            last = room.getOccupants() + id;
+        }
+    }
+
+    public OfficeBenchmarkFixture(int rooms, int observersPerRoom) {
+        for (int roomId = 1; roomId <= rooms; roomId++) {
+            config.addRoom(roomId, 10);
+            Room room = config.getRoom(roomId);
+            for (int o = 0; o < observersPerRoom; o++) {
+                room.addObserver(new CountingObserver(o));
+            }
+        }
+    }
+
+    @Override
+    public Object getRoom(int roomId) {
+        return config.getRoom(roomId);
+    }
+
+    @Override
+    public int setOccupancy(int roomId, int occupants, long timestamp) {
+        Room room = config.getRoom(roomId);
+        room.setOccupancy(occupants, timestamp);
+        return room.getOccupants();
+    }
+
+    // BookingCommand.execute() is apply() plus a println; the console output is left out here
+    @Override
+    public boolean bookAndUndo(int roomId, long start, int duration) {
+        BookingCommand command = new BookingCommand(config.getRoom(roomId), start, duration);
+        boolean applied = command.apply();
+        command.undo();
+        return applied;
+    }
+
+    @Override
+    public int bulkImport(int rooms) {
+        List<BookingCommand> commands = new ArrayList<>(rooms * 50);
+        for (int roomId = 1; roomId <= rooms; roomId++) {
+            Room room = config.getRoom(roomId);
+            for (int day = 0; day < 5; day++) {
+                for (int hour = 8; hour < 18; hour++) {
+                    commands.add(new BookingCommand(room, day * 1440L + hour * 60, 60));
+                }
+            }
+        }
+        return processor.process(commands).size();
+    }
+
+    @Override
+    public void undoImport() {
+        processor.undo(processor.getHistorySize());
+    }
+
+    @Override
+    public boolean authenticate(String username, String password) {
+        return authService.authenticate(username, password);
+    }
+
+    @Override
+    public String login(String username, String password) {
+        return authService.login(username, password);
+    }
+
+    @Override
+    public Object validate(String token) {
+        return authService.validate(token);
+    }
+
+    @Override
+    public long parseTime(CharSequence text) {
+        return TimeParser.parse(text);
+    }
+
+    @Override
+    public void statisticsLoop(int rooms, Blackhole blackhole) {
+        for (int roomId = 1; roomId <= rooms; roomId++) {
+            Room room = config.getRoom(roomId);
+            blackhole.consume(room.getTotalBookings());
+            blackhole.consume(room.getTotalOccupiedTime());
+        }
+    }
+}
@@ -0,0 +1,34 @@
+import bench.TimerOperations;
+
+/**
+ * TimerBenchmarkFixture exposes a TimerWheel to the JMH benchmarks in the bench package.
+ */
+public class TimerBenchmarkFixture implements TimerOperations {
+    private static final Runnable NO_OP = () -> { };
+
+    private final TimerWheel wheel;
+
+    public TimerBenchmarkFixture(long tickMillis, int wheelSize) {
+        this.wheel = new TimerWheel(tickMillis, wheelSize);
+    }
+
+    @Override
+    public Object schedule(long delayMillis) {
+        return wheel.schedule(NO_OP, System.currentTimeMillis() + delayMillis);
+    }
+
+    @Override
+    public boolean cancel(Object timeout) {
+        return ((TimerWheel.Timeout) timeout).cancel();
+    }
+
+    @Override
+    public long pending() {
+        return wheel.getPendingTimers();
+    }
+
+    @Override
+    public void close() {
+        wheel.close();
+    }
+}
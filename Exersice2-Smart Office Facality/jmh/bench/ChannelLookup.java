@@ -0,0 +1,23 @@
+package bench;
+
+/**
+ * Resolves a notification channel name to its sender. Implemented in the default package by
+ * NotificationBenchmarkFixture, for the same reason as OfficeOperations.
+ */
+public interface ChannelLookup {
+    // Get the sender of a channel, or null if there is no such channel
+    Object lookup(String channel);
+
+    /**
+     * Create one of the fixture's implementations.
+     * @param implementation "Legacy" (the original factory) or "Registry"
+     */
+    static ChannelLookup create(String implementation) {
+        try {
+            return (ChannelLookup) Class.forName("NotificationBenchmarkFixture$" + implementation)
+                    .getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("No channel lookup named " + implementation, e);
+        }
+    }
+}
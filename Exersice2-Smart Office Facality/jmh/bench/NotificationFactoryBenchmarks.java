@@ -0,0 +1,62 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * NotificationFactoryBenchmarks compares the original NotificationFactory (toUpperCase, string
+ * switch, new sender per call) with the NotificationRegistry lookup, on one thread and on one
+ * thread per core in the nested Contended class. Mixed-case names are looked up in turn.
+ * Add JMH's GC profiler to see the bytes allocated per call:
+ *
+ *   java -jar target/benchmarks.jar NotificationFactoryBenchmarks -prof gc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(1)
+public class NotificationFactoryBenchmarks {
+    private static final String[] TYPES = {"email", "SMS", "Push", "instagram", "WhatsApp", "EMAIL", "sms", "push"};
+
+    /**
+     * The same benchmarks with one thread per core.
+     */
+    @Threads(Threads.MAX)
+    public static class Contended extends NotificationFactoryBenchmarks {
+    }
+
+    @Param({"Legacy", "Registry"})
+    String implementation;
+
+    private ChannelLookup channels;
+
+    @Setup
+    public void setUp() {
+        channels = ChannelLookup.create(implementation);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(8)
+    public void lookup(Blackhole blackhole) {
+        for (String type : TYPES) {
+            blackhole.consume(channels.lookup(type));
+        }
+    }
+}
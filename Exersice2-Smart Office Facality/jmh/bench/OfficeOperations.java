@@ -0,0 +1,58 @@
+package bench;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The Smart Office operations under benchmark. JMH only accepts benchmark classes in a named
+ * package, and a named package cannot refer to the application's classes in the default
+ * package, so the operations are implemented by OfficeBenchmarkFixture next to them and
+ * called through this interface. Every call site sees a single implementation, which the
+ * JIT inlines like a direct call.
+ */
+public interface OfficeOperations {
+    // Look up a room by ID; returns the room
+    Object getRoom(int roomId);
+
+    // Set a room's occupancy, notifying its observers; returns the new occupancy
+    int setOccupancy(int roomId, int occupants, long timestamp);
+
+    // Book a slot with a BookingCommand and undo it again; returns whether the booking applied
+    boolean bookAndUndo(int roomId, long start, int duration);
+
+    /**
+     * Import a week of hourly meetings (weekdays, 08:00 to 18:00) into the given number of
+     * rooms as one CommandProcessor batch; returns the number of rejected commands.
+     */
+    int bulkImport(int rooms);
+
+    // Undo every command applied by bulkImport
+    void undoImport();
+
+    // Check a password against its stored hash
+    boolean authenticate(String username, String password);
+
+    // Open a session; returns its token
+    String login(String username, String password);
+
+    // Resolve a session token; returns the user, or null
+    Object validate(String token);
+
+    // Parse an HH:mm or ISO date-time string to epoch minutes
+    long parseTime(CharSequence text);
+
+    // The "Room statistics" loop over the first rooms, without printing
+    void statisticsLoop(int rooms, Blackhole blackhole);
+
+    /**
+     * Create an office with the given number of rooms (IDs from 1, capacity 10), each with
+     * the given number of occupancy observers.
+     */
+    static OfficeOperations create(int rooms, int observersPerRoom) {
+        try {
+            return (OfficeOperations) Class.forName("OfficeBenchmarkFixture")
+                    .getConstructor(int.class, int.class).newInstance(rooms, observersPerRoom);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("OfficeBenchmarkFixture is not on the class path", e);
+        }
+    }
+}
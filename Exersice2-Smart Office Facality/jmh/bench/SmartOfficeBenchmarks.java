@@ -0,0 +1,160 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * SmartOfficeBenchmarks measures the Smart Office hot paths with JMH.
+ * Every benchmark runs single-threaded here and contended in the nested Contended class,
+ * where one thread per core shares the same few rooms. JMH writes the results as JSON,
+ * so runs can be compared between releases:
+ *
+ *   mvn -Pjmh package
+ *   java -jar target/benchmarks.jar SmartOfficeBenchmarks -rf json -rff results.json
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(1)
+public class SmartOfficeBenchmarks {
+    private static final int ROOMS = 10_000;
+    private static final int SHARED_ROOMS = 16; // Rooms every thread hits in contended runs
+    private static final int IMPORT_ROOMS = 100; // 5000 commands per bulk import
+
+    /**
+     * The same benchmarks with one thread per core.
+     */
+    @Threads(Threads.MAX)
+    public static class Contended extends SmartOfficeBenchmarks {
+    }
+
+    /**
+     * Per-thread invocation counter; threads start at different offsets.
+     */
+    @State(Scope.Thread)
+    public static class Invocation {
+        private static final AtomicLong THREADS = new AtomicLong();
+
+        long count = THREADS.getAndIncrement();
+
+        long next() {
+            return count++;
+        }
+    }
+
+    /**
+     * An office whose rooms have the given number of occupancy observers each.
+     */
+    @State(Scope.Benchmark)
+    public static class ObservedOffice {
+        @Param({"0", "1", "10", "100"})
+        int observers;
+
+        OfficeOperations office;
+
+        @Setup
+        public void setUp() {
+            office = OfficeOperations.create(ROOMS, observers);
+        }
+    }
+
+    /**
+     * An office per thread for bulk imports, emptied again after every import.
+     * Undoing per invocation is fine here, as one import takes milliseconds.
+     */
+    @State(Scope.Thread)
+    public static class ImportOffice {
+        OfficeOperations office;
+
+        @Setup
+        public void setUp() {
+            office = OfficeOperations.create(IMPORT_ROOMS, 0);
+        }
+
+        @TearDown(Level.Invocation)
+        public void undo() {
+            office.undoImport();
+        }
+    }
+
+    private final AtomicLong nextStart = new AtomicLong(); // Fresh booking slots for every call
+    private final String[] times = {"08:00", "9:15", "13:45", "2026-03-02T10:30"};
+    private OfficeOperations office;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        office = OfficeOperations.create(ROOMS, 0);
+        token = office.login("admin", "admin123");
+    }
+
+    @Benchmark
+    public Object getRoom(Invocation invocation) {
+        return office.getRoom((int) (invocation.next() % ROOMS) + 1);
+    }
+
+    @Benchmark
+    public int setOccupancy(ObservedOffice observed, Invocation invocation) {
+        long i = invocation.next();
+        // Alternates per room so every call is a change
+        return observed.office.setOccupancy(sharedRoom(i), (int) ((i / SHARED_ROOMS) & 1) + 1, i);
+    }
+
+    // Every call books a fresh slot and undoes it again, so calendars stay small
+    @Benchmark
+    public boolean bookingCommandApplyUndo(Invocation invocation) {
+        return office.bookAndUndo(sharedRoom(invocation.next()), nextStart.getAndAdd(30) % 1_000_000, 30);
+    }
+
+    // A week of meetings for 100 rooms through the CommandProcessor, timed per batch
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int bulkImport(ImportOffice imported) {
+        return imported.office.bulkImport(IMPORT_ROOMS);
+    }
+
+    @Benchmark
+    public boolean authenticate() {
+        return office.authenticate("admin", "admin123");
+    }
+
+    @Benchmark
+    public Object validateToken() {
+        return office.validate(token);
+    }
+
+    @Benchmark
+    public long parseTime(Invocation invocation) {
+        return office.parseTime(times[(int) (invocation.next() & 3)]);
+    }
+
+    @Benchmark
+    public void statisticsLoop(Blackhole blackhole) {
+        office.statisticsLoop(1000, blackhole);
+    }
+
+    // One of a few rooms shared by all threads, so contended runs really contend
+    private static int sharedRoom(long invocation) {
+        return (int) (invocation % SHARED_ROOMS) + 1;
+    }
+}
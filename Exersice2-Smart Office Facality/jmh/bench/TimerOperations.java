@@ -0,0 +1,33 @@
+package bench;
+
+/**
+ * A TimerWheel under benchmark. Implemented in the default package by TimerBenchmarkFixture,
+ * for the same reason as OfficeOperations.
+ */
+public interface TimerOperations extends AutoCloseable {
+    // Schedule a no-op timer the given number of milliseconds from now; returns its handle
+    Object schedule(long delayMillis);
+
+    // Cancel a timer returned by schedule; returns whether it was still pending
+    boolean cancel(Object timeout);
+
+    // Get the number of timers that have neither fired nor been cancelled
+    long pending();
+
+    @Override
+    void close();
+
+    /**
+     * Create a timer wheel.
+     * @param tickMillis Timer resolution
+     * @param wheelSize Number of buckets
+     */
+    static TimerOperations create(long tickMillis, int wheelSize) {
+        try {
+            return (TimerOperations) Class.forName("TimerBenchmarkFixture")
+                    .getConstructor(long.class, int.class).newInstance(tickMillis, wheelSize);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("TimerBenchmarkFixture is not on the class path", e);
+        }
+    }
+}
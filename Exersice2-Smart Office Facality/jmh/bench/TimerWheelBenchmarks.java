@@ -0,0 +1,68 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * TimerWheelBenchmarks measures scheduling and cancelling a timer while the wheel already
+ * holds millions of pending ones, as it does with two release timers per booking in a large
+ * building. The preloaded timers are spread over the next day, so none fire during the run,
+ * while the worker thread keeps walking their buckets every tick.
+ *
+ *   mvn -Pjmh package
+ *   java -jar target/benchmarks.jar TimerWheelBenchmarks -rf json -rff results.json
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Threads(1)
+public class TimerWheelBenchmarks {
+    private static final long DAY_MILLIS = 24 * 60 * 60 * 1000L;
+
+    /**
+     * The same benchmark with one thread per core.
+     */
+    @Threads(Threads.MAX)
+    public static class Contended extends TimerWheelBenchmarks {
+    }
+
+    @Param({"0", "1000000", "4000000"})
+    int preloaded;
+
+    private TimerOperations wheel;
+
+    @Setup
+    public void setUp() {
+        wheel = TimerOperations.create(100, 4096); // BookingReleaseScheduler's wheel size
+        for (int i = 0; i < preloaded; i++) {
+            wheel.schedule(DAY_MILLIS + i % DAY_MILLIS);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        wheel.close();
+    }
+
+    // A booking made and cancelled again: schedule one timer and cancel it
+    @Benchmark
+    public boolean scheduleAndCancel() {
+        return wheel.cancel(wheel.schedule(DAY_MILLIS));
+    }
+}
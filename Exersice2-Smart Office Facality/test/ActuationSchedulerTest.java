@@ -0,0 +1,79 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Drives an ActuationScheduler with explicit flush(now) calls on a fake clock.
+ * Room IDs are floor * 100 + room, so the zone of a room is its floor.
+ */
+class ActuationSchedulerTest {
+    private final FakeBuildingController controller = new FakeBuildingController();
+
+    private ActuationScheduler scheduler(int maxCallsPerSecond) {
+        return new ActuationScheduler(controller, 1000, 5000, maxCallsPerSecond, OfficeConfiguration::floorOf);
+    }
+
+    @Test
+    void flickerShorterThanTheDelaySendsNothing() {
+        ActuationScheduler scheduler = scheduler(10);
+        scheduler.occupancyChanged(101, true, 0);
+        scheduler.flush(500);
+        scheduler.occupancyChanged(101, false, 900); // Back to the applied state before the on delay ran out
+        scheduler.flush(2000);
+        scheduler.flush(10_000);
+        assertEquals(0, controller.getCalls());
+        assertEquals(0, scheduler.getPendingRooms());
+    }
+
+    @Test
+    void sendsOneCallPerZone() {
+        ActuationScheduler scheduler = scheduler(10);
+        for (int roomId : new int[] {101, 102, 103, 201, 202}) {
+            scheduler.occupancyChanged(roomId, true, 0);
+        }
+        scheduler.flush(999);
+        assertEquals(0, controller.getCalls()); // Still debouncing
+        scheduler.flush(1000);
+        assertEquals(Arrays.asList(1, 2), controller.getCalledZones());
+        assertEquals(5, controller.getCommands());
+        assertEquals(Boolean.TRUE, controller.isOn(202));
+        assertEquals(0, scheduler.getPendingRooms());
+    }
+
+    @Test
+    void capsCallsWithTheTokenBucket() {
+        ActuationScheduler scheduler = scheduler(2);
+        for (int floor = 1; floor <= 5; floor++) {
+            scheduler.occupancyChanged(floor * 100 + 1, true, 0);
+        }
+        scheduler.flush(1000);
+        assertEquals(2, controller.getCalls()); // A full bucket holds two calls
+        scheduler.flush(1000);
+        assertEquals(2, controller.getCalls());
+        scheduler.flush(1500); // Half a second refills one token
+        assertEquals(3, controller.getCalls());
+        scheduler.flush(2500);
+        assertEquals(5, controller.getCalls());
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5), controller.getCalledZones());
+        assertEquals(5, scheduler.getControllerCalls());
+    }
+
+    @Test
+    void retriesAfterAFailedCall() {
+        ActuationScheduler scheduler = scheduler(10);
+        scheduler.occupancyChanged(101, true, 0);
+        controller.failNext(1);
+        assertThrows(IllegalStateException.class, () -> scheduler.flush(1000));
+        assertNull(controller.isOn(101));
+        assertEquals(1, scheduler.getPendingRooms());
+        scheduler.flush(1100);
+        assertEquals(Boolean.TRUE, controller.isOn(101));
+        assertEquals(0, scheduler.getPendingRooms());
+        assertEquals(2, scheduler.getControllerCalls()); // The failed call counts too
+        assertEquals(1, scheduler.getFailedCalls());
+    }
+}
@@ -0,0 +1,63 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Loads user files and checks that malformed lines are rejected at load time with their line number.
+ */
+class AuthenticationServiceTest {
+    private static final String VALID = AuthenticationService.formatUser(AuthenticationService.createUser("alice", "secret", "admin", 1_000));
+
+    @TempDir
+    Path directory;
+
+    private AuthenticationService load(String... lines) throws IOException {
+        Path file = directory.resolve("users.txt");
+        Files.write(file, Arrays.asList(lines), StandardCharsets.UTF_8);
+        return new AuthenticationService(file, AuthenticationService.DEFAULT_TTL_MILLIS);
+    }
+
+    // Replace one field of the valid line
+    private static String withField(int index, String value) {
+        String[] fields = VALID.split(":");
+        fields[index] = value;
+        return String.join(":", fields);
+    }
+
+    private void assertRejected(String line, String message) {
+        IOException e = assertThrows(IOException.class, () -> load("# users", VALID.replace("alice", "bob"), line));
+        assertEquals(directory.resolve("users.txt") + " line 3: " + message, e.getMessage());
+    }
+
+    @Test
+    void loadsValidLines() throws IOException {
+        AuthenticationService service = load("# users", "", VALID);
+        assertNotNull(service.login("alice", "secret"));
+        assertNull(service.login("alice", "wrong"));
+    }
+
+    @Test
+    void rejectsBadIterations() {
+        assertRejected(withField(2, "0"), "iterations must be positive, got 0");
+        assertRejected(withField(2, "-5"), "iterations must be positive, got -5");
+        assertRejected(withField(2, "many"), "iterations 'many' is not a number");
+    }
+
+    @Test
+    void rejectsBadSaltAndHash() {
+        assertRejected(withField(3, ""), "salt is empty");
+        assertRejected(withField(3, "not*base64"), "salt is not valid base64: Illegal base64 character 2a");
+        assertRejected(withField(4, "AAAA"), "hash must be 32 bytes, got 3");
+        assertRejected(VALID.substring(0, VALID.lastIndexOf(':')), "expected username:role:iterations:salt:hash");
+    }
+}
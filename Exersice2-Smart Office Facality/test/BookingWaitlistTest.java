@@ -0,0 +1,61 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that waitlist promotions complete without the room's lock held and that a request
+ * whose slot has ended is dropped instead of booked.
+ */
+class BookingWaitlistTest {
+    private final TimerWheel wheel = new TimerWheel(3_600_000, 8); // Hourly ticks: no expiry timer fires during a test
+    private final BookingWaitlist waitlist = new BookingWaitlist(BookingWaitlist.Policy.FIFO, wheel);
+    private final OfficeConfiguration office = new OfficeConfiguration();
+
+    @AfterEach
+    void closeWheel() {
+        wheel.close();
+    }
+
+    @Test
+    void promotionCompletesWithoutTheRoomLock() throws Exception {
+        office.addRoom(1, 10);
+        waitlist.attach(office);
+        Room room = office.getRoom(1);
+        long start = System.currentTimeMillis() / 60_000 + 60;
+        assertTrue(room.tryBook(start, 30));
+        BookingWaitlist.Request request = waitlist.enqueue(null, room, start, 30);
+        AtomicBoolean heldLock = new AtomicBoolean(true);
+        request.getPromotion().thenRun(() -> heldLock.set(Thread.holdsLock(room)));
+
+        assertTrue(room.cancelBooking(start));
+
+        assertTrue(request.getPromotion().get(10, TimeUnit.SECONDS));
+        assertFalse(heldLock.get());
+        assertTrue(room.getCalendar().overlaps(start, 30));
+        assertEquals(1, waitlist.getPromoted());
+    }
+
+    @Test
+    void requestWhoseSlotEndedIsDroppedNotBooked() throws Exception {
+        office.addRoom(1, 10);
+        waitlist.attach(office);
+        Room room = office.getRoom(1);
+        long start = System.currentTimeMillis() / 60_000 - 60; // Ended half an hour ago
+        assertTrue(room.tryBook(start, 30));
+        BookingWaitlist.Request request = waitlist.enqueue(null, room, start, 30);
+
+        assertTrue(room.cancelBooking(start)); // As the end-timer release does
+
+        assertFalse(request.getPromotion().get(10, TimeUnit.SECONDS));
+        assertFalse(room.getCalendar().overlaps(start, 30));
+        assertEquals(0, waitlist.getPromoted());
+        assertEquals(1, waitlist.getExpired());
+        assertEquals(0, waitlist.getWaiting(room));
+    }
+}
@@ -0,0 +1,51 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks CompactRoomStore bookings, including the move from the inline booking to a calendar,
+ * and its occupancy accounting through a RoomView.
+ */
+class CompactRoomStoreTest {
+    private final CompactRoomStore store = new CompactRoomStore(2048); // Rooms 5 and 1029 share a lock stripe
+
+    @Test
+    void secondBookingSpillsIntoACalendar() {
+        assertTrue(store.tryBook(5, 600, 60));
+        assertFalse(store.tryBook(5, 630, 60)); // Overlaps the inline booking
+        assertTrue(store.tryBook(5, 660, 30)); // Moves both into a calendar
+        assertFalse(store.tryBook(5, 600, 15));
+        assertFalse(store.isAvailable(5, 670, 10));
+        assertTrue(store.isAvailable(5, 690, 10));
+        assertTrue(store.isAvailable(1029, 600, 60)); // Same stripe, different room
+        assertEquals(2, store.getTotalBookings(5));
+
+        store.clearBookings(5, 0);
+        assertTrue(store.tryBook(5, 600, 60));
+        assertFalse(store.tryBook(5, 600, 0));
+    }
+
+    @Test
+    void viewTracksOccupancy() {
+        AtomicInteger notified = new AtomicInteger();
+        store.setOccupancyListener((roomId, occupants) -> notified.incrementAndGet());
+        store.setCapacity(7, 4);
+        store.setOccupancy(7, 2, 1_000);
+        store.setOccupancy(7, 3, 2_000); // Still occupied, so not counted again
+        store.setOccupancy(7, 3, 2_500); // Unchanged, no notification
+        store.setOccupancy(7, 0, 5_000);
+
+        CompactRoomStore.RoomView view = store.view().moveTo(7);
+        assertEquals(4, view.getCapacity());
+        assertFalse(view.isOccupied());
+        assertEquals(1, view.getTotalBookings());
+        assertEquals(4_000, view.getTotalOccupiedTime());
+        assertEquals(3, notified.get());
+        assertThrows(IndexOutOfBoundsException.class, () -> view.moveTo(2048));
+    }
+}
@@ -0,0 +1,94 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Races threads for the same rooms and slots and checks that every slot is booked exactly once.
+ * ConcurrentBookingBenchmark runs the same workload at larger scale for throughput.
+ */
+class ConcurrentBookingTest {
+    private static final int ROOMS = 64;
+    private static final int SLOTS_PER_ROOM = 500;
+    private static final int SLOT_MINUTES = 30;
+
+    // Start the workers together and wait for all of them
+    private static void race(int threads, Runnable work) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                    work.run();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            workers[t].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    @Test
+    void overlappingRangesBookEverySlotExactlyOnce() throws InterruptedException {
+        for (int threads : new int[] {4, 16}) {
+            OfficeConfiguration officeConfig = new OfficeConfiguration();
+            for (int roomId = 1; roomId <= ROOMS; roomId++) {
+                officeConfig.addRoom(roomId, 10);
+            }
+            int pairs = ROOMS * SLOTS_PER_ROOM;
+            AtomicIntegerArray successes = new AtomicIntegerArray(pairs); // Successful bookings per (room, slot)
+            int[] next = {0};
+            race(threads, () -> {
+                int offset;
+                synchronized (next) {
+                    offset = (int) ((long) pairs * next[0]++ / threads);
+                }
+                for (int i = 0; i < 2 * pairs / threads + 1; i++) { // Overlaps the next thread's range
+                    int pair = (offset + i) % pairs;
+                    if (officeConfig.getRoom(pair % ROOMS + 1).tryBook((long) (pair / ROOMS) * SLOT_MINUTES, SLOT_MINUTES)) {
+                        successes.incrementAndGet(pair);
+                    }
+                }
+            });
+
+            for (int pair = 0; pair < pairs; pair++) {
+                assertEquals(1, successes.get(pair), "bookings of pair " + pair + " at " + threads + " threads");
+            }
+            for (Room room : officeConfig.getRooms()) {
+                synchronized (room) {
+                    assertEquals(SLOTS_PER_ROOM, room.getCalendar().size(), "calendar of room " + room.getRoomId());
+                }
+            }
+        }
+    }
+
+    @Test
+    void bookFreeRoomHandsOutEachRoomOnce() throws InterruptedException {
+        OfficeConfiguration officeConfig = new OfficeConfiguration();
+        for (int roomId = 1; roomId <= ROOMS; roomId++) {
+            officeConfig.addRoom(roomId, 2 + roomId % 8);
+        }
+        AtomicIntegerArray bookings = new AtomicIntegerArray(ROOMS + 1);
+        race(16, () -> {
+            for (int i = 0; i < ROOMS; i++) {
+                Room room = officeConfig.bookFreeRoom(2, 600, SLOT_MINUTES);
+                if (room != null) {
+                    bookings.incrementAndGet(room.getRoomId());
+                }
+            }
+        });
+
+        for (int roomId = 1; roomId <= ROOMS; roomId++) {
+            assertEquals(1, bookings.get(roomId), "bookings of room " + roomId);
+        }
+        assertNull(officeConfig.bookFreeRoom(2, 600, SLOT_MINUTES));
+    }
+}
@@ -0,0 +1,144 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Fills the bus's one-slot buffer while the dispatcher is stuck in an observer, then checks
+ * what each backpressure policy does with the next change.
+ */
+class OccupancyEventBusTest {
+    private final CountDownLatch dispatching = new CountDownLatch(1); // The dispatcher entered the stuck observer
+    private final CountDownLatch release = new CountDownLatch(1); // Lets the stuck observer return
+    private final Map<Integer, Thread> deliveredOn = new ConcurrentHashMap<>(); // Room ID to delivering thread
+    private OccupancyEventBus bus;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        release.countDown();
+        bus.shutdown(1000);
+    }
+
+    // Room 1 holds up the dispatcher, room 2 fills the buffer; returns room 3, which finds it full
+    private Room fillBuffer(OccupancyEventBus.BackpressurePolicy policy) throws InterruptedException {
+        bus = new OccupancyEventBus(1, 1, policy);
+        Room[] rooms = new Room[3];
+        for (int i = 0; i < rooms.length; i++) {
+            rooms[i] = new Room(i + 1, 10);
+            rooms[i].setEventBus(bus);
+            rooms[i].addObserver(room -> {
+                deliveredOn.put(room.getRoomId(), Thread.currentThread());
+                if (room.getRoomId() == 1) {
+                    dispatching.countDown();
+                    await(release);
+                }
+            });
+        }
+        rooms[0].setOccupancy(1);
+        assertTrue(dispatching.await(5, TimeUnit.SECONDS));
+        rooms[1].setOccupancy(1);
+        return rooms[2];
+    }
+
+    @Test
+    void dropDiscardsTheChange() throws InterruptedException {
+        Room room = fillBuffer(OccupancyEventBus.BackpressurePolicy.DROP);
+        room.setOccupancy(1);
+        assertEquals(1, bus.getDroppedCount());
+        assertEquals(1, room.getOccupants()); // Only the notification is lost, not the change
+        release.countDown();
+        bus.shutdown(1000);
+        assertEquals(2, bus.getDeliveredCount());
+        assertFalse(deliveredOn.containsKey(3));
+    }
+
+    @Test
+    void callerRunsDeliversOnThePublishingThread() throws InterruptedException {
+        Room room = fillBuffer(OccupancyEventBus.BackpressurePolicy.CALLER_RUNS);
+        room.setOccupancy(1);
+        assertSame(Thread.currentThread(), deliveredOn.get(3));
+        assertEquals(0, bus.getDroppedCount());
+        release.countDown();
+        bus.shutdown(1000);
+        assertEquals(3, bus.getDeliveredCount());
+    }
+
+    @Test
+    void blockWaitsWithoutHoldingTheRoomLock() throws InterruptedException {
+        Room room = fillBuffer(OccupancyEventBus.BackpressurePolicy.BLOCK);
+        Thread publisher = new Thread(() -> room.setOccupancy(1));
+        publisher.start();
+        while (publisher.getState() != Thread.State.WAITING) { // Parked on the full buffer
+            assertTrue(publisher.isAlive());
+            Thread.sleep(1);
+        }
+        assertEquals(1, room.getOccupants()); // The change is already made
+
+        Thread locker = new Thread(() -> {
+            synchronized (room) {
+                room.getVersion();
+            }
+        });
+        locker.start();
+        locker.join(1000);
+        assertFalse(locker.isAlive(), "the blocked publisher must not hold the room's lock");
+
+        release.countDown();
+        publisher.join(5000);
+        assertFalse(publisher.isAlive());
+        bus.shutdown(1000);
+        assertEquals(3, bus.getDeliveredCount());
+        assertEquals(0, bus.getDroppedCount());
+    }
+
+    @Test
+    void blockedCancellationHoldsNeitherRoomNorProcessorLock() throws InterruptedException {
+        Room room = fillBuffer(OccupancyEventBus.BackpressurePolicy.BLOCK);
+        long now = System.currentTimeMillis();
+        assertTrue(room.tryBook(now / 60_000 + 60, 30));
+        room.restore(2, now, now, 1, 0); // Occupied without publishing to the full buffer
+        CommandProcessor processor = new CommandProcessor(10);
+        CancellationCommand cancellation = new CancellationCommand(room);
+        Thread publisher = new Thread(() -> processor.process(Collections.singletonList(cancellation)));
+        publisher.start();
+        while (publisher.getState() != Thread.State.WAITING) { // Parked on the full buffer
+            assertTrue(publisher.isAlive());
+            Thread.sleep(1);
+        }
+        assertEquals(0, room.getOccupants()); // The change is already made
+
+        Thread locker = new Thread(() -> {
+            synchronized (room) {
+                processor.getHistorySize(); // Needs the processor's lock too
+            }
+        });
+        locker.start();
+        locker.join(1000);
+        assertFalse(locker.isAlive(), "the blocked cancellation must not hold the room's or the processor's lock");
+        assertFalse(room.isBooked());
+
+        release.countDown();
+        publisher.join(5000);
+        assertFalse(publisher.isAlive());
+        bus.shutdown(1000);
+        assertEquals(3, bus.getDeliveredCount());
+        assertEquals(1, processor.getHistorySize());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
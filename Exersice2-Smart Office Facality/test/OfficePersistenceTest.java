@@ -0,0 +1,127 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Recovers offices from a snapshot plus journal and compares them with the live office.
+ */
+class OfficePersistenceTest {
+    private static final BookingJournal.SyncMode MODE = BookingJournal.SyncMode.INTERVAL;
+
+    @TempDir
+    Path directory;
+
+    private static void assertSameRooms(OfficeConfiguration expected, OfficeConfiguration actual) {
+        assertEquals(expected.getRooms().size(), actual.getRooms().size());
+        for (Room room : expected.getRooms()) {
+            Room recovered = actual.getRoom(room.getRoomId());
+            assertEquals(room.getCapacity(), recovered.getCapacity(), "capacity of room " + room.getRoomId());
+            assertEquals(room.getOccupants(), recovered.getOccupants(), "occupants of room " + room.getRoomId());
+            assertEquals(room.getTotalBookings(), recovered.getTotalBookings(), "total bookings of room " + room.getRoomId());
+            assertEquals(room.getCalendar().size(), recovered.getCalendar().size(), "bookings of room " + room.getRoomId());
+        }
+    }
+
+    // Recover an office from the directory and close the journal again
+    private void recover(OfficeConfiguration office) throws IOException {
+        new OfficePersistence(office, directory, MODE, 10).close();
+    }
+
+    @Test
+    void snapshotsTakenDuringChangesDoNotCountChangesTwice() throws Exception {
+        OfficeConfiguration office = new OfficeConfiguration();
+        try (OfficePersistence persistence = new OfficePersistence(office, directory, MODE, 10)) {
+            for (int roomId = 1; roomId <= 200; roomId++) {
+                office.addRoom(roomId, 10);
+            }
+            AtomicBoolean running = new AtomicBoolean(true);
+            Thread writer = new Thread(() -> {
+                Random random = new Random(5);
+                long timestamp = 0;
+                while (running.get()) {
+                    Room room = office.getRoom(1 + random.nextInt(200));
+                    if (random.nextBoolean()) {
+                        room.tryBook(random.nextInt(100_000), 30);
+                    } else {
+                        room.setOccupancy(random.nextInt(3), timestamp++);
+                    }
+                }
+            });
+            writer.start();
+            for (int i = 0; i < 20; i++) {
+                persistence.snapshot();
+            }
+            running.set(false);
+            writer.join();
+        }
+        OfficeConfiguration recovered = new OfficeConfiguration();
+        recover(recovered);
+        assertSameRooms(office, recovered);
+    }
+
+    @Test
+    void snapshotDropsTheRecordsItCovers() throws IOException {
+        OfficeConfiguration office = new OfficeConfiguration();
+        try (OfficePersistence persistence = new OfficePersistence(office, directory, MODE, 10)) {
+            office.addRoom(1, 10);
+            for (int i = 0; i < 1000; i++) {
+                office.getRoom(1).tryBook(i * 60L, 30);
+            }
+            persistence.snapshot();
+            office.getRoom(1).tryBook(100_000, 30);
+            office.getRoom(1).setCapacity(12);
+        }
+        OfficeConfiguration recovered = new OfficeConfiguration();
+        try (OfficePersistence persistence = new OfficePersistence(recovered, directory, MODE, 10)) {
+            assertEquals(2, persistence.getRecoveredRecords());
+            assertSameRooms(office, recovered);
+        }
+        Files.delete(directory.resolve("office.snapshot"));
+        assertThrows(IOException.class, () -> new OfficePersistence(new OfficeConfiguration(), directory, MODE, 10));
+    }
+
+    @Test
+    void replayedAddRoomReplacesTheRoomLikeAddRoom() throws IOException {
+        OfficeConfiguration office = new OfficeConfiguration();
+        OfficePersistence persistence = new OfficePersistence(office, directory, MODE, 10); // Journals through the office
+        try {
+            office.addRoom(1, 10);
+            office.getRoom(1).tryBook(600, 60);
+            office.addRoom(1, 20);
+            assertEquals(0, office.getRoom(1).getCalendar().size());
+        } finally {
+            persistence.close();
+        }
+        OfficeConfiguration recovered = new OfficeConfiguration();
+        recover(recovered);
+        assertSameRooms(office, recovered);
+    }
+
+    @Test
+    void unreadableSnapshotLeavesTheOfficeEmpty() throws IOException {
+        OfficeConfiguration office = new OfficeConfiguration();
+        try (OfficePersistence persistence = new OfficePersistence(office, directory, MODE, 10)) {
+            office.addRoom(1, 10);
+            persistence.snapshot();
+        }
+        byte[] snapshot = Files.readAllBytes(directory.resolve("office.snapshot"));
+        Files.write(directory.resolve("office.snapshot"), Arrays.copyOf(snapshot, snapshot.length - 4));
+        OfficeConfiguration recovered = new OfficeConfiguration();
+        assertThrows(IOException.class, () -> new OfficePersistence(recovered, directory, MODE, 10));
+        assertTrue(recovered.getRooms().isEmpty());
+        // The journal was closed, so the directory can be opened again once the snapshot is restored
+        Files.write(directory.resolve("office.snapshot"), snapshot);
+        recover(recovered);
+        assertEquals(1, recovered.getRooms().size());
+    }
+}
@@ -0,0 +1,114 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks monthly series against dates worked out by hand, and that recurring bookings and
+ * skipped occurrences survive a restart through both the journal and a snapshot.
+ */
+class RecurrenceRuleTest {
+    @TempDir
+    Path directory;
+
+    private static long minutes(String isoDateTime) {
+        return LocalDateTime.parse(isoDateTime).toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+
+    private static List<Long> occurrences(RecurrenceRule rule, long from, long to) {
+        List<Long> starts = new ArrayList<>();
+        rule.forEachOccurrence(from, to, starts::add);
+        return starts;
+    }
+
+    @Test
+    void monthlyRepeatsOnTheSameWeekOfTheMonth() {
+        // 2026-01-13 is the 2nd Tuesday of January
+        RecurrenceRule rule = RecurrenceRule.monthly(minutes("2026-01-13T10:00"), 60, false, RecurrenceRule.FOREVER);
+        List<Long> starts = occurrences(rule, minutes("2026-01-01T00:00"), minutes("2026-05-01T00:00"));
+        List<Long> expected = new ArrayList<>();
+        for (String date : new String[] {"2026-01-13", "2026-02-10", "2026-03-10", "2026-04-14"}) {
+            expected.add(minutes(date + "T10:00"));
+        }
+        assertEquals(expected, starts);
+        assertTrue(rule.isOccurrence(minutes("2026-03-10T10:00")));
+        assertFalse(rule.isOccurrence(minutes("2026-03-17T10:00")));
+        assertTrue(rule.overlaps(minutes("2026-04-14T10:30"), minutes("2026-04-14T11:30")));
+        assertFalse(rule.overlaps(minutes("2026-04-14T11:00"), minutes("2026-04-30T00:00")));
+    }
+
+    @Test
+    void monthlyLastWeekdayFollowsMonthLength() {
+        // 2026-01-30 is the last Friday of January
+        RecurrenceRule rule = RecurrenceRule.monthly(minutes("2026-01-30T16:00"), 30, true, 3);
+        assertEquals(3, occurrences(rule, minutes("2026-01-01T00:00"), minutes("2027-01-01T00:00")).size());
+        assertTrue(rule.isOccurrence(minutes("2026-02-27T16:00")));
+        assertTrue(rule.isOccurrence(minutes("2026-03-27T16:00")));
+        assertEquals(minutes("2026-03-27T16:30"), rule.lastEnd());
+        assertThrows(IllegalArgumentException.class,
+                () -> RecurrenceRule.monthly(minutes("2026-01-23T16:00"), 30, true, 3)); // Not the last Friday
+        assertThrows(IllegalArgumentException.class,
+                () -> RecurrenceRule.monthly(minutes("2026-01-29T16:00"), 30, false, 3)); // A 5th Thursday
+    }
+
+    @Test
+    void monthlyCollidesWithWeeklyOnlyWhenTheDaysMeet() {
+        RecurrenceRule monthly = RecurrenceRule.monthly(minutes("2026-01-13T10:00"), 60, false, RecurrenceRule.FOREVER);
+        RecurrenceRule tuesdays = RecurrenceRule.weekly(minutes("2026-01-06T10:30"), 30, 1, RecurrenceRule.FOREVER);
+        RecurrenceRule wednesdays = RecurrenceRule.weekly(minutes("2026-01-07T10:00"), 60, 1, RecurrenceRule.FOREVER);
+        assertTrue(monthly.overlaps(tuesdays));
+        assertTrue(tuesdays.overlaps(monthly));
+        assertFalse(monthly.overlaps(wednesdays));
+        // Every other Tuesday, starting the week after the 2nd Tuesday: meets it only in some months
+        RecurrenceRule fortnightly = RecurrenceRule.weekly(minutes("2026-01-20T10:00"), 60, 2, 4);
+        assertFalse(monthly.overlaps(fortnightly)); // Jan 20, Feb 3, Feb 17, Mar 3
+        assertTrue(monthly.overlaps(RecurrenceRule.weekly(minutes("2026-01-20T10:00"), 60, 2, 7))); // ... Mar 17, Mar 31, Apr 14
+    }
+
+    @Test
+    void recurringBookingsSurviveJournalAndSnapshot() throws IOException {
+        for (boolean withSnapshot : new boolean[] {true, false}) {
+            Path data = directory.resolve(withSnapshot ? "snapshot" : "journal");
+            long first = minutes("2026-01-13T10:00");
+            OfficeConfiguration office = new OfficeConfiguration();
+            try (OfficePersistence persistence = new OfficePersistence(office, data, BookingJournal.SyncMode.PER_BATCH, 1)) {
+                office.addRoom(1, 10);
+                Room room = office.getRoom(1);
+                assertTrue(room.tryBookRecurring(RecurrenceRule.monthly(first, 60, false, RecurrenceRule.FOREVER)));
+                assertTrue(room.tryBookRecurring(RecurrenceRule.daily(minutes("2026-01-01T08:00"), 30, 100)));
+                if (withSnapshot) {
+                    persistence.snapshot();
+                }
+                CommandProcessor processor = new CommandProcessor(10);
+                processor.execute(new OccurrenceCommand(room, minutes("2026-02-10T10:00"), true));
+                processor.execute(new OccurrenceCommand(room, minutes("2026-03-10T10:00"), true));
+                processor.undo(); // The March occurrence is back
+                room.cancelRecurring(room.findRecurring(minutes("2026-01-01T08:00")));
+            }
+
+            OfficeConfiguration recovered = new OfficeConfiguration();
+            new OfficePersistence(recovered, data, BookingJournal.SyncMode.PER_BATCH, 1).close(); // Recovers, then closes the journal
+            Room room = recovered.getRoom(1);
+            RecurrenceRule rule = room.findRecurring(first);
+            assertNotNull(rule);
+            assertEquals(RecurrenceRule.MONTHLY, rule.getRepeat());
+            assertFalse(room.isAvailable(minutes("2026-04-14T10:00"), 60));
+            assertTrue(room.isAvailable(minutes("2026-02-10T10:00"), 60)); // Skipped
+            assertFalse(room.isAvailable(minutes("2026-03-10T10:00"), 60)); // Skip undone
+            assertNull(room.findRecurring(minutes("2026-01-01T08:00"))); // Cancelled series
+            assertTrue(room.isAvailable(minutes("2026-01-05T08:00"), 30));
+        }
+    }
+}
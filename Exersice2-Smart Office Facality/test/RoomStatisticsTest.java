@@ -0,0 +1,137 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks the local-time buckets of RoomStatistics across offset changes, that the statistics
+ * survive a snapshot and journal recovery, and that the report shows the histograms.
+ */
+class RoomStatisticsTest {
+    private static final long MINUTE_MILLIS = 60_000;
+    private static final BookingJournal.SyncMode MODE = BookingJournal.SyncMode.INTERVAL;
+
+    @TempDir
+    Path directory;
+
+    private static long millis(String localDateTime, ZoneId zone) {
+        return LocalDateTime.parse(localDateTime).atZone(zone).toInstant().toEpochMilli();
+    }
+
+    @Test
+    void fallBackOverlapCountsTheRepeatedHourTwice() {
+        ZoneId berlin = ZoneId.of("Europe/Berlin");
+        long start = millis("2024-10-27T01:30", berlin); // CEST, 90 minutes before clocks go back at 03:00
+        RoomStatistics statistics = new RoomStatistics(start, berlin);
+        statistics.recordOccupancy(1, start);
+        statistics.recordOccupancy(0, start + 150 * MINUTE_MILLIS); // 03:00 CET
+
+        assertEquals(30 * MINUTE_MILLIS, statistics.getOccupiedTimeByHourOfDay(1));
+        assertEquals(120 * MINUTE_MILLIS, statistics.getOccupiedTimeByHourOfDay(2)); // Once in CEST, once in CET
+        assertEquals(0, statistics.getOccupiedTimeByHourOfDay(3));
+        assertEquals(150 * MINUTE_MILLIS, statistics.getOccupiedTimeByWeekday(6)); // Sunday
+    }
+
+    @Test
+    void springForwardAtMidnightSkipsTheMissingHour() {
+        ZoneId saoPaulo = ZoneId.of("America/Sao_Paulo");
+        long start = millis("2018-11-03T23:00", saoPaulo); // Saturday; midnight became 01:00 on Sunday
+        RoomStatistics statistics = new RoomStatistics(start, saoPaulo);
+        statistics.recordOccupancy(1, start);
+        statistics.recordOccupancy(0, start + 120 * MINUTE_MILLIS); // 02:00 on Sunday
+
+        assertEquals(60 * MINUTE_MILLIS, statistics.getOccupiedTimeByHourOfDay(23));
+        assertEquals(0, statistics.getOccupiedTimeByHourOfDay(0));
+        assertEquals(60 * MINUTE_MILLIS, statistics.getOccupiedTimeByHourOfDay(1));
+        assertEquals(60 * MINUTE_MILLIS, statistics.getOccupiedTimeByWeekday(5)); // Saturday
+        assertEquals(60 * MINUTE_MILLIS, statistics.getOccupiedTimeByWeekday(6)); // Sunday
+    }
+
+    @Test
+    void halfHourOffsetSplitsUtcHours() {
+        ZoneId kolkata = ZoneId.of("Asia/Kolkata");
+        long start = millis("2024-03-04T15:30", kolkata); // 10:00 UTC
+        RoomStatistics statistics = new RoomStatistics(start, kolkata);
+        statistics.recordOccupancy(1, start);
+        statistics.recordOccupancy(0, start + 60 * MINUTE_MILLIS);
+
+        assertEquals(30 * MINUTE_MILLIS, statistics.getOccupiedTimeByHourOfDay(15));
+        assertEquals(30 * MINUTE_MILLIS, statistics.getOccupiedTimeByHourOfDay(16));
+    }
+
+    @Test
+    void statisticsSurviveSnapshotAndJournalRecovery() throws IOException {
+        long now = System.currentTimeMillis();
+        OfficeConfiguration office = new OfficeConfiguration();
+        try (OfficePersistence persistence = new OfficePersistence(office, directory, MODE, 10)) {
+            office.addRoom(1, 10);
+            Room room = office.getRoom(1);
+            room.setOccupancy(4, now - 180 * MINUTE_MILLIS);
+            room.setOccupancy(0, now - 120 * MINUTE_MILLIS);
+            persistence.snapshot();
+            room.setOccupancy(2, now - 60 * MINUTE_MILLIS); // Only in the journal
+            room.setOccupancy(0, now - 30 * MINUTE_MILLIS);
+        }
+        OfficeConfiguration recovered = new OfficeConfiguration();
+        new OfficePersistence(recovered, directory, MODE, 10).close();
+
+        RoomStatistics expected = office.getRoom(1).getStatistics();
+        RoomStatistics actual = recovered.getRoom(1).getStatistics();
+        assertEquals(90 * MINUTE_MILLIS, expected.getWindowOccupiedTime(now));
+        assertEquals(expected.getWindowOccupiedTime(now), actual.getWindowOccupiedTime(now));
+        assertEquals(4, actual.getPeakOccupants());
+        for (int hour = 0; hour < 24; hour++) {
+            assertEquals(expected.getOccupiedTimeByHourOfDay(hour), actual.getOccupiedTimeByHourOfDay(hour), "hour " + hour);
+        }
+        for (int weekday = 0; weekday < 7; weekday++) {
+            assertEquals(expected.getOccupiedTimeByWeekday(weekday), actual.getOccupiedTimeByWeekday(weekday), "weekday " + weekday);
+        }
+    }
+
+    @Test
+    void reportShowsTheBusiestHourAndWeekday() throws IOException {
+        ZoneId berlin = ZoneId.of("Europe/Berlin");
+        TimeParser.setZone(berlin);
+        try {
+            OfficeConfiguration office = new OfficeConfiguration();
+            office.addRoom(1, 10);
+            Room room = office.getRoom(1);
+            room.setOccupancy(3, millis("2024-03-05T09:00", berlin)); // Tuesday
+            room.setOccupancy(0, millis("2024-03-05T10:30", berlin));
+            room.setOccupancy(1, millis("2024-03-07T14:00", berlin)); // Thursday
+            room.setOccupancy(0, millis("2024-03-07T14:45", berlin));
+
+            List<StatisticsReport.Row> rows = new ArrayList<>();
+            ByteArrayOutputStream csv = new ByteArrayOutputStream();
+            new StatisticsReport(office, 60_000).write(Channels.newChannel(csv), StatisticsReport.Format.CSV,
+                    row -> rows.add(row), 0, Integer.MAX_VALUE);
+
+            StatisticsReport.Row row = rows.get(0);
+            assertEquals(60 * MINUTE_MILLIS, row.getOccupiedMillisByHourOfDay(9));
+            assertEquals(30 * MINUTE_MILLIS, row.getOccupiedMillisByHourOfDay(10));
+            assertEquals(45 * MINUTE_MILLIS, row.getOccupiedMillisByHourOfDay(14));
+            assertEquals(90 * MINUTE_MILLIS, row.getOccupiedMillisByWeekday(1));
+            assertEquals(9, row.getBusiestHourOfDay());
+            assertEquals(1, row.getBusiestWeekday());
+            assertTrue(new String(csv.toByteArray(), StandardCharsets.UTF_8).endsWith(",3,9,TUESDAY\n"));
+
+            ByteArrayOutputStream json = new ByteArrayOutputStream();
+            new StatisticsReport(office, 60_000).write(Channels.newChannel(json), StatisticsReport.Format.JSON, null, 0, 1);
+            assertTrue(new String(json.toByteArray(), StandardCharsets.UTF_8)
+                    .contains("\"occupiedMillisByWeekday\": [0, 5400000, 0, 2700000, 0, 0, 0]"));
+        } finally {
+            TimeParser.setZone(ZoneId.systemDefault());
+        }
+    }
+}
@@ -0,0 +1,70 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that SensorIngestPipeline applies only each room's last reading of a batch.
+ */
+class SensorIngestPipelineTest {
+    private static ByteBuffer lines(String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void appliesTheLastReadingOfEachRoomOnce() {
+        OfficeConfiguration office = new OfficeConfiguration();
+        office.addRoom(1, 10);
+        office.addRoom(70_001, 10); // Beyond the dense room cache
+        AtomicInteger notifications = new AtomicInteger();
+        office.getRoom(1).addObserver(room -> notifications.incrementAndGet());
+        office.getRoom(70_001).addObserver(room -> notifications.incrementAndGet());
+        SensorIngestPipeline pipeline = new SensorIngestPipeline(office);
+
+        assertEquals(7, pipeline.ingest(lines("1,3,1000\n70001,2,1000\n1,5,2000\n99,1,2000\n70001,0,3000\n1,4,3000\n1,0,4000\n")));
+
+        assertEquals(0, office.getRoom(1).getOccupants());
+        assertEquals(0, office.getRoom(70_001).getOccupants());
+        assertEquals(0, notifications.get()); // Both rooms end where they started
+        assertEquals(4, pipeline.getCoalescedCount());
+        assertEquals(2, pipeline.getUnchangedCount());
+        assertEquals(1, pipeline.getUnknownRoomCount());
+
+        pipeline.ingest(lines("1,2,5000\n70001,6,5000\n1,3,6000\n"));
+
+        assertEquals(3, office.getRoom(1).getOccupants());
+        assertEquals(6, office.getRoom(70_001).getOccupants());
+        assertEquals(2, notifications.get());
+        assertEquals(2, pipeline.getAppliedCount());
+        assertEquals(5, pipeline.getCoalescedCount());
+    }
+
+    @Test
+    void coalescesBatchesLargerThanTheTable() {
+        OfficeConfiguration office = new OfficeConfiguration();
+        for (int roomId = 1; roomId <= 5_000; roomId++) {
+            office.addRoom(roomId, 10);
+        }
+        SensorIngestPipeline pipeline = new SensorIngestPipeline(office);
+        int count = 10_000;
+        int[] roomIds = new int[count];
+        int[] occupants = new int[count];
+        long[] timestamps = new long[count];
+        for (int i = 0; i < count; i++) {
+            roomIds[i] = 1 + i % 5_000;
+            occupants[i] = i < 5_000 ? 1 : 2;
+            timestamps[i] = i;
+        }
+
+        pipeline.ingest(roomIds, occupants, timestamps, count);
+
+        for (int roomId = 1; roomId <= 5_000; roomId++) {
+            assertEquals(2, office.getRoom(roomId).getOccupants(), "room " + roomId);
+        }
+        assertEquals(5_000, pipeline.getAppliedCount());
+        assertEquals(5_000, pipeline.getCoalescedCount());
+    }
+}
@@ -0,0 +1,121 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.time.zone.ZoneOffsetTransition;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks TimeParser on fixed daylight saving cases, including a change at midnight, and
+ * compares it with java.time on random dates and on every minute around each offset change.
+ */
+class TimeParserTest {
+    // Half-hour DST (Lord Howe), DST switching at midnight (Sao Paulo until 2019), and no DST at all (Kolkata)
+    private static final String[] ZONES = {"Europe/Berlin", "America/New_York", "America/Sao_Paulo", "Australia/Lord_Howe", "Asia/Kolkata"};
+    private static final int FIRST_YEAR = 1970;
+    private static final int LAST_YEAR = 2040;
+    private static final DateTimeFormatter REFERENCE = DateTimeFormatter.ofPattern("uuuu-MM-dd HH:mm")
+            .withResolverStyle(ResolverStyle.STRICT);
+
+    @AfterEach
+    void restoreZone() {
+        TimeParser.setZone(ZoneId.systemDefault());
+    }
+
+    private static long epochMinute(String instant) {
+        return Instant.parse(instant).getEpochSecond() / 60;
+    }
+
+    @Test
+    void springForwardAtMidnightMovesIntoTheNextHour() {
+        TimeParser.setZone(ZoneId.of("America/Sao_Paulo")); // 2018-11-04 00:00 -03:00 became 01:00 -02:00
+        assertEquals(epochMinute("2018-11-04T02:59:00Z"), TimeParser.parse("2018-11-03 23:59"));
+        assertEquals(epochMinute("2018-11-04T03:00:00Z"), TimeParser.parse("2018-11-04 00:00")); // Does not exist, so 01:00
+        assertEquals(epochMinute("2018-11-04T03:30:00Z"), TimeParser.parse("2018-11-04T00:30"));
+        assertEquals(epochMinute("2018-11-04T03:00:00Z"), TimeParser.parse("2018-11-04 01:00"));
+        assertEquals(epochMinute("2018-11-04T14:00:00Z"), TimeParser.parse("2018-11-04 12:00"));
+    }
+
+    @Test
+    void fallBackOverlapTakesTheEarlierOffset() {
+        TimeParser.setZone(ZoneId.of("Europe/Berlin")); // 2024-10-27 03:00 +02:00 became 02:00 +01:00
+        assertEquals(epochMinute("2024-10-26T23:59:00Z"), TimeParser.parse("2024-10-27 01:59"));
+        assertEquals(epochMinute("2024-10-27T00:00:00Z"), TimeParser.parse("2024-10-27 02:00")); // Happens twice
+        assertEquals(epochMinute("2024-10-27T00:30:00Z"), TimeParser.parse("2024-10-27 02:30"));
+        assertEquals(epochMinute("2024-10-27T02:00:00Z"), TimeParser.parse("2024-10-27 03:00"));
+
+        TimeParser.setZone(ZoneId.of("America/Sao_Paulo")); // 2019-02-17 00:00 -02:00 became 2019-02-16 23:00 -03:00
+        assertEquals(epochMinute("2019-02-17T01:30:00Z"), TimeParser.parse("2019-02-16 23:30"));
+        assertEquals(epochMinute("2019-02-17T03:00:00Z"), TimeParser.parse("2019-02-17 00:00"));
+    }
+
+    @Test
+    void rejectsImpossibleDates() {
+        assertThrows(DateTimeParseException.class, () -> TimeParser.parse("2023-02-29 10:00"));
+        assertThrows(DateTimeParseException.class, () -> TimeParser.parse("2024-04-31T10:00"));
+        assertThrows(DateTimeParseException.class, () -> TimeParser.parse("2024-01-01 24:00"));
+        assertThrows(DateTimeParseException.class, () -> TimeParser.parse("10:60"));
+    }
+
+    @Test
+    void agreesWithJavaTimeAroundEveryOffsetChange() {
+        for (String zoneName : ZONES) {
+            ZoneId zone = ZoneId.of(zoneName);
+            TimeParser.setZone(zone);
+            ZoneOffsetTransition transition = zone.getRules().nextTransition(
+                    LocalDate.of(FIRST_YEAR, 1, 1).atStartOfDay(zone).toInstant());
+            while (transition != null && transition.getDateTimeBefore().getYear() <= LAST_YEAR) {
+                LocalDate date = transition.getDateTimeBefore().toLocalDate();
+                for (int day = -1; day <= 1; day++) {
+                    String prefix = date.plusDays(day).toString() + "T";
+                    for (int minute = 0; minute < 24 * 60; minute++) {
+                        check(prefix + String.format("%02d:%02d", minute / 60, minute % 60), zone);
+                    }
+                }
+                transition = zone.getRules().nextTransition(transition.getInstant());
+            }
+        }
+    }
+
+    @Test
+    void agreesWithJavaTimeOnRandomDates() {
+        Random random = new Random(42);
+        for (String zoneName : ZONES) {
+            ZoneId zone = ZoneId.of(zoneName);
+            TimeParser.setZone(zone);
+            for (int i = 0; i < 20_000; i++) {
+                // Days up to 31 in every month, so impossible dates must be rejected both ways
+                String text = String.format("%04d-%02d-%02d%c%02d:%02d", 1970 + random.nextInt(131),
+                        random.nextInt(12) + 1, random.nextInt(31) + 1, random.nextBoolean() ? 'T' : ' ',
+                        random.nextInt(24), random.nextInt(60));
+                check(text, zone);
+            }
+        }
+    }
+
+    // Parse a "yyyy-MM-ddTHH:mm" or "yyyy-MM-dd HH:mm" text both ways; an invalid text must fail both ways
+    private static void check(String text, ZoneId zone) {
+        Long expected;
+        try {
+            expected = Math.floorDiv(LocalDateTime.parse(text.replace('T', ' '), REFERENCE).atZone(zone).toEpochSecond(), 60L);
+        } catch (DateTimeParseException e) {
+            expected = null;
+        }
+        Long actual;
+        try {
+            actual = TimeParser.parse(text);
+        } catch (DateTimeParseException e) {
+            actual = null;
+        }
+        assertEquals(expected, actual, () -> zone + " '" + text + "'");
+    }
+}